@@ -0,0 +1,118 @@
+package expresiones;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo desde que se lanza una JVM nueva hasta que el programa ASM queda
+ * escrito, como en cada invocación del compilador desde la línea de comandos.
+ *
+ * <ul>
+ * <li>{@code gui}: {@code --gui} en una JVM sin pantalla. Crea el
+ * {@code JFileChooser} y termina al no poder mostrarlo, así que mide lo que
+ * pagaba cada invocación antes de compilar cuando el único punto de entrada
+ * era el diálogo.</li>
+ * <li>{@code cli}: la línea de comandos, sin cargar Swing.</li>
+ * <li>{@code cli-cds}: lo mismo con un archivo AppCDS creado en la
+ * preparación con una ejecución de entrenamiento.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ArranqueBenchmark {
+    /** Punto de entrada medido. */
+    @Param({ "gui", "cli", "cli-cds" })
+    public String modo;
+
+    private Path directorio;
+    private List<String> comando;
+
+    @Setup
+    public void preparar() throws IOException, InterruptedException {
+        directorio = Files.createTempDirectory("benchmark-arranque");
+        Files.writeString(directorio.resolve("entrada.txt"), GeneradorExpresiones.generar(64, 8));
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // Rutas absolutas: el proceso corre en el directorio temporal
+        String clases = Stream.of(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(ruta -> Paths.get(ruta).toAbsolutePath().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+
+        List<String> argumentos = new ArrayList<>(List.of("expresiones.ExpresionesAritmeticasASM"));
+        if (modo.equals("gui")) {
+            argumentos.add("--gui");
+        } else {
+            argumentos.addAll(List.of("entrada.txt", "Resultado.ASM"));
+            for (int i = 0; i < GeneradorExpresiones.VARIABLES.length; i++) {
+                argumentos.add("-D" + GeneradorExpresiones.VARIABLES[i] + "=" + (i + 1.5));
+            }
+        }
+        if (modo.equals("cli-cds")) {
+            List<String> entrenamiento = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=compilador.jsa",
+                    "-cp", clases));
+            entrenamiento.addAll(argumentos);
+            if (lanzar(entrenamiento) != 0) {
+                throw new IllegalStateException("La ejecución de entrenamiento falló");
+            }
+        }
+
+        comando = new ArrayList<>(List.of(java, "-Djava.awt.headless=true", "-cp", clases));
+        if (modo.equals("cli-cds")) {
+            comando.add(1, "-XX:SharedArchiveFile=compilador.jsa");
+        }
+        comando.addAll(argumentos);
+    }
+
+    @TearDown
+    public void limpiar() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public int arrancar() throws IOException, InterruptedException {
+        // Sin pantalla, --gui termina con 1; cualquier otro código es un fallo
+        int codigo = lanzar(comando);
+        if (codigo != (modo.equals("gui") ? 1 : 0)) {
+            throw new IllegalStateException("El compilador terminó con código " + codigo);
+        }
+        return codigo;
+    }
+
+    private int lanzar(List<String> comando) throws IOException, InterruptedException {
+        return new ProcessBuilder(comando)
+                .directory(directorio.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start()
+                .waitFor();
+    }
+}
@@ -0,0 +1,134 @@
+package expresiones;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de cada etapa del compilador según el tamaño de la expresión y la
+ * profundidad de sus paréntesis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiladorBenchmark {
+    /** Número de operandos del lado derecho. */
+    @Param({ "8", "64", "512" })
+    public int tamano;
+
+    /** Paréntesis anidados. */
+    @Param({ "0", "8", "32" })
+    public int profundidad;
+
+    private String normalizada;
+    private ExpresionCompilada expresion;
+    private Map<String, Double> valores;
+    private EvaluadorPuntoFijo evaluador;
+    private EvaluadorBytecode compilado;
+    private double[] arreglo;
+    private Path directorio;
+    private ContextoCompilacion.SalidaASM salida;
+
+    @Setup
+    public void preparar() throws IOException {
+        normalizada = GeneradorExpresiones.generar(tamano, profundidad);
+        expresion = ExpresionesAritmeticasASM.analizar(normalizada, OpcionesCompilacion.PREDETERMINADAS);
+        valores = new HashMap<>();
+        for (int i = 0; i < GeneradorExpresiones.VARIABLES.length; i++) {
+            valores.put(GeneradorExpresiones.VARIABLES[i], i + 1.5);
+        }
+        valores.keySet().retainAll(expresion.variables());
+        evaluador = new EvaluadorPuntoFijo(expresion);
+        compilado = new EvaluadorBytecode(expresion);
+        arreglo = new double[compilado.variables().size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = valores.get(compilado.variables().get(i));
+        }
+        ExpresionesAritmeticasASM.evaluar(new ContextoCompilacion(expresion, valores, null));
+        directorio = Files.createTempDirectory("benchmark-asm");
+        salida = ContextoCompilacion.SalidaASM.archivo(directorio.resolve("Resultado.ASM"));
+    }
+
+    @TearDown
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(directorio.resolve("Resultado.ASM"));
+        Files.deleteIfExists(directorio);
+    }
+
+    @Benchmark
+    public String formatearExpresion() {
+        return ExpresionesAritmeticasASM.formatearExpresion(normalizada);
+    }
+
+    @Benchmark
+    public ValidadorExpresion.Violacion esExpresionValida() {
+        return ValidadorExpresion.validar(normalizada);
+    }
+
+    @Benchmark
+    public List<Instruccion> procesarExpresion() {
+        return ExpresionesAritmeticasASM.procesarExpresion(normalizada);
+    }
+
+    @Benchmark
+    public void generarInstruccionASM() throws IOException {
+        try (EmisorASM asm = new EmisorASM(Channels.newChannel(OutputStream.nullOutputStream()))) {
+            for (Instruccion instruccion : expresion.codigo()) {
+                ExpresionesAritmeticasASM.generarInstruccionASM(asm, instruccion, expresion.ranuras(), "");
+            }
+        }
+    }
+
+    @Benchmark
+    public long evaluarPuntoFijo() {
+        try {
+            return evaluador.evaluar(valores);
+        } catch (ArithmeticException e) {
+            return -1; // El programa fallaría en un IDIV; el tiempo es el mismo hasta ahí
+        }
+    }
+
+    /**
+     * Evaluación en {@code double} recorriendo el código de tres direcciones,
+     * como la hace el programa.
+     */
+    @Benchmark
+    public double evaluarInterpretado() {
+        return ExpresionesAritmeticasASM.evaluar(new ContextoCompilacion(expresion, valores, null));
+    }
+
+    /**
+     * La misma evaluación con la clase generada por {@link EvaluadorBytecode}.
+     */
+    @Benchmark
+    public double evaluarCompilado() {
+        return compilado.evaluar(arreglo);
+    }
+
+    @Benchmark
+    public void generarArchivoASM() throws IOException {
+        ExpresionesAritmeticasASM.generarArchivoASM(new ContextoCompilacion(expresion, valores, salida));
+    }
+}
@@ -0,0 +1,45 @@
+package expresiones;
+
+/**
+ * Genera expresiones sintéticas para los benchmarks, con un número de
+ * operandos y una profundidad de paréntesis dados.
+ */
+final class GeneradorExpresiones {
+    /** Variables que aparecen en las expresiones generadas. */
+    static final String[] VARIABLES = { "a", "b", "c", "d", "e", "f", "g", "h" };
+
+    private static final char[] OPERADORES = { '+', '*', '-', '/' };
+
+    private GeneradorExpresiones() {
+    }
+
+    /**
+     * Genera una expresión normalizada (sin espacios y en minúsculas), p. ej.
+     * {@code z=(a+(b*c))} para 3 operandos y profundidad 2. Cada décimo operando
+     * es un literal decimal.
+     *
+     * @param operandos   Número de operandos del lado derecho.
+     * @param profundidad Cuántos paréntesis anidados se abren.
+     * @return La expresión.
+     */
+    static String generar(int operandos, int profundidad) {
+        StringBuilder expresion = new StringBuilder("z=");
+        int abiertos = 0;
+        for (int i = 0; i < operandos; i++) {
+            if (i > 0) {
+                expresion.append(OPERADORES[i % OPERADORES.length]);
+            }
+            if (abiertos < profundidad && i < operandos - 1) {
+                expresion.append('(');
+                abiertos++;
+            }
+            if (i % 10 == 9) {
+                expresion.append(i % 7 + 2).append(".5");
+            } else {
+                expresion.append(VARIABLES[i % VARIABLES.length]);
+            }
+        }
+        expresion.append(")".repeat(abiertos));
+        return expresion.toString();
+    }
+}
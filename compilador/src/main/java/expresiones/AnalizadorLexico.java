@@ -0,0 +1,152 @@
+package expresiones;
+
+/**
+ * Analizador léxico de expresiones aritméticas. Recorre el texto una sola vez,
+ * de izquierda a derecha, y expone el token actual sin crear objetos
+ * intermedios.
+ */
+final class AnalizadorLexico {
+    /**
+     * Tipos de token reconocidos en una expresión aritmética.
+     */
+    enum TipoToken {
+        IDENTIFICADOR, NUMERO, OPERADOR, IGUAL, PARENTESIS_ABRE, PARENTESIS_CIERRA, FIN
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final CharSequence texto;
+    private int posicion;
+
+    // Token actual
+    private TipoToken tipo;
+    private int inicio;
+    private int fin;
+
+    /**
+     * Crea un analizador léxico sobre el texto indicado.
+     *
+     * @param texto La expresión aritmética sin espacios.
+     */
+    AnalizadorLexico(CharSequence texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Avanza al siguiente token de la expresión.
+     *
+     * @return El tipo del nuevo token actual.
+     * @throws IllegalArgumentException Si se encuentra un carácter no válido o un
+     *                                  número mal formado.
+     */
+    TipoToken avanzar() {
+        int longitud = texto.length();
+        inicio = posicion;
+        if (posicion >= longitud) {
+            fin = posicion;
+            return tipo = TipoToken.FIN;
+        }
+
+        char c = texto.charAt(posicion);
+        if (esInicioIdentificador(c)) {
+            posicion++;
+            while (posicion < longitud && esParteIdentificador(texto.charAt(posicion))) {
+                posicion++;
+            }
+            tipo = TipoToken.IDENTIFICADOR;
+        } else if (esDigito(c)) {
+            posicion = leerDigitos(posicion);
+            if (posicion < longitud && texto.charAt(posicion) == '.') {
+                int finDecimales = leerDigitos(posicion + 1);
+                if (finDecimales == posicion + 1) {
+                    throw error(posicion, "número decimal incompleto");
+                }
+                posicion = finDecimales;
+            }
+            tipo = TipoToken.NUMERO;
+        } else {
+            tipo = switch (c) {
+                case '+', '-', '*', '/' -> TipoToken.OPERADOR;
+                case '=' -> TipoToken.IGUAL;
+                case '(' -> TipoToken.PARENTESIS_ABRE;
+                case ')' -> TipoToken.PARENTESIS_CIERRA;
+                default -> throw error(posicion, "carácter no válido '" + c + "'");
+            };
+            posicion++;
+        }
+        fin = posicion;
+        return tipo;
+    }
+
+    /**
+     * @return El tipo del token actual.
+     */
+    TipoToken tipo() {
+        return tipo;
+    }
+
+    /**
+     * @return La posición donde comienza el token actual.
+     */
+    int inicio() {
+        return inicio;
+    }
+
+    /**
+     * @return El carácter del token actual (útil para operadores y paréntesis).
+     */
+    char caracter() {
+        return texto.charAt(inicio);
+    }
+
+    /**
+     * @return El texto del token actual.
+     */
+    String texto() {
+        return texto.subSequence(inicio, fin).toString();
+    }
+
+    /**
+     * Indica si el siguiente carácter, inmediatamente después del token actual,
+     * comienza un número. Se usa para reconocer literales negativos como "(-5)".
+     *
+     * @return true si después del token actual sigue un dígito.
+     */
+    boolean siguienteEsNumero() {
+        return fin < texto.length() && esDigito(texto.charAt(fin));
+    }
+
+    /**
+     * Crea una excepción que describe un error en una posición de la expresión.
+     *
+     * @param posicion Posición del carácter que provocó el error.
+     * @param mensaje  Descripción del error.
+     * @return La excepción lista para lanzarse.
+     */
+    static IllegalArgumentException error(int posicion, String mensaje) {
+        return new IllegalArgumentException("Expresión inválida en la posición " + posicion + ": " + mensaje);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    private int leerDigitos(int desde) {
+        int i = desde;
+        while (i < texto.length() && esDigito(texto.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean esInicioIdentificador(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean esParteIdentificador(char c) {
+        return esInicioIdentificador(c) || esDigito(c);
+    }
+}
@@ -0,0 +1,207 @@
+package expresiones;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Analizador sintáctico de expresiones aritméticas. Construye, en una sola
+ * pasada sobre los tokens, el código de tres direcciones de la expresión.
+ *
+ * <p>
+ * La jerarquía de operadores es la que siempre ha usado el generador: dentro de
+ * cada grupo de paréntesis se resuelven primero todas las multiplicaciones,
+ * luego las divisiones, las sumas y por último las restas, cada nivel de
+ * izquierda a derecha. Los grupos se resuelven del más interno al más externo,
+ * de modo que la numeración de los temporales no cambia.
+ */
+final class AnalizadorSintactico {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private static final String[] NOMBRES_OPERADORES = { "MUL", "DIV", "ADD", "SUB" };
+
+    private final List<Instruccion> instrucciones = new ArrayList<>();
+    private final Supplier<String> temporales;
+
+    private AnalizadorSintactico(Supplier<String> temporales) {
+        this.temporales = temporales;
+    }
+
+    /**
+     * Analiza la expresión y devuelve su código de tres direcciones. Cada
+     * operación recibe un temporal nuevo del proveedor indicado; la asignación
+     * final también consume uno.
+     *
+     * @param expresion  La expresión aritmética sin espacios.
+     * @param temporales Proveedor de nombres para las variables temporales.
+     * @return La lista de instrucciones en orden de ejecución.
+     * @throws IllegalArgumentException Si la expresión no puede analizarse.
+     */
+    static List<Instruccion> analizar(String expresion, Supplier<String> temporales) {
+        AnalizadorSintactico analizador = new AnalizadorSintactico(temporales);
+        analizador.analizarExpresion(new AnalizadorLexico(expresion));
+        return analizador.instrucciones;
+    }
+
+    private void analizarExpresion(AnalizadorLexico lexico) {
+        Deque<Grupo> pila = new ArrayDeque<>();
+        Grupo grupo = new Grupo(-1);
+        String variableIzquierda = null;
+        boolean esperaOperando = true;
+
+        while (lexico.avanzar() != AnalizadorLexico.TipoToken.FIN) {
+            if (esperaOperando) {
+                switch (lexico.tipo()) {
+                    case IDENTIFICADOR, NUMERO -> {
+                        grupo.agregarOperando(lexico.texto());
+                        esperaOperando = false;
+                    }
+                    case PARENTESIS_ABRE -> {
+                        pila.push(grupo);
+                        grupo = new Grupo(lexico.inicio());
+                    }
+                    case OPERADOR -> {
+                        // Literal negativo al inicio de un grupo, p. ej. "(-5)"
+                        if (lexico.caracter() != '-' || !grupo.estaVacio() || !lexico.siguienteEsNumero()) {
+                            throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operando");
+                        }
+                        lexico.avanzar();
+                        grupo.agregarOperando("-" + lexico.texto());
+                        esperaOperando = false;
+                    }
+                    default -> throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operando");
+                }
+            } else {
+                switch (lexico.tipo()) {
+                    case OPERADOR -> {
+                        grupo.agregarOperador(codigoOperador(lexico.caracter()));
+                        esperaOperando = true;
+                    }
+                    case PARENTESIS_CIERRA -> {
+                        if (pila.isEmpty()) {
+                            throw AnalizadorLexico.error(lexico.inicio(), "')' sin '(' correspondiente");
+                        }
+                        String resultado = reducir(grupo);
+                        grupo = pila.pop();
+                        grupo.agregarOperando(resultado);
+                    }
+                    case IGUAL -> {
+                        if (!pila.isEmpty() || variableIzquierda != null || !grupo.esIdentificadorSolo()) {
+                            throw AnalizadorLexico.error(lexico.inicio(), "asignación no válida");
+                        }
+                        variableIzquierda = grupo.operandos[0];
+                        grupo = new Grupo(-1);
+                        esperaOperando = true;
+                    }
+                    default -> throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operador");
+                }
+            }
+        }
+
+        if (esperaOperando) {
+            throw AnalizadorLexico.error(lexico.inicio(), "expresión incompleta");
+        }
+        if (!pila.isEmpty()) {
+            throw AnalizadorLexico.error(grupo.apertura, "'(' sin ')' correspondiente");
+        }
+        String resultado = reducir(grupo);
+        if (variableIzquierda != null) {
+            instrucciones.add(new Instruccion("MOV", variableIzquierda, resultado, temporales.get()));
+        }
+    }
+
+    /**
+     * Reduce un grupo sin paréntesis respetando la jerarquía de operadores. Los
+     * operandos vivos forman una lista doblemente enlazada: al resolver un
+     * operador, su resultado ocupa el nodo izquierdo y el derecho se desengancha,
+     * por lo que cada nivel se procesa en tiempo lineal.
+     *
+     * @param grupo El grupo a reducir.
+     * @return El operando que representa el valor del grupo.
+     */
+    private String reducir(Grupo grupo) {
+        int n = grupo.numOperandos;
+        String[] valores = grupo.operandos;
+        if (n == 1) {
+            return valores[0];
+        }
+
+        int[] anterior = new int[n];
+        int[] siguiente = new int[n];
+        for (int i = 0; i < n; i++) {
+            anterior[i] = i - 1;
+            siguiente[i] = i + 1;
+        }
+
+        for (byte nivel = 0; nivel < NOMBRES_OPERADORES.length; nivel++) {
+            for (int i = 1; i < n; i++) {
+                if (grupo.operadores[i - 1] != nivel) {
+                    continue;
+                }
+                int izquierdo = anterior[i];
+                String tempVar = temporales.get();
+                instrucciones.add(new Instruccion(NOMBRES_OPERADORES[nivel], valores[izquierdo], valores[i], tempVar));
+                valores[izquierdo] = tempVar;
+
+                // Desenganchar el operando derecho
+                siguiente[izquierdo] = siguiente[i];
+                if (siguiente[i] < n) {
+                    anterior[siguiente[i]] = izquierdo;
+                }
+            }
+        }
+        return valores[0];
+    }
+
+    private static byte codigoOperador(char operador) {
+        return switch (operador) {
+            case '*' -> 0;
+            case '/' -> 1;
+            case '+' -> 2;
+            case '-' -> 3;
+            default -> throw new IllegalArgumentException("Operador no soportado: " + operador);
+        };
+    }
+
+    // ---------------------------------------------------------------------------------
+    // GRUPO DE PARÉNTESIS
+    // ---------------------------------------------------------------------------------
+    /**
+     * Operandos y operadores de un nivel de paréntesis todavía sin reducir.
+     */
+    private static final class Grupo {
+        private final int apertura;
+        private String[] operandos = new String[4];
+        private byte[] operadores = new byte[3];
+        private int numOperandos;
+
+        private Grupo(int apertura) {
+            this.apertura = apertura;
+        }
+
+        private void agregarOperando(String operando) {
+            if (numOperandos == operandos.length) {
+                operandos = Arrays.copyOf(operandos, numOperandos * 2);
+            }
+            operandos[numOperandos++] = operando;
+        }
+
+        private void agregarOperador(byte operador) {
+            if (numOperandos - 1 == operadores.length) {
+                operadores = Arrays.copyOf(operadores, operadores.length * 2);
+            }
+            operadores[numOperandos - 1] = operador;
+        }
+
+        private boolean estaVacio() {
+            return numOperandos == 0;
+        }
+
+        private boolean esIdentificadorSolo() {
+            return numOperandos == 1 && !Character.isDigit(operandos[0].charAt(0)) && operandos[0].charAt(0) != '-';
+        }
+    }
+}
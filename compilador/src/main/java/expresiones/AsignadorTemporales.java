@@ -0,0 +1,110 @@
+package expresiones;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Asignación de los temporales del código de tres direcciones a posiciones
+ * ("ranuras") del segmento de datos.
+ *
+ * <p>
+ * Un temporal sólo está vivo desde la instrucción que lo calcula hasta la
+ * última que lo lee. Recorriendo el código una vez, la ranura de un temporal
+ * se libera en su último uso y la reutiliza el siguiente temporal calculado,
+ * de modo que el número de ranuras es el máximo de temporales vivos a la vez y
+ * no el número de operaciones.
+ */
+final class AsignadorTemporales {
+    private AsignadorTemporales() {
+    }
+
+    /**
+     * Ranura asignada a cada temporal.
+     *
+     * @param ranuras        Número de ranura (desde 1) de cada temporal.
+     * @param numeroRanuras  Cuántas ranuras hay que declarar.
+     */
+    record Asignacion(Map<String, Integer> ranuras, int numeroRanuras) {
+        /**
+         * @param operando Un operando del código de tres direcciones.
+         * @return El nombre con que se declara el operando en el ASM: el de su
+         *         ranura si es un temporal, o el mismo operando si no lo es.
+         */
+        String nombre(String operando) {
+            Integer ranura = ranuras.get(operando);
+            return ranura != null ? "T" + ranura : operando;
+        }
+    }
+
+    /**
+     * Asignación sin reutilizar posiciones: cada instrucción conserva su
+     * temporal {@code T<n>}, incluida la asignación final.
+     *
+     * @param codigo Código de tres direcciones.
+     * @return La asignación.
+     */
+    static Asignacion sinReutilizar(List<Instruccion> codigo) {
+        Map<String, Integer> ranuras = new HashMap<>();
+        for (int k = 0; k < codigo.size(); k++) {
+            ranuras.put(codigo.get(k).destino(), k + 1);
+        }
+        return new Asignacion(Collections.unmodifiableMap(ranuras), codigo.size());
+    }
+
+    /**
+     * Asigna ranuras según la vida de cada temporal. La asignación final (MOV)
+     * no calcula ningún temporal, por lo que no ocupa ranura.
+     *
+     * @param codigo Código de tres direcciones.
+     * @return La asignación.
+     */
+    static Asignacion asignar(List<Instruccion> codigo) {
+        Set<String> temporales = new HashSet<>();
+        for (Instruccion instruccion : codigo) {
+            if (!instruccion.operador().equals("MOV")) {
+                temporales.add(instruccion.destino());
+            }
+        }
+
+        // Última instrucción que lee cada temporal
+        Map<String, Integer> ultimoUso = new HashMap<>();
+        for (int k = 0; k < codigo.size(); k++) {
+            ultimoUso.put(codigo.get(k).op1(), k);
+            ultimoUso.put(codigo.get(k).op2(), k);
+        }
+
+        Map<String, Integer> ranuras = new HashMap<>();
+        int[] libres = new int[8];
+        int numLibres = 0;
+        int numeroRanuras = 0;
+        for (int k = 0; k < codigo.size(); k++) {
+            Instruccion instruccion = codigo.get(k);
+
+            // Liberar los operandos que mueren aquí (una sola vez si se repiten)
+            for (String operando : new String[] { instruccion.op1(), instruccion.op2() }) {
+                if (temporales.contains(operando) && ultimoUso.get(operando) == k) {
+                    Integer ranura = ranuras.get(operando);
+                    if (ranura != null && (numLibres == 0 || libres[numLibres - 1] != ranura)) {
+                        if (numLibres == libres.length) {
+                            libres = Arrays.copyOf(libres, libres.length * 2);
+                        }
+                        libres[numLibres++] = ranura;
+                    }
+                }
+            }
+
+            // Reservar la ranura del resultado; la instrucción lee sus operandos
+            // antes de escribirlo, así que puede ocupar la de uno que acaba de morir
+            if (temporales.contains(instruccion.destino())) {
+                int ranura = numLibres > 0 ? libres[--numLibres] : ++numeroRanuras;
+                ranuras.put(instruccion.destino(), ranura);
+            }
+        }
+        return new Asignacion(Collections.unmodifiableMap(ranuras), numeroRanuras);
+    }
+}
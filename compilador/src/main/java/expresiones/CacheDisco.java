@@ -0,0 +1,492 @@
+package expresiones;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Caché en disco de programas compilados, direccionada por contenido: la clave
+ * es un resumen SHA-256 de las sentencias normalizadas, los valores de las
+ * variables y las opciones de compilación. Si la clave ya está, el programa
+ * ASM se copia de la caché sin validar, procesar ni generar nada; sirve, p.
+ * ej., para que una integración continua no regenere miles de programas que no
+ * cambiaron.
+ *
+ * <p>
+ * Cada entrada es un archivo {@code ab/abcd....ir} con el código de tres
+ * direcciones de cada sentencia en un formato binario compacto (una tabla de
+ * nombres y enteros de longitud variable que apuntan a ella) seguido de los
+ * bytes del programa ASM y de un CRC32. El código permite mostrar las
+ * operaciones intermedias y el resultado sin volver a compilar. Una entrada
+ * dañada se trata como un fallo y se borra.
+ *
+ * <p>
+ * Varios procesos pueden usar el mismo directorio: las entradas se escriben
+ * en un archivo temporal y se renombran de forma atómica, así que se leen sin
+ * bloqueo; guardar, desalojar y actualizar las estadísticas se hace con un
+ * bloqueo de archivo sobre {@code cache.lock} (y, dentro del proceso, con un
+ * monitor, porque el bloqueo de archivo es de todo el proceso). Cuando el
+ * tamaño pasa de la capacidad se borran las entradas usadas hace más tiempo
+ * (la fecha de modificación se actualiza en cada acierto) hasta quedar en tres
+ * cuartos de la capacidad.
+ *
+ * <p>
+ * {@link #VERSION} forma parte de la clave y del formato: debe cambiarse cuando
+ * cambie el programa ASM que se genera para una misma entrada.
+ */
+final class CacheDisco implements Closeable {
+    /** Versión del formato y del generador de código. */
+    static final int VERSION = 4;
+    /** Capacidad por defecto, en bytes. */
+    static final long CAPACIDAD_PREDETERMINADA = 64L << 20;
+
+    private static final int MAGICO = 0x45584952; // "EXIR"
+    private static final String EXTENSION = ".ir";
+    private static final String[] OPERADORES = { "MUL", "DIV", "ADD", "SUB", "MOV" };
+
+    /**
+     * Una sentencia guardada: lo necesario para evaluarla y mostrarla.
+     *
+     * @param variableIzquierda La variable que recibe el resultado.
+     * @param variables         Variables utilizadas en el lado derecho.
+     * @param variables_neg     Variables escritas con signo negativo.
+     * @param codigo            Código de tres direcciones ya optimizado.
+     * @param informe           Lo que las optimizaciones eliminaron.
+     */
+    record Sentencia(String variableIzquierda, Set<String> variables, Set<String> variables_neg,
+            List<Instruccion> codigo, InformeOptimizacion informe) {
+    }
+
+    /**
+     * Una entrada de la caché.
+     *
+     * @param sentencias Las sentencias del programa, en orden.
+     * @param asm        Los bytes del programa ASM.
+     */
+    record Entrada(List<Sentencia> sentencias, byte[] asm) {
+    }
+
+    /**
+     * Resultado de compilar con la caché.
+     *
+     * @param valor   Resultado numérico de la última sentencia.
+     * @param informe Lo que las optimizaciones eliminaron en todas las
+     *                sentencias.
+     * @param acierto true si el programa salió de la caché.
+     */
+    record Resultado(double valor, InformeOptimizacion informe, boolean acierto) {
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final Path directorio;
+    private final long capacidad;
+    private final Object candado = new Object();
+
+    // Contadores de este proceso
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    // Estadísticas de todos los procesos, leídas al cerrar
+    private long[] acumuladas;
+
+    /**
+     * Abre (o crea) una caché en disco.
+     *
+     * @param directorio Directorio de la caché.
+     * @param capacidad  Tamaño máximo de las entradas, en bytes.
+     * @throws IOException Si no se puede crear el directorio.
+     */
+    CacheDisco(Path directorio, long capacidad) throws IOException {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad de la caché en disco debe ser positiva: " + capacidad);
+        }
+        this.directorio = Files.createDirectories(directorio);
+        this.capacidad = capacidad;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CONSULTA Y GUARDADO
+    // ---------------------------------------------------------------------------------
+    /**
+     * Calcula la clave de una compilación.
+     *
+     * @param sentencias Las sentencias normalizadas.
+     * @param valores    Valores de las variables; los que la expresión no usa
+     *                   también cuentan.
+     * @param opciones   Optimizaciones a aplicar.
+     * @return El resumen SHA-256 en hexadecimal.
+     */
+    static String clave(List<String> sentencias, Map<String, Double> valores, OpcionesCompilacion opciones) {
+        MessageDigest sha = resumen();
+        // El ASM se escribe con la codificación del sistema, así que también cuenta
+        StringBuilder texto = new StringBuilder().append(VERSION).append('\n').append(Charset.defaultCharset().name())
+                .append('\n').append(opciones).append('\n');
+        for (String sentencia : sentencias) {
+            texto.append(sentencia).append('\n');
+        }
+        for (Map.Entry<String, Double> valor : new TreeMap<>(valores).entrySet()) {
+            texto.append(valor.getKey()).append('=').append(Double.doubleToLongBits(valor.getValue())).append('\n');
+        }
+        return HexFormat.of().formatHex(sha.digest(texto.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return Un resumen SHA-256 nuevo; lo usan también otros modos que
+     *         detectan cambios por contenido.
+     */
+    static MessageDigest resumen() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("La JVM no tiene SHA-256", e);
+        }
+    }
+
+    /**
+     * Busca una entrada. Nunca lanza excepciones: una entrada que falta, no
+     * puede leerse o está dañada cuenta como fallo.
+     *
+     * @param clave La clave, de {@link #clave}.
+     * @return La entrada, o null si no está.
+     */
+    Entrada obtener(String clave) {
+        Path ruta = ruta(clave);
+        try {
+            Entrada entrada = leer(Files.readAllBytes(ruta));
+            if (entrada != null) {
+                Files.setLastModifiedTime(ruta, FileTime.fromMillis(System.currentTimeMillis()));
+                aciertos.increment();
+                return entrada;
+            }
+            Files.deleteIfExists(ruta);
+        } catch (NoSuchFileException e) {
+            // No está
+        } catch (IOException e) {
+            // Se borró o no puede leerse: se compila de nuevo
+        }
+        fallos.increment();
+        return null;
+    }
+
+    /**
+     * Guarda el programa de una compilación, si otro proceso no lo guardó ya,
+     * y desaloja entradas si la caché pasó de su capacidad.
+     *
+     * @param clave    La clave, de {@link #clave}.
+     * @param programa El programa compilado.
+     * @param asm      Los bytes del programa ASM.
+     * @throws IOException Si no se puede escribir la entrada.
+     */
+    void guardar(String clave, ContextoPrograma programa, byte[] asm) throws IOException {
+        byte[] datos = escribir(programa, asm);
+        Path ruta = ruta(clave);
+        synchronized (candado) {
+            try (FileChannel bloqueo = abrirBloqueo()) {
+                bloqueo.lock(); // Se libera al cerrar el canal
+                if (Files.exists(ruta)) {
+                    return;
+                }
+                Files.createDirectories(ruta.getParent());
+                Path temporal = Files.createTempFile(ruta.getParent(), clave.substring(0, 8), ".tmp");
+                try {
+                    Files.write(temporal, datos);
+                    Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporal);
+                }
+                long[] estadisticas = leerEstadisticas();
+                estadisticas[2] += datos.length;
+                if (estadisticas[2] > capacidad) {
+                    estadisticas[2] = desalojar();
+                }
+                escribirEstadisticas(estadisticas);
+            }
+        }
+    }
+
+    /**
+     * Suma los contadores de este proceso a las estadísticas del directorio.
+     *
+     * @throws IOException Si no se pueden actualizar.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (candado) {
+            try (FileChannel bloqueo = abrirBloqueo()) {
+                bloqueo.lock(); // Se libera al cerrar el canal
+                long[] estadisticas = leerEstadisticas();
+                estadisticas[0] += aciertos.sum();
+                estadisticas[1] += fallos.sum();
+                escribirEstadisticas(estadisticas);
+                acumuladas = estadisticas;
+            }
+        }
+    }
+
+    /**
+     * @return Los aciertos y fallos de este proceso y, después de
+     *         {@link #close}, los de todos los procesos, listos para mostrarse
+     *         en consola.
+     */
+    @Override
+    public String toString() {
+        String texto = "Caché en disco: " + porcentaje(aciertos.sum(), fallos.sum()) + ", " + desalojos.sum()
+                + " desalojos";
+        if (acumuladas != null) {
+            texto += String.format("; en total %s (%.1f de %.1f MB en %s)", porcentaje(acumuladas[0], acumuladas[1]),
+                    acumuladas[2] / 1048576.0, capacidad / 1048576.0, directorio);
+        }
+        return texto;
+    }
+
+    private static String porcentaje(long aciertos, long fallos) {
+        long total = aciertos + fallos;
+        return String.format("%d aciertos, %d fallos (%.1f %% de aciertos)", aciertos, fallos,
+                total == 0 ? 0.0 : 100.0 * aciertos / total);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // FORMATO BINARIO
+    // ---------------------------------------------------------------------------------
+    private static byte[] escribir(ContextoPrograma programa, byte[] asm) throws IOException {
+        // Tabla de nombres: variables, temporales y literales, cada uno una vez. Se
+        // escribe antes que las sentencias, así que debe tener todos los nombres
+        Map<String, Integer> nombres = new LinkedHashMap<>();
+        for (ContextoCompilacion sentencia : programa.sentencias()) {
+            ExpresionCompilada expresion = sentencia.expresion();
+            nombres.putIfAbsent(expresion.variableIzquierda(), nombres.size());
+            for (String variable : expresion.variables()) {
+                nombres.putIfAbsent(variable, nombres.size());
+            }
+            for (String variable : expresion.variables_neg()) {
+                nombres.putIfAbsent(variable, nombres.size());
+            }
+            for (Instruccion instruccion : expresion.codigo()) {
+                nombres.putIfAbsent(instruccion.op1(), nombres.size());
+                nombres.putIfAbsent(instruccion.op2(), nombres.size());
+                nombres.putIfAbsent(instruccion.destino(), nombres.size());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(asm.length / 4 + 256);
+        DataOutputStream salida = new DataOutputStream(bytes);
+        salida.writeInt(MAGICO);
+        salida.writeByte(VERSION);
+        escribirEntero(salida, nombres.size());
+        for (String nombre : nombres.keySet()) {
+            salida.writeUTF(nombre);
+        }
+        escribirEntero(salida, programa.sentencias().size());
+        for (ContextoCompilacion sentencia : programa.sentencias()) {
+            ExpresionCompilada expresion = sentencia.expresion();
+            escribirEntero(salida, nombres.get(expresion.variableIzquierda()));
+            escribirConjunto(salida, expresion.variables(), nombres);
+            escribirConjunto(salida, expresion.variables_neg(), nombres);
+            InformeOptimizacion informe = expresion.informe();
+            for (int valor : new int[] { informe.subexpresionesEliminadas(), informe.constantesPlegadas(),
+                    informe.identidadesSimplificadas(), informe.operacionesReducidas(),
+                    informe.instruccionesEliminadas(), informe.bytesEliminados(), informe.temporalesEnRegistros() }) {
+                escribirEntero(salida, valor);
+            }
+            escribirEntero(salida, expresion.codigo().size());
+            for (Instruccion instruccion : expresion.codigo()) {
+                salida.writeByte(List.of(OPERADORES).indexOf(instruccion.operador()));
+                escribirEntero(salida, nombres.get(instruccion.op1()));
+                escribirEntero(salida, nombres.get(instruccion.op2()));
+                escribirEntero(salida, nombres.get(instruccion.destino()));
+            }
+        }
+        escribirEntero(salida, asm.length);
+        salida.write(asm);
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        salida.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return La entrada, o null si los datos están dañados o son de otra
+     *         versión.
+     */
+    private static Entrada leer(byte[] datos) {
+        if (datos.length < 9) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(datos, 0, datos.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(datos, datos.length - 4, 4).getInt()) {
+            return null;
+        }
+        try {
+            DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos, 0, datos.length - 4));
+            if (entrada.readInt() != MAGICO || entrada.readByte() != VERSION) {
+                return null;
+            }
+            String[] nombres = new String[leerEntero(entrada)];
+            for (int i = 0; i < nombres.length; i++) {
+                nombres[i] = entrada.readUTF();
+            }
+            int numeroSentencias = leerEntero(entrada);
+            List<Sentencia> sentencias = new ArrayList<>(numeroSentencias);
+            for (int k = 0; k < numeroSentencias; k++) {
+                String variableIzquierda = nombres[leerEntero(entrada)];
+                Set<String> variables = leerConjunto(entrada, nombres);
+                Set<String> variables_neg = leerConjunto(entrada, nombres);
+                InformeOptimizacion informe = new InformeOptimizacion(leerEntero(entrada), leerEntero(entrada),
+                        leerEntero(entrada), leerEntero(entrada), leerEntero(entrada), leerEntero(entrada),
+                        leerEntero(entrada));
+                int numeroInstrucciones = leerEntero(entrada);
+                List<Instruccion> codigo = new ArrayList<>(numeroInstrucciones);
+                for (int i = 0; i < numeroInstrucciones; i++) {
+                    String operador = OPERADORES[entrada.readByte()];
+                    codigo.add(new Instruccion(operador, nombres[leerEntero(entrada)], nombres[leerEntero(entrada)],
+                            nombres[leerEntero(entrada)]));
+                }
+                sentencias.add(new Sentencia(variableIzquierda, variables, variables_neg,
+                        Collections.unmodifiableList(codigo), informe));
+            }
+            byte[] asm = new byte[leerEntero(entrada)];
+            entrada.readFully(asm);
+            return new Entrada(Collections.unmodifiableList(sentencias), asm);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void escribirConjunto(DataOutputStream salida, Set<String> conjunto, Map<String, Integer> nombres)
+            throws IOException {
+        escribirEntero(salida, conjunto.size());
+        for (String nombre : conjunto) {
+            escribirEntero(salida, nombres.get(nombre));
+        }
+    }
+
+    private static Set<String> leerConjunto(DataInputStream entrada, String[] nombres) throws IOException {
+        int tamano = leerEntero(entrada);
+        Set<String> conjunto = new LinkedHashSet<>();
+        for (int i = 0; i < tamano; i++) {
+            conjunto.add(nombres[leerEntero(entrada)]);
+        }
+        return Collections.unmodifiableSet(conjunto);
+    }
+
+    // Entero no negativo en 7 bits por byte, el bit alto indica que sigue otro
+    private static void escribirEntero(DataOutputStream salida, int valor) throws IOException {
+        while ((valor & ~0x7F) != 0) {
+            salida.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        salida.writeByte(valor);
+    }
+
+    private static int leerEntero(DataInputStream entrada) throws IOException {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            int b = entrada.readUnsignedByte();
+            valor |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Entero mal formado");
+    }
+
+    // ---------------------------------------------------------------------------------
+    // DIRECTORIO
+    // ---------------------------------------------------------------------------------
+    private Path ruta(String clave) {
+        return directorio.resolve(clave.substring(0, 2)).resolve(clave + EXTENSION);
+    }
+
+    private FileChannel abrirBloqueo() throws IOException {
+        return FileChannel.open(directorio.resolve("cache.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Borra las entradas usadas hace más tiempo hasta dejar la caché en tres
+     * cuartos de su capacidad. Se llama con el bloqueo tomado.
+     *
+     * @return El tamaño que queda.
+     */
+    private long desalojar() throws IOException {
+        record Archivo(Path ruta, long tamano, FileTime uso) {
+        }
+        List<Archivo> archivos = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> rutas = Files.walk(directorio, 2)) {
+            for (Path ruta : (Iterable<Path>) rutas::iterator) {
+                if (ruta.getFileName().toString().endsWith(EXTENSION)) {
+                    try {
+                        Archivo archivo = new Archivo(ruta, Files.size(ruta), Files.getLastModifiedTime(ruta));
+                        archivos.add(archivo);
+                        total += archivo.tamano();
+                    } catch (NoSuchFileException e) {
+                        // Se borró mientras se recorría
+                    }
+                }
+            }
+        }
+        archivos.sort((a, b) -> a.uso().compareTo(b.uso()));
+        for (int i = 0; i < archivos.size() && total > capacidad / 4 * 3; i++) {
+            Files.deleteIfExists(archivos.get(i).ruta());
+            total -= archivos.get(i).tamano();
+            desalojos.increment();
+        }
+        return total;
+    }
+
+    // Aciertos, fallos y bytes ocupados, de todos los procesos
+    private long[] leerEstadisticas() throws IOException {
+        Path ruta = directorio.resolve("estadisticas");
+        long[] estadisticas = new long[3];
+        if (Files.isRegularFile(ruta)) {
+            try (DataInputStream entrada = new DataInputStream(Files.newInputStream(ruta))) {
+                for (int i = 0; i < estadisticas.length; i++) {
+                    estadisticas[i] = entrada.readLong();
+                }
+            } catch (IOException e) {
+                // Dañadas: se empiezan de nuevo; el tamaño se recalcula al desalojar
+            }
+        }
+        return estadisticas;
+    }
+
+    private void escribirEstadisticas(long[] estadisticas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        for (long valor : estadisticas) {
+            salida.writeLong(valor);
+        }
+        Files.write(directorio.resolve("estadisticas"), bytes.toByteArray());
+    }
+}
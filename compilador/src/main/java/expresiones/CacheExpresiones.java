@@ -0,0 +1,118 @@
+package expresiones;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché en memoria de expresiones ya validadas y procesadas, con tamaño
+ * limitado y desalojo de la expresión usada hace más tiempo (LRU).
+ *
+ * <p>
+ * La clave es el texto normalizado de la expresión (sin espacios y en
+ * minúsculas) junto con las opciones de compilación, de modo que una expresión
+ * repetida pasa directamente a la
+ * evaluación y la generación del ASM. Puede usarse desde varios hilos a la
+ * vez: el análisis de una expresión nueva se hace fuera del bloqueo.
+ */
+final class CacheExpresiones {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final int capacidad;
+    private final LinkedHashMap<Clave, ExpresionCompilada> entradas;
+
+    // Contadores de uso
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+
+    /**
+     * Crea una caché vacía.
+     *
+     * @param capacidad Número máximo de expresiones guardadas.
+     */
+    CacheExpresiones(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser positiva: " + capacidad);
+        }
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, ExpresionCompilada> eldest) {
+                if (size() > CacheExpresiones.this.capacidad) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private record Clave(String expresion, OpcionesCompilacion opciones) {
+    }
+
+    /**
+     * Obtiene la expresión procesada correspondiente a un texto normalizado,
+     * analizándola sólo si no está en la caché. Las expresiones inválidas no se
+     * guardan.
+     *
+     * @param expresionNormalizada La expresión sin espacios y en minúsculas.
+     * @param opciones             Optimizaciones con que se procesa.
+     * @return La expresión validada y procesada.
+     * @throws IllegalArgumentException Si la expresión es inválida.
+     */
+    ExpresionCompilada obtener(String expresionNormalizada, OpcionesCompilacion opciones) {
+        Clave clave = new Clave(expresionNormalizada, opciones);
+        synchronized (this) {
+            ExpresionCompilada expresion = entradas.get(clave);
+            if (expresion != null) {
+                aciertos++;
+                return expresion;
+            }
+            fallos++;
+        }
+
+        ExpresionCompilada expresion = ExpresionesAritmeticasASM.analizar(expresionNormalizada, opciones);
+        synchronized (this) {
+            // Si otro hilo la analizó mientras tanto, conservar la primera
+            ExpresionCompilada existente = entradas.putIfAbsent(clave, expresion);
+            return existente != null ? existente : expresion;
+        }
+    }
+
+    /**
+     * @return Cuántas consultas encontraron la expresión en la caché.
+     */
+    synchronized long aciertos() {
+        return aciertos;
+    }
+
+    /**
+     * @return Cuántas consultas tuvieron que analizar la expresión.
+     */
+    synchronized long fallos() {
+        return fallos;
+    }
+
+    /**
+     * @return Cuántas expresiones se desalojaron por falta de espacio.
+     */
+    synchronized long desalojos() {
+        return desalojos;
+    }
+
+    /**
+     * @return Cuántas expresiones hay guardadas.
+     */
+    synchronized int tamano() {
+        return entradas.size();
+    }
+
+    /**
+     * @return Un resumen de los contadores, listo para mostrarse en consola.
+     */
+    @Override
+    public synchronized String toString() {
+        return "Caché de expresiones: " + aciertos + " aciertos, " + fallos + " fallos, " + desalojos
+                + " desalojos (" + entradas.size() + "/" + capacidad + ")";
+    }
+}
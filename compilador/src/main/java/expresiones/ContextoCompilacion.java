@@ -0,0 +1,140 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado de una compilación: la expresión procesada, las operaciones
+ * intermedias, la tabla de símbolos y el destino del archivo ASM.
+ *
+ * <p>
+ * Cada compilación (o cada conjunto de valores con que se evalúa una expresión)
+ * crea su propio contexto y no existe ningún estado estático compartido, por lo
+ * que varias compilaciones pueden ejecutarse a la vez en distintos hilos. Un
+ * contexto, en cambio, no debe compartirse entre hilos.
+ */
+final class ContextoCompilacion {
+    /**
+     * Destino del archivo ASM. Se abre sólo cuando la expresión ya fue validada y
+     * procesada, de modo que una expresión inválida no deja archivos vacíos.
+     */
+    @FunctionalInterface
+    interface SalidaASM {
+        /**
+         * @return Un canal donde escribir el programa ASM; se cierra al terminar.
+         * @throws IOException Si no se puede abrir el destino.
+         */
+        WritableByteChannel abrir() throws IOException;
+
+        /**
+         * Destino en un archivo, que se crea o se reemplaza al abrirlo.
+         *
+         * @param archivo Ruta del archivo ASM.
+         * @return El destino.
+         */
+        static SalidaASM archivo(Path archivo) {
+            return () -> FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final ExpresionCompilada expresion;
+    private final Map<String, Double> valoresVariables;
+    private final SalidaASM salida;
+    private double[] valoresSimbolos;
+
+    /**
+     * Crea el contexto de una compilación.
+     *
+     * @param expresion        La expresión validada y procesada.
+     * @param valoresVariables Tabla de símbolos: valores de las variables de la
+     *                         expresión; se completa con temporales y resultado.
+     * @param salida           Destino del archivo ASM.
+     */
+    ContextoCompilacion(ExpresionCompilada expresion, Map<String, Double> valoresVariables, SalidaASM salida) {
+        this.expresion = expresion;
+        this.valoresVariables = valoresVariables;
+        this.salida = salida;
+    }
+
+    /**
+     * @return La expresión que se está compilando.
+     */
+    ExpresionCompilada expresion() {
+        return expresion;
+    }
+
+    /**
+     * Guarda los valores de la última evaluación, uno por símbolo de la
+     * expresión.
+     *
+     * @param valoresSimbolos Los valores, en el orden de {@link TablaSimbolos}.
+     */
+    void registrarValores(double[] valoresSimbolos) {
+        this.valoresSimbolos = valoresSimbolos;
+    }
+
+    /**
+     * Escribe las operaciones intermedias de la última evaluación. Los textos se
+     * arman sólo cuando se piden, para no darles formato al evaluar.
+     *
+     * @return Las operaciones intermedias, listas para mostrarse en consola.
+     */
+    List<String> temporales() {
+        List<String> temporales = new ArrayList<>();
+        if (valoresSimbolos == null) {
+            return temporales;
+        }
+        TablaSimbolos simbolos = expresion.simbolos();
+        for (Instruccion instruccion : expresion.codigo()) {
+            if (!instruccion.operador().equals("MOV")) {
+                temporales.add(lineaTemporal(instruccion, valoresSimbolos[simbolos.id(instruccion.destino())]));
+            }
+        }
+        return temporales;
+    }
+
+    /**
+     * @param instruccion Una operación del código de tres direcciones.
+     * @param valor       El valor que calculó.
+     * @return La línea con que se muestra en consola, p. ej.
+     *         "    T1 -> a, b, ADD = 3.000".
+     */
+    static String lineaTemporal(Instruccion instruccion, double valor) {
+        return String.format("    %s -> %s, %s, %s = %.3f", instruccion.destino(), instruccion.op1(), instruccion.op2(),
+                instruccion.operador(), valor);
+    }
+
+    /**
+     * @return La tabla de símbolos con los valores de variables y temporales.
+     */
+    Map<String, Double> valoresVariables() {
+        return valoresVariables;
+    }
+
+    /**
+     * @return El valor asignado a la variable de la izquierda, una vez evaluada
+     *         la expresión.
+     */
+    double resultado() {
+        return valoresVariables.get(expresion.variableIzquierda());
+    }
+
+    /**
+     * Abre el destino del archivo ASM.
+     *
+     * @return El canal donde escribir el programa.
+     * @throws IOException Si no se puede abrir el destino.
+     */
+    WritableByteChannel abrirSalida() throws IOException {
+        return salida.abrir();
+    }
+}
@@ -0,0 +1,103 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estado de la compilación de un archivo con una o más sentencias, que se
+ * emiten juntas en un solo programa ASM con un segmento de datos común.
+ *
+ * <p>
+ * Cada sentencia conserva su propio {@link ContextoCompilacion}; las sentencias
+ * posteriores leen los resultados de las anteriores. Como el contexto de una
+ * sentencia, un programa no debe compartirse entre hilos.
+ */
+final class ContextoPrograma {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final List<ContextoCompilacion> sentencias;
+    private final Set<String> variablesEntrada;
+    private final Map<String, Double> valoresEntrada;
+    private final ContextoCompilacion.SalidaASM salida;
+
+    /**
+     * Crea el contexto de un programa.
+     *
+     * @param sentencias       Las sentencias, ya evaluadas y en orden.
+     * @param variablesEntrada Variables que se leen antes de asignarse: son las
+     *                         que se declaran en el ASM con su valor.
+     * @param valoresEntrada   Valores de las variables de entrada (puede contener
+     *                         otras entradas, como temporales, que se ignoran).
+     * @param salida           Destino del archivo ASM.
+     */
+    ContextoPrograma(List<ContextoCompilacion> sentencias, Set<String> variablesEntrada,
+            Map<String, Double> valoresEntrada, ContextoCompilacion.SalidaASM salida) {
+        this.sentencias = List.copyOf(sentencias);
+        this.variablesEntrada = variablesEntrada;
+        this.valoresEntrada = valoresEntrada;
+        this.salida = salida;
+    }
+
+    /**
+     * Crea el programa de una sola sentencia, que se emite igual que antes de
+     * admitir varias.
+     *
+     * @param contexto La sentencia ya evaluada, con su destino.
+     */
+    ContextoPrograma(ContextoCompilacion contexto) {
+        this(List.of(contexto), contexto.expresion().variables(), contexto.valoresVariables(),
+                contexto::abrirSalida);
+    }
+
+    /**
+     * @return Las sentencias del programa, en orden.
+     */
+    List<ContextoCompilacion> sentencias() {
+        return sentencias;
+    }
+
+    /**
+     * @return Las variables que se leen antes de asignarse.
+     */
+    Set<String> variablesEntrada() {
+        return variablesEntrada;
+    }
+
+    /**
+     * @return Los valores de las variables de entrada.
+     */
+    Map<String, Double> valoresEntrada() {
+        return valoresEntrada;
+    }
+
+    /**
+     * @return El resultado de la última sentencia.
+     */
+    double resultado() {
+        return sentencias.get(sentencias.size() - 1).resultado();
+    }
+
+    /**
+     * @return Lo que las optimizaciones eliminaron en todas las sentencias.
+     */
+    InformeOptimizacion informe() {
+        InformeOptimizacion informe = InformeOptimizacion.VACIO;
+        for (ContextoCompilacion sentencia : sentencias) {
+            informe = informe.sumar(sentencia.expresion().informe());
+        }
+        return informe;
+    }
+
+    /**
+     * Abre el destino del archivo ASM.
+     *
+     * @return El canal donde escribir el programa.
+     * @throws IOException Si no se puede abrir el destino.
+     */
+    WritableByteChannel abrirSalida() throws IOException {
+        return salida.abrir();
+    }
+}
@@ -0,0 +1,68 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Eliminación de subexpresiones comunes por numeración de valores.
+ *
+ * <p>
+ * Cada operación se identifica por su operador y el valor de sus operandos;
+ * si ya se calculó una operación idéntica, su temporal se reutiliza y la
+ * operación repetida desaparece. La suma y la multiplicación son conmutativas,
+ * por lo que "a+b" y "b+a" se reconocen como el mismo valor. Los temporales
+ * que quedan se vuelven a numerar ({@code T1}, {@code T2}, ...).
+ */
+final class EliminadorSubexpresiones {
+    private EliminadorSubexpresiones() {
+    }
+
+    /**
+     * Código sin operaciones repetidas.
+     *
+     * @param codigo     El código de tres direcciones resultante.
+     * @param eliminadas Cuántas operaciones se eliminaron.
+     */
+    record Resultado(List<Instruccion> codigo, int eliminadas) {
+    }
+
+    /**
+     * Elimina las operaciones repetidas de un código de tres direcciones.
+     *
+     * @param codigo Código de tres direcciones, terminado en la asignación (MOV).
+     * @return El código sin operaciones repetidas.
+     */
+    static Resultado eliminar(List<Instruccion> codigo) {
+        Map<String, String> equivalente = new HashMap<>();
+        Map<String, String> valores = new HashMap<>();
+        List<Instruccion> resultado = new ArrayList<>(codigo.size());
+        int eliminadas = 0;
+
+        for (Instruccion instruccion : codigo) {
+            String op1 = equivalente.getOrDefault(instruccion.op1(), instruccion.op1());
+            String op2 = equivalente.getOrDefault(instruccion.op2(), instruccion.op2());
+            if (instruccion.operador().equals("MOV")) {
+                resultado.add(new Instruccion("MOV", op1, op2, instruccion.destino()));
+                continue;
+            }
+
+            // Número de valor: operador y operandos, en orden fijo si conmutan
+            boolean conmutativa = instruccion.operador().equals("ADD") || instruccion.operador().equals("MUL");
+            String clave = (conmutativa && op1.compareTo(op2) > 0)
+                    ? instruccion.operador() + ' ' + op2 + ' ' + op1
+                    : instruccion.operador() + ' ' + op1 + ' ' + op2;
+            String existente = valores.get(clave);
+            if (existente != null) {
+                equivalente.put(instruccion.destino(), existente);
+                eliminadas++;
+            } else {
+                valores.put(clave, instruccion.destino());
+                resultado.add(new Instruccion(instruccion.operador(), op1, op2, instruccion.destino()));
+            }
+        }
+
+        return new Resultado(eliminadas > 0 ? Instruccion.renumerarTemporales(resultado) : resultado, eliminadas);
+    }
+}
@@ -0,0 +1,317 @@
+package expresiones;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Escritor del programa ASM: acumula el texto en un búfer de tamaño fijo que se
+ * reutiliza durante todo el archivo y lo vacía por bloques a un canal NIO.
+ *
+ * <p>
+ * Los operandos se escriben directamente en el búfer, sin {@code String.format}
+ * ni expresiones regulares, y con la misma codificación que usaba
+ * {@code FileWriter} (la del sistema, reemplazando los caracteres que no
+ * pueden representarse), de modo que el archivo generado es idéntico byte por
+ * byte. Memoria ocupada: dos búferes de {@value #CAPACIDAD} posiciones, sin
+ * importar el tamaño de la expresión.
+ */
+final class EmisorASM implements Closeable {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private static final int CAPACIDAD = 8192;
+
+    private final WritableByteChannel canal;
+    private final CharsetEncoder codificador;
+    private final CharBuffer caracteres = CharBuffer.allocate(CAPACIDAD);
+    private final ByteBuffer bytes;
+
+    // Lo escrito en el canal; las líneas sólo se cuentan si hay métricas activas
+    private final boolean contarLineas = Metricas.activas();
+    private long bytesEscritos;
+    private long lineas;
+
+    /**
+     * Crea un emisor que escribe en el canal indicado. El canal se cierra junto
+     * con el emisor.
+     *
+     * @param canal Destino del programa ASM.
+     */
+    EmisorASM(WritableByteChannel canal) {
+        this(canal, Charset.defaultCharset());
+    }
+
+    /**
+     * Crea un emisor que escribe en el canal indicado con otra codificación,
+     * p. ej. para generar texto en memoria sin perder caracteres.
+     *
+     * @param canal        Destino del programa ASM.
+     * @param codificacion Codificación de los caracteres.
+     */
+    EmisorASM(WritableByteChannel canal, Charset codificacion) {
+        this.canal = canal;
+        this.codificador = codificacion.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (CAPACIDAD * codificador.maxBytesPerChar()));
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ESCRITURA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Escribe un texto tal cual. Igual que al concatenar cadenas, null se
+     * escribe "null".
+     *
+     * @param texto El texto a escribir.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al vaciar el búfer.
+     */
+    EmisorASM texto(String texto) throws IOException {
+        if (texto == null) {
+            texto = "null";
+        }
+        return texto(texto, 0, texto.length());
+    }
+
+    /**
+     * Escribe un carácter.
+     *
+     * @param c El carácter a escribir.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al vaciar el búfer.
+     */
+    EmisorASM caracter(char c) throws IOException {
+        if (!caracteres.hasRemaining()) {
+            vaciar(false);
+        }
+        caracteres.put(c);
+        return this;
+    }
+
+    /**
+     * Escribe un número entero en decimal.
+     *
+     * @param valor El número a escribir.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al vaciar el búfer.
+     */
+    EmisorASM entero(int valor) throws IOException {
+        if (valor < 0) {
+            if (valor == Integer.MIN_VALUE) {
+                return texto(Integer.toString(valor));
+            }
+            caracter('-');
+            valor = -valor;
+        }
+        int potencia = 1;
+        while (potencia <= valor / 10) {
+            potencia *= 10;
+        }
+        for (; potencia > 0; potencia /= 10) {
+            caracter((char) ('0' + valor / potencia % 10));
+        }
+        return this;
+    }
+
+    /**
+     * Escribe un operando tal como aparece en el código de tres direcciones,
+     * cambiando el punto de los literales decimales por un punto y coma
+     * ("2.5" se escribe "2;5"), igual que hacía el reemplazo
+     * {@code (\d+)\.(\d+) -> $1;$2} sobre la instrucción completa.
+     *
+     * @param operando Variable, temporal o literal.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al vaciar el búfer.
+     */
+    EmisorASM operando(String operando) throws IOException {
+        int n = operando.length();
+        int i = 0;
+        while (i < n) {
+            char c = operando.charAt(i);
+            if (!esDigito(c)) {
+                caracter(c);
+                i++;
+                continue;
+            }
+            // Una secuencia de dígitos, y si sigue ".dígitos" el punto se cambia
+            int finEntero = saltarDigitos(operando, i);
+            texto(operando, i, finEntero);
+            if (finEntero + 1 < n && operando.charAt(finEntero) == '.' && esDigito(operando.charAt(finEntero + 1))) {
+                int finDecimal = saltarDigitos(operando, finEntero + 1);
+                caracter(';');
+                texto(operando, finEntero + 1, finDecimal);
+                i = finDecimal;
+            } else {
+                i = finEntero;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Escribe el operando que lleva los decimales de otro: "a" se escribe
+     * "a_D", un literal decimal como "-2.5" se escribe "5" (sus dígitos
+     * decimales) y un literal entero se escribe "000".
+     *
+     * @param operando Variable, temporal o literal.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al vaciar el búfer.
+     */
+    EmisorASM operandoDecimales(String operando) throws IOException {
+        int n = operando.length();
+        if (n == 0) {
+            return this;
+        }
+        char primero = operando.charAt(0);
+        if (Character.isLetter(primero) && primero < 128 || primero == '_') {
+            // Variable o temporal
+            if (esIdentificador(operando)) {
+                return texto(operando).texto("_D");
+            }
+            return texto(operando);
+        }
+
+        int inicio = primero == '-' ? 1 : 0;
+        int finEntero = saltarDigitos(operando, inicio);
+        if (finEntero == inicio) {
+            return texto(operando);
+        }
+        if (finEntero == n) {
+            return texto("000");
+        }
+        if (operando.charAt(finEntero) == '.' && finEntero + 1 < n
+                && saltarDigitos(operando, finEntero + 1) == n) {
+            return texto(operando, finEntero + 1, n);
+        }
+        // Por defecto, el operando tal cual (nunca debería llegar aquí)
+        return texto(operando);
+    }
+
+    /**
+     * Copia al programa el contenido de un archivo ya codificado (p. ej. uno
+     * temporal escrito por otro emisor con la misma codificación) sin pasarlo
+     * por el búfer: lo pendiente se vacía primero y el archivo se transfiere
+     * directamente al canal.
+     *
+     * @param origen Archivo a copiar, desde el principio.
+     * @return Este emisor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al leer o escribir.
+     */
+    EmisorASM copiar(FileChannel origen) throws IOException {
+        vaciar(false);
+        long tamano = origen.size();
+        long posicion = 0;
+        while (posicion < tamano) {
+            posicion += origen.transferTo(posicion, tamano - posicion, canal);
+        }
+        bytesEscritos += tamano;
+        return this;
+    }
+
+    /**
+     * Escribe en el canal todo lo que queda en el búfer y cierra el canal.
+     *
+     * @throws IOException Si ocurre un error al escribir o cerrar el canal.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            vaciar(true);
+        } finally {
+            canal.close();
+        }
+    }
+
+    /**
+     * @return Bytes escritos en el canal hasta ahora.
+     */
+    long bytesEscritos() {
+        return bytesEscritos;
+    }
+
+    /**
+     * @return Líneas escritas en el canal hasta ahora, sin contar las de
+     *         {@link #copiar}; 0 si no hay métricas activas.
+     */
+    long lineas() {
+        return lineas;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    private EmisorASM texto(String texto, int inicio, int fin) throws IOException {
+        while (inicio < fin) {
+            if (!caracteres.hasRemaining()) {
+                vaciar(false);
+            }
+            int n = Math.min(fin - inicio, caracteres.remaining());
+            caracteres.put(texto, inicio, inicio + n);
+            inicio += n;
+        }
+        return this;
+    }
+
+    private void vaciar(boolean finalizar) throws IOException {
+        caracteres.flip();
+        CoderResult resultado;
+        do {
+            resultado = codificador.encode(caracteres, bytes, finalizar);
+            escribirBytes();
+        } while (resultado.isOverflow());
+        if (finalizar) {
+            while (codificador.flush(bytes).isOverflow()) {
+                escribirBytes();
+            }
+            escribirBytes();
+        }
+        // Un carácter incompleto (mitad de un par sustituto) queda para la siguiente vez
+        caracteres.compact();
+    }
+
+    private void escribirBytes() throws IOException {
+        bytes.flip();
+        bytesEscritos += bytes.remaining();
+        if (contarLineas) {
+            byte[] arreglo = bytes.array();
+            for (int i = 0; i < bytes.limit(); i++) {
+                if (arreglo[i] == '\n') {
+                    lineas++;
+                }
+            }
+        }
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int saltarDigitos(String texto, int i) {
+        while (i < texto.length() && esDigito(texto.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean esIdentificador(String texto) {
+        for (int i = 1; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!(c < 128 && Character.isLetterOrDigit(c) || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
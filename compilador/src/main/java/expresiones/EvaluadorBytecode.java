@@ -0,0 +1,479 @@
+package expresiones;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Evaluador compilado: traduce una expresión procesada a una clase de la JVM
+ * con un único método {@code double evaluar(double[] valores)} y la carga como
+ * clase oculta ({@link MethodHandles.Lookup#defineHiddenClass}).
+ *
+ * <p>
+ * El método generado es código lineal, igual al que se escribiría a mano: cada
+ * variable se lee una vez del arreglo a una variable local, los literales son
+ * constantes de la clase y cada operador es su instrucción ({@code dadd},
+ * {@code dsub}, {@code dmul} o {@code ddiv}). No hay mapas, ni {@code switch}
+ * por nombre de operador, ni {@code Double.parseDouble} al evaluar, así que el
+ * JIT puede compilarlo e incluirlo en quien lo llama. La aritmética es la misma
+ * de {@code calcularResultado} y el resultado coincide bit a bit con
+ * {@code evaluar}.
+ *
+ * <p>
+ * Los temporales que se usan una sola vez se calculan en la pila de operandos;
+ * los que se usan varias veces (subexpresiones comunes) se guardan en una
+ * variable local. HotSpot no compila con el JIT los métodos de más de 8000
+ * bytes de código (ver {@link #tamanoCodigo}), por lo que en expresiones muy
+ * grandes el método generado se interpreta. La clase no guarda estado: una
+ * instancia puede compartirse entre hilos y se descarga cuando deja de usarse.
+ */
+final class EvaluadorBytecode {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private static final String NOMBRE_CLASE = "expresiones/EvaluadorBytecode$Generada";
+    private static final String NOMBRE_INTERFAZ = "expresiones/EvaluadorBytecode$Funcion";
+
+    // Instrucciones de la JVM usadas por el método generado
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int DLOAD_0 = 0x26;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE = 0x39;
+    private static final int DSTORE_0 = 0x47;
+    private static final int DUP2 = 0x5c;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int WIDE = 0xc4;
+
+    // Tamaño máximo del código de un método en el formato de clase
+    private static final int MAXIMO_CODIGO = 65535;
+
+    /**
+     * Función generada para una expresión.
+     */
+    @FunctionalInterface
+    interface Funcion {
+        /**
+         * @param valores Un valor por variable, en el orden de
+         *                {@link EvaluadorBytecode#variables}, con el signo de
+         *                "(-a)" ya aplicado.
+         * @return El valor de la variable de la izquierda.
+         */
+        double evaluar(double[] valores);
+    }
+
+    private final String[] variables;
+    private final double[] valores;
+    private final Funcion funcion;
+    private final int tamanoCodigo;
+
+    /**
+     * Genera y carga la clase de una expresión procesada.
+     *
+     * @param expresion La expresión validada y procesada.
+     * @throws IllegalArgumentException Si el código no cabe en un método de la
+     *                                  JVM.
+     */
+    EvaluadorBytecode(ExpresionCompilada expresion) {
+        TreeSet<String> nombres = new TreeSet<>(expresion.variables());
+        nombres.addAll(expresion.variables_neg());
+        variables = nombres.toArray(new String[0]);
+        valores = new double[variables.length];
+
+        Generador generador = new Generador(expresion.simbolos(), variables);
+        tamanoCodigo = generador.codigo.size();
+        try {
+            MethodHandles.Lookup definida = MethodHandles.lookup().defineHiddenClass(generador.clase(), true);
+            funcion = (Funcion) definida.findConstructor(definida.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("No se pudo cargar la clase generada: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Las variables de entrada, en el orden en que se pasan sus valores
+     *         a {@link #evaluar(double[])}.
+     */
+    List<String> variables() {
+        return List.of(variables);
+    }
+
+    /**
+     * @return La función generada, para llamarla sin pasar por este objeto.
+     */
+    Funcion funcion() {
+        return funcion;
+    }
+
+    /**
+     * @return Bytes de código del método generado.
+     */
+    int tamanoCodigo() {
+        return tamanoCodigo;
+    }
+
+    /**
+     * Evalúa la expresión con los valores de un mapa. Reutiliza un arreglo
+     * interno, por lo que este método no debe llamarse desde varios hilos.
+     *
+     * @param valoresVariables Valores de las variables tal como se guardan en
+     *                         el contexto (el signo de "(-a)" ya aplicado).
+     * @return El valor de la variable de la izquierda.
+     * @throws IllegalArgumentException Si falta el valor de alguna variable.
+     */
+    double evaluar(Map<String, Double> valoresVariables) {
+        for (int v = 0; v < variables.length; v++) {
+            Double valor = valoresVariables.get(variables[v]);
+            if (valor == null) {
+                throw new IllegalArgumentException("Falta el valor de la variable '" + variables[v] + "'");
+            }
+            valores[v] = valor;
+        }
+        return funcion.evaluar(valores);
+    }
+
+    /**
+     * Evalúa la expresión.
+     *
+     * @param valores Un valor por variable, en el orden de {@link #variables},
+     *                con el signo de "(-a)" ya aplicado.
+     * @return El valor de la variable de la izquierda.
+     */
+    double evaluar(double[] valores) {
+        return funcion.evaluar(valores);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // GENERACIÓN DE LA CLASE
+
+    /**
+     * Nodo del árbol de la expresión: una variable de entrada, un literal o una
+     * operación sobre otros dos nodos.
+     */
+    private static final class Nodo {
+        final int opcode; // 0 para variables y literales
+        final int variable; // -1 si no es una variable
+        final double literal;
+        final Nodo izquierdo;
+        final Nodo derecho;
+        int usos;
+        int local = -1; // Variable local donde se guarda, si se usa varias veces
+
+        Nodo(int opcode, int variable, double literal, Nodo izquierdo, Nodo derecho) {
+            this.opcode = opcode;
+            this.variable = variable;
+            this.literal = literal;
+            this.izquierdo = izquierdo;
+            this.derecho = derecho;
+        }
+    }
+
+    /**
+     * Arma el árbol a partir del código escrito con los números de la tabla de
+     * símbolos y escribe el archivo de clase.
+     */
+    private static final class Generador {
+        private final ByteArrayOutputStream codigo = new ByteArrayOutputStream();
+        private final List<Object> constantes = new ArrayList<>();
+        private final Map<Object, Integer> indices = new HashMap<>();
+        private int siguienteIndice = 1;
+        private int siguienteLocal = 2; // 0: this, 1: el arreglo de valores
+        private int pila;
+        private int pilaMaxima;
+
+        Generador(TablaSimbolos simbolos, String[] variables) {
+            // Un nodo por símbolo: variables, literales y, al recorrer el código, temporales
+            Nodo[] nodos = new Nodo[simbolos.tamano()];
+            Nodo[] nodosVariables = new Nodo[variables.length];
+            for (int v = 0; v < variables.length; v++) {
+                nodosVariables[v] = new Nodo(0, v, 0, null, null);
+                nodos[simbolos.id(variables[v])] = nodosVariables[v];
+            }
+            for (int id = 0; id < nodos.length; id++) {
+                if (simbolos.tipo(id) == TablaSimbolos.Tipo.LITERAL) {
+                    nodos[id] = new Nodo(0, -1, simbolos.literal(id), null, null);
+                }
+            }
+
+            // El código termina con la asignación a la variable de la izquierda
+            int[] operaciones = simbolos.operaciones();
+            int asignacion = operaciones.length - 4;
+            for (int k = 0; k < asignacion; k += 4) {
+                nodos[operaciones[k + 3]] = new Nodo(operador(operaciones[k]), -1, 0, nodos[operaciones[k + 1]],
+                        nodos[operaciones[k + 2]]);
+            }
+            Nodo resultado = nodos[operaciones[asignacion + 2]];
+            contarUsos(resultado);
+
+            // Cada variable usada se lee una vez a una variable local
+            for (Nodo variable : nodosVariables) {
+                if (variable.usos > 0) {
+                    variable.local = reservarLocal();
+                    instruccion(ALOAD_1, 1);
+                    entero(variable.variable);
+                    instruccion(DALOAD, 0); // Arreglo e índice → double
+                    guardarLocal(variable.local);
+                }
+            }
+            emitir(resultado);
+            instruccion(DRETURN, -2);
+            if (codigo.size() > MAXIMO_CODIGO) {
+                throw new IllegalArgumentException(
+                        "La expresión es demasiado grande para compilarse a bytecode (" + codigo.size() + " bytes)");
+            }
+        }
+
+        /**
+         * Cuenta cuántas veces se usa cada nodo. Los hijos se recorren sólo en
+         * el primer uso porque después el valor se lee de su variable local.
+         */
+        private static void contarUsos(Nodo raiz) {
+            List<Nodo> pendientes = new ArrayList<>();
+            pendientes.add(raiz);
+            while (!pendientes.isEmpty()) {
+                Nodo nodo = pendientes.remove(pendientes.size() - 1);
+                if (nodo.usos++ == 0 && nodo.izquierdo != null) {
+                    pendientes.add(nodo.izquierdo);
+                    pendientes.add(nodo.derecho);
+                }
+            }
+        }
+
+        private void emitir(Nodo nodo) {
+            if (nodo.local >= 0) {
+                cargarLocal(nodo.local);
+            } else if (nodo.variable >= 0) {
+                throw new IllegalStateException(); // Las variables usadas ya tienen local
+            } else if (nodo.izquierdo == null) {
+                literal(nodo.literal);
+            } else {
+                emitir(nodo.izquierdo);
+                emitir(nodo.derecho);
+                instruccion(nodo.opcode, -2);
+                if (nodo.usos > 1) {
+                    nodo.local = reservarLocal();
+                    instruccion(DUP2, 2);
+                    guardarLocal(nodo.local);
+                }
+            }
+        }
+
+        private static int operador(int operador) {
+            return switch (operador) {
+                case TablaSimbolos.MUL -> DMUL;
+                case TablaSimbolos.DIV -> DDIV;
+                case TablaSimbolos.ADD -> DADD;
+                case TablaSimbolos.SUB -> DSUB;
+                default -> throw new IllegalArgumentException("Operador no soportado: " + operador);
+            };
+        }
+
+        private int reservarLocal() {
+            int local = siguienteLocal;
+            siguienteLocal += 2;
+            if (siguienteLocal > 0xffff) {
+                throw new IllegalArgumentException(
+                        "La expresión tiene demasiados temporales para compilarse a bytecode");
+            }
+            return local;
+        }
+
+        // ---------------------------------------------------------------------------------
+        // INSTRUCCIONES
+
+        /**
+         * Escribe un código de operación y lleva la cuenta de la pila.
+         *
+         * @param opcode El código de operación.
+         * @param efecto Palabras que agrega (o quita, si es negativo) a la pila.
+         */
+        private void instruccion(int opcode, int efecto) {
+            codigo.write(opcode);
+            pila += efecto;
+            pilaMaxima = Math.max(pilaMaxima, pila);
+        }
+
+        private void entero(int valor) {
+            if (valor <= 5) {
+                instruccion(ICONST_0 + valor, 1);
+            } else if (valor <= Byte.MAX_VALUE) {
+                instruccion(BIPUSH, 1);
+                codigo.write(valor);
+            } else {
+                instruccion(SIPUSH, 1);
+                u2(valor);
+            }
+        }
+
+        private void literal(double valor) {
+            long bits = Double.doubleToRawLongBits(valor);
+            if (bits == 0L) {
+                instruccion(DCONST_0, 2);
+            } else if (bits == Double.doubleToRawLongBits(1.0)) {
+                instruccion(DCONST_1, 2);
+            } else {
+                instruccion(LDC2_W, 2);
+                u2(constante(valor));
+            }
+        }
+
+        private void cargarLocal(int local) {
+            if (local <= 3) {
+                instruccion(DLOAD_0 + local, 2);
+            } else {
+                accesoLocal(DLOAD, local, 2);
+            }
+        }
+
+        private void guardarLocal(int local) {
+            if (local <= 3) {
+                instruccion(DSTORE_0 + local, -2);
+            } else {
+                accesoLocal(DSTORE, local, -2);
+            }
+        }
+
+        private void accesoLocal(int opcode, int local, int efecto) {
+            if (local <= 0xff) {
+                instruccion(opcode, efecto);
+                codigo.write(local);
+            } else {
+                codigo.write(WIDE);
+                instruccion(opcode, efecto);
+                u2(local);
+            }
+        }
+
+        private void u2(int valor) {
+            codigo.write(valor >>> 8);
+            codigo.write(valor);
+        }
+
+        // ---------------------------------------------------------------------------------
+        // ARCHIVO DE CLASE
+
+        /**
+         * Índice de una constante, agregándola si es nueva. Las cadenas se
+         * guardan como UTF-8, los {@code double} ocupan dos índices y el resto son
+         * arreglos con la etiqueta y los índices a los que hacen referencia.
+         */
+        private int constante(Object valor) {
+            Object clave = valor instanceof int[] arreglo ? List.of(arreglo[0], arreglo[1], arreglo[2])
+                    : valor instanceof Double d ? Double.doubleToRawLongBits(d) : valor;
+            Integer indice = indices.get(clave);
+            if (indice == null) {
+                indice = siguienteIndice;
+                siguienteIndice += valor instanceof Double ? 2 : 1;
+                if (siguienteIndice > 0xffff) {
+                    throw new IllegalArgumentException(
+                            "La expresión tiene demasiados literales para compilarse a bytecode");
+                }
+                indices.put(clave, indice);
+                constantes.add(valor);
+            }
+            return indice;
+        }
+
+        private int referencia(int etiqueta, int primero, int segundo) {
+            return constante(new int[] { etiqueta, primero, segundo });
+        }
+
+        private int clase(String nombre) {
+            return referencia(7, constante(nombre), 0);
+        }
+
+        byte[] clase() {
+            int estaClase = clase(NOMBRE_CLASE);
+            int objeto = clase("java/lang/Object");
+            int interfaz = clase(NOMBRE_INTERFAZ);
+            int init = constante("<init>");
+            int sinArgumentos = constante("()V");
+            int constructorObjeto = referencia(10, objeto, referencia(12, init, sinArgumentos));
+            int evaluar = constante("evaluar");
+            int firma = constante("([D)D");
+            int atributoCodigo = constante("Code");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream salida = new DataOutputStream(bytes)) {
+                salida.writeInt(0xCAFEBABE);
+                salida.writeShort(0);
+                salida.writeShort(61); // Java 17
+                salida.writeShort(siguienteIndice);
+                for (Object valor : constantes) {
+                    if (valor instanceof String texto) {
+                        salida.writeByte(1);
+                        salida.writeUTF(texto);
+                    } else if (valor instanceof Double numero) {
+                        salida.writeByte(6);
+                        salida.writeDouble(numero);
+                    } else {
+                        int[] arreglo = (int[]) valor;
+                        salida.writeByte(arreglo[0]);
+                        salida.writeShort(arreglo[1]);
+                        if (arreglo[0] != 7) {
+                            salida.writeShort(arreglo[2]);
+                        }
+                    }
+                }
+                salida.writeShort(0x0030); // ACC_FINAL | ACC_SUPER
+                salida.writeShort(estaClase);
+                salida.writeShort(objeto);
+                salida.writeShort(1);
+                salida.writeShort(interfaz);
+                salida.writeShort(0); // Sin campos
+                salida.writeShort(2);
+
+                // public <init>() { super(); }
+                byte[] constructor = { (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (constructorObjeto >>> 8),
+                        (byte) constructorObjeto, (byte) RETURN };
+                metodo(salida, init, sinArgumentos, atributoCodigo, 1, 1, constructor);
+
+                // public double evaluar(double[] valores)
+                metodo(salida, evaluar, firma, atributoCodigo, pilaMaxima, siguienteLocal, codigo.toByteArray());
+                salida.writeShort(0); // Sin atributos de clase
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // No ocurre al escribir en memoria
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void metodo(DataOutputStream salida, int nombre, int firma, int atributoCodigo, int pila,
+                int locales, byte[] codigo) throws IOException {
+            salida.writeShort(0x0001); // ACC_PUBLIC
+            salida.writeShort(nombre);
+            salida.writeShort(firma);
+            salida.writeShort(1);
+            salida.writeShort(atributoCodigo);
+            salida.writeInt(12 + codigo.length);
+            salida.writeShort(pila);
+            salida.writeShort(locales);
+            salida.writeInt(codigo.length);
+            salida.write(codigo);
+            salida.writeShort(0); // Sin tabla de excepciones
+            salida.writeShort(0); // Sin atributos
+        }
+    }
+}
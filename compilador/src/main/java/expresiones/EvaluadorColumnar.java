@@ -0,0 +1,311 @@
+package expresiones;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Evaluador por columnas: calcula una expresión procesada para muchas filas a
+ * la vez, a partir de un arreglo {@code double[]} por variable.
+ *
+ * <p>
+ * El código de tres direcciones se traduce una sola vez a un programa de
+ * índices y constantes. Las filas se procesan en bloques de
+ * {@value #TAMANO_BLOQUE}; cada instrucción recorre el bloque completo con un
+ * ciclo simple sobre arreglos primitivos, sin mapas, sin cajas
+ * {@code Double} y sin crear objetos, lo que permite al JIT vectorizarlo. La
+ * aritmética es la misma de {@code calcularResultado}.
+ *
+ * <p>
+ * Una instancia reutiliza sus arreglos de trabajo entre llamadas, por lo que no
+ * debe compartirse entre hilos; crear otra instancia es barato.
+ */
+final class EvaluadorColumnar {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    static final int TAMANO_BLOQUE = 1024;
+
+    // Tipos de operando
+    private static final byte COLUMNA = 0;
+    private static final byte TEMPORAL = 1;
+    private static final byte CONSTANTE = 2;
+
+    // Operadores
+    private static final byte MUL = 0;
+    private static final byte DIV = 1;
+    private static final byte ADD = 2;
+    private static final byte SUB = 3;
+
+    private final String[] columnas;
+
+    // Programa: una posición por operación
+    private final byte[] operador;
+    private final byte[] tipo1;
+    private final int[] indice1;
+    private final double[] constante1;
+    private final byte[] tipo2;
+    private final int[] indice2;
+    private final double[] constante2;
+    private final int[] destino;
+
+    // Variables con signo negativo: columna de origen y temporal donde se copian
+    private final int[] columnasNegadas;
+    private final int[] temporalesNegados;
+
+    // Operando del resultado (la asignación final)
+    private final byte tipoResultado;
+    private final int indiceResultado;
+    private final double constanteResultado;
+
+    private final double[][] trabajo;
+
+    /**
+     * Traduce una expresión procesada a un programa por columnas.
+     *
+     * @param expresion La expresión validada y procesada.
+     * @param columnas  Nombres de las variables, en el orden en que se pasarán
+     *                  sus columnas a {@link #evaluar}.
+     * @throws IllegalArgumentException Si falta la columna de alguna variable.
+     */
+    EvaluadorColumnar(ExpresionCompilada expresion, List<String> columnas) {
+        this.columnas = columnas.toArray(new String[0]);
+        Map<String, Integer> posicionColumna = new HashMap<>();
+        for (int i = 0; i < this.columnas.length; i++) {
+            posicionColumna.put(this.columnas[i], i);
+        }
+        Set<String> requeridas = new TreeSet<>(expresion.variables());
+        requeridas.addAll(expresion.variables_neg());
+        for (String variable : requeridas) {
+            if (!posicionColumna.containsKey(variable)) {
+                throw new IllegalArgumentException("Falta la columna de la variable '" + variable + "'");
+            }
+        }
+
+        List<Instruccion> codigo = expresion.codigo();
+        int operaciones = codigo.size() - 1;
+        operador = new byte[operaciones];
+        tipo1 = new byte[operaciones];
+        indice1 = new int[operaciones];
+        constante1 = new double[operaciones];
+        tipo2 = new byte[operaciones];
+        indice2 = new int[operaciones];
+        constante2 = new double[operaciones];
+        destino = new int[operaciones];
+
+        // Los temporales comparten arreglos según su vida (ver AsignadorTemporales);
+        // las variables negativas se copian con el signo cambiado a los primeros
+        AsignadorTemporales.Asignacion ranuras = AsignadorTemporales.asignar(codigo);
+        Map<String, Integer> temporales = new HashMap<>();
+        columnasNegadas = new int[expresion.variables_neg().size()];
+        temporalesNegados = new int[columnasNegadas.length];
+        int n = 0;
+        for (String variable : expresion.variables_neg()) {
+            columnasNegadas[n] = posicionColumna.get(variable);
+            temporalesNegados[n] = n;
+            temporales.put(variable, n);
+            n++;
+        }
+        for (Map.Entry<String, Integer> entry : ranuras.ranuras().entrySet()) {
+            temporales.put(entry.getKey(), n + entry.getValue() - 1);
+        }
+
+        for (int k = 0; k < operaciones; k++) {
+            Instruccion instruccion = codigo.get(k);
+            operador[k] = switch (instruccion.operador()) {
+                case "MUL" -> MUL;
+                case "DIV" -> DIV;
+                case "ADD" -> ADD;
+                case "SUB" -> SUB;
+                default -> throw new IllegalArgumentException("Operador no soportado: " + instruccion.operador());
+            };
+            Operando a = operando(instruccion.op1(), temporales, posicionColumna);
+            Operando b = operando(instruccion.op2(), temporales, posicionColumna);
+            tipo1[k] = a.tipo;
+            indice1[k] = a.indice;
+            constante1[k] = a.constante;
+            tipo2[k] = b.tipo;
+            indice2[k] = b.indice;
+            constante2[k] = b.constante;
+            destino[k] = temporales.get(instruccion.destino());
+        }
+
+        Operando resultado = operando(codigo.get(operaciones).op2(), temporales, posicionColumna);
+        tipoResultado = resultado.tipo;
+        indiceResultado = resultado.indice;
+        constanteResultado = resultado.constante;
+
+        trabajo = new double[n + ranuras.numeroRanuras()][TAMANO_BLOQUE];
+    }
+
+    /**
+     * @return Los nombres de las columnas, en el orden esperado por
+     *         {@link #evaluar}.
+     */
+    List<String> columnas() {
+        return List.of(columnas);
+    }
+
+    /**
+     * Evalúa la expresión para las primeras {@code filas} filas.
+     *
+     * @param valores   Una columna por variable, en el orden indicado al crear el
+     *                  evaluador. Los valores son los que escribiría el usuario:
+     *                  el signo de las variables "(-a)" se aplica aquí.
+     * @param resultado Arreglo donde se guarda el resultado de cada fila.
+     * @param filas     Número de filas a evaluar.
+     */
+    void evaluar(double[][] valores, double[] resultado, int filas) {
+        for (int base = 0; base < filas; base += TAMANO_BLOQUE) {
+            evaluarBloque(valores, resultado, base, Math.min(TAMANO_BLOQUE, filas - base));
+        }
+    }
+
+    private void evaluarBloque(double[][] valores, double[] resultado, int base, int n) {
+        for (int v = 0; v < columnasNegadas.length; v++) {
+            negar(valores[columnasNegadas[v]], base, trabajo[temporalesNegados[v]], n);
+        }
+
+        for (int k = 0; k < operador.length; k++) {
+            double[] d = trabajo[destino[k]];
+            byte t1 = tipo1[k];
+            byte t2 = tipo2[k];
+            if (t1 == CONSTANTE && t2 == CONSTANTE) {
+                Arrays.fill(d, 0, n, operar(operador[k], constante1[k], constante2[k]));
+            } else if (t1 == CONSTANTE) {
+                operarConstanteArreglo(operador[k], constante1[k], arreglo(valores, t2, indice2[k]),
+                        t2 == COLUMNA ? base : 0, d, n);
+            } else if (t2 == CONSTANTE) {
+                operarArregloConstante(operador[k], arreglo(valores, t1, indice1[k]), t1 == COLUMNA ? base : 0,
+                        constante2[k], d, n);
+            } else {
+                operarArreglos(operador[k], arreglo(valores, t1, indice1[k]), t1 == COLUMNA ? base : 0,
+                        arreglo(valores, t2, indice2[k]), t2 == COLUMNA ? base : 0, d, n);
+            }
+        }
+
+        switch (tipoResultado) {
+            case COLUMNA -> System.arraycopy(valores[indiceResultado], base, resultado, base, n);
+            case TEMPORAL -> System.arraycopy(trabajo[indiceResultado], 0, resultado, base, n);
+            default -> Arrays.fill(resultado, base, base + n, constanteResultado);
+        }
+    }
+
+    private double[] arreglo(double[][] valores, byte tipo, int indice) {
+        return tipo == COLUMNA ? valores[indice] : trabajo[indice];
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CICLOS DE CÁLCULO
+    // ---------------------------------------------------------------------------------
+    private static double operar(byte op, double a, double b) {
+        return switch (op) {
+            case MUL -> a * b;
+            case DIV -> a / b;
+            case ADD -> a + b;
+            default -> a - b;
+        };
+    }
+
+    private static void negar(double[] a, int ia, double[] d, int n) {
+        for (int i = 0; i < n; i++) {
+            d[i] = -a[ia + i];
+        }
+    }
+
+    private static void operarArreglos(byte op, double[] a, int ia, double[] b, int ib, double[] d, int n) {
+        switch (op) {
+            case MUL -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] * b[ib + i];
+                }
+            }
+            case DIV -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] / b[ib + i];
+                }
+            }
+            case ADD -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] + b[ib + i];
+                }
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] - b[ib + i];
+                }
+            }
+        }
+    }
+
+    private static void operarArregloConstante(byte op, double[] a, int ia, double c, double[] d, int n) {
+        switch (op) {
+            case MUL -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] * c;
+                }
+            }
+            case DIV -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] / c;
+                }
+            }
+            case ADD -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] + c;
+                }
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = a[ia + i] - c;
+                }
+            }
+        }
+    }
+
+    private static void operarConstanteArreglo(byte op, double c, double[] b, int ib, double[] d, int n) {
+        switch (op) {
+            case MUL -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = c * b[ib + i];
+                }
+            }
+            case DIV -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = c / b[ib + i];
+                }
+            }
+            case ADD -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = c + b[ib + i];
+                }
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    d[i] = c - b[ib + i];
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // TRADUCCIÓN DE OPERANDOS
+    // ---------------------------------------------------------------------------------
+    private record Operando(byte tipo, int indice, double constante) {
+    }
+
+    private static Operando operando(String nombre, Map<String, Integer> temporales,
+            Map<String, Integer> posicionColumna) {
+        Integer temporal = temporales.get(nombre);
+        if (temporal != null) {
+            return new Operando(TEMPORAL, temporal, 0);
+        }
+        Integer columna = posicionColumna.get(nombre);
+        if (columna != null) {
+            return new Operando(COLUMNA, columna, 0);
+        }
+        return new Operando(CONSTANTE, -1, Double.parseDouble(nombre));
+    }
+}
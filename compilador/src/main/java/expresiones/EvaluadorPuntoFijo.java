@@ -0,0 +1,334 @@
+package expresiones;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Evaluador en punto fijo: calcula una expresión procesada exactamente como lo
+ * hace el programa ASM generado, con una palabra de 16 bits para los enteros y
+ * otra para los decimales ({@code _D}) de cada variable y temporal.
+ *
+ * <p>
+ * A diferencia de {@code evaluar}, que calcula en {@code double}, aquí se
+ * reproduce cada instrucción del 8086: las sumas y restas se desbordan a 16
+ * bits, {@code IMUL} conserva la palabra baja, {@code IDIV} trunca hacia cero
+ * y falla al dividir entre cero o cuando el cociente no cabe, y la asignación
+ * final hace el ajuste de decimales en ±1000. Las partes de un literal son las
+ * que escribe el programa: "2.5" tiene 2 enteros y 5 decimales, y un literal
+ * entero tiene 000 decimales. Las multiplicaciones y divisiones por 2^k se
+ * calculan con desplazamientos cuando la expresión se procesó con el plegado
+ * de constantes, igual que se escriben en el ASM.
+ *
+ * <p>
+ * El código de tres direcciones se traduce una sola vez a un programa de
+ * índices sobre un arreglo {@code short[]} que hace de segmento de datos;
+ * evaluar no crea objetos. Una instancia reutiliza ese arreglo entre llamadas,
+ * por lo que no debe compartirse entre hilos.
+ */
+final class EvaluadorPuntoFijo {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    // Operadores
+    private static final byte MUL = 0;
+    private static final byte DIV = 1;
+    private static final byte ADD = 2;
+    private static final byte SUB = 3;
+    private static final byte MOV = 4;
+    private static final byte SHL = 5;
+    private static final byte SAR = 6;
+
+    // Palabras donde se descartan las escrituras a un literal (el ajuste de "z = 2.1500")
+    private static final int DESCARTE = 0;
+
+    private final String[] variables;
+    private final int[] posicionVariables;
+
+    // Programa: una posición por operación. Cada operando es la posición de su
+    // palabra de enteros; la de decimales es la siguiente
+    private final byte[] operador;
+    private final int[] operando1;
+    private final int[] operando2;
+    private final int[] escritura2;
+    private final int[] destino;
+    private final int[] exponente;
+    private final int resultado;
+
+    // Segmento de datos: literales ya cargados y el resto en 0 ("DW ?")
+    private final short[] memoriaInicial;
+    private final short[] memoria;
+    private final double[] valores;
+
+    /**
+     * Traduce una expresión procesada a un programa en punto fijo.
+     *
+     * @param expresion La expresión validada y procesada.
+     */
+    EvaluadorPuntoFijo(ExpresionCompilada expresion) {
+        TreeSet<String> nombres = new TreeSet<>(expresion.variables());
+        nombres.addAll(expresion.variables_neg());
+        variables = nombres.toArray(new String[0]);
+        valores = new double[variables.length];
+
+        // Posiciones: descarte, variables de entrada y, en el orden en que
+        // aparecen, la variable de la izquierda, los temporales (por su nombre en
+        // el ASM) y los literales
+        Map<String, Integer> posiciones = new HashMap<>();
+        int ultimaPosicion = DESCARTE + 2;
+        posicionVariables = new int[variables.length];
+        for (int v = 0; v < variables.length; v++) {
+            posicionVariables[v] = ultimaPosicion;
+            posiciones.put(variables[v], ultimaPosicion);
+            ultimaPosicion += 2;
+        }
+
+        AsignadorTemporales.Asignacion ranuras = expresion.ranuras();
+        boolean desplazamiento = expresion.opciones().plegarConstantes();
+        List<Instruccion> codigo = expresion.codigo();
+        int operaciones = codigo.size();
+        operador = new byte[operaciones];
+        operando1 = new int[operaciones];
+        operando2 = new int[operaciones];
+        escritura2 = new int[operaciones];
+        destino = new int[operaciones];
+        exponente = new int[operaciones];
+
+        for (int k = 0; k < operaciones; k++) {
+            Instruccion instruccion = codigo.get(k);
+            String op1 = ranuras.nombre(instruccion.op1());
+            String op2 = ranuras.nombre(instruccion.op2());
+            int e = desplazamiento ? ExpresionesAritmeticasASM.exponenteDesplazamiento(instruccion) : 0;
+            exponente[k] = e;
+            operador[k] = switch (instruccion.operador()) {
+                case "MUL" -> e > 0 ? SHL : MUL;
+                case "DIV" -> e > 0 ? SAR : DIV;
+                case "ADD" -> ADD;
+                case "SUB" -> SUB;
+                case "MOV" -> MOV;
+                default -> throw new IllegalArgumentException("Operador no soportado: " + instruccion.operador());
+            };
+            if (operador[k] == SHL && PlegadoConstantes.exponenteDeDos(instruccion.op2()) != e) {
+                op1 = op2; // El operando que se desplaza es el que no es la potencia de dos
+            }
+
+            for (String nombre : new String[] { op1, op2 }) {
+                if (!posiciones.containsKey(nombre)) {
+                    posiciones.put(nombre, ultimaPosicion);
+                    ultimaPosicion += 2;
+                }
+            }
+            operando1[k] = posiciones.get(op1);
+            operando2[k] = posiciones.get(op2);
+            escritura2[k] = esLiteral(op2) ? DESCARTE : operando2[k];
+            if (operador[k] != MOV) {
+                String nombreDestino = ranuras.nombre(instruccion.destino());
+                if (!posiciones.containsKey(nombreDestino)) {
+                    posiciones.put(nombreDestino, ultimaPosicion);
+                    ultimaPosicion += 2;
+                }
+                destino[k] = posiciones.get(nombreDestino);
+            } else {
+                destino[k] = operando1[k];
+            }
+        }
+        resultado = posiciones.getOrDefault(expresion.variableIzquierda(), DESCARTE);
+
+        memoriaInicial = new short[ultimaPosicion];
+        for (Map.Entry<String, Integer> entry : posiciones.entrySet()) {
+            if (esLiteral(entry.getKey())) {
+                cargarLiteral(entry.getKey(), memoriaInicial, entry.getValue());
+            }
+        }
+        memoria = new short[ultimaPosicion];
+    }
+
+    /**
+     * @return Las variables de entrada, en el orden en que se pasan sus valores
+     *         a {@link #evaluar(double[])}.
+     */
+    List<String> variables() {
+        return List.of(variables);
+    }
+
+    /**
+     * Evalúa la expresión con los valores de un mapa.
+     *
+     * @param valoresVariables Valores de las variables tal como se guardan en
+     *                         el contexto (el signo de "(-a)" ya aplicado).
+     * @return El resultado en milésimas (ver {@link #evaluar(double[])}).
+     * @throws IllegalArgumentException Si falta el valor de alguna variable o
+     *                                  no cabe en una palabra.
+     * @throws ArithmeticException      Si el programa ASM fallaría en un
+     *                                  {@code IDIV}.
+     */
+    long evaluar(Map<String, Double> valoresVariables) {
+        for (int v = 0; v < variables.length; v++) {
+            Double valor = valoresVariables.get(variables[v]);
+            if (valor == null) {
+                throw new IllegalArgumentException("Falta el valor de la variable '" + variables[v] + "'");
+            }
+            valores[v] = valor;
+        }
+        return evaluar(valores);
+    }
+
+    /**
+     * Evalúa la expresión. Cada valor se separa en enteros y milésimas igual
+     * que en el segmento de datos del programa ASM.
+     *
+     * @param valores Un valor por variable, en el orden de {@link #variables},
+     *                con el signo de "(-a)" ya aplicado.
+     * @return El resultado en milésimas, leído de las palabras de la variable
+     *         de la izquierda como al imprimirlo (ver {@link #milesimas}).
+     * @throws IllegalArgumentException Si un valor no cabe en una palabra.
+     * @throws ArithmeticException      Si el programa ASM fallaría en un
+     *                                  {@code IDIV}.
+     */
+    long evaluar(double[] valores) {
+        short[] m = memoria;
+        System.arraycopy(memoriaInicial, 0, m, 0, m.length);
+        for (int v = 0; v < variables.length; v++) {
+            cargarValor(variables[v], valores[v], m, posicionVariables[v]);
+        }
+
+        for (int k = 0; k < operador.length; k++) {
+            int a = operando1[k];
+            int b = operando2[k];
+            int d = destino[k];
+            switch (operador[k]) {
+                case MUL -> {
+                    short entero = (short) (m[a] * m[b]);
+                    m[d + 1] = (short) (m[a + 1] * m[b + 1]);
+                    m[d] = entero;
+                }
+                case DIV -> {
+                    short entero = dividir(m[a], m[b]);
+                    m[d + 1] = dividir(m[a + 1], m[b + 1]);
+                    m[d] = entero;
+                }
+                case ADD -> {
+                    short entero = (short) (m[a] + m[b]);
+                    m[d + 1] = (short) (m[a + 1] + m[b + 1]);
+                    m[d] = entero;
+                }
+                case SUB -> {
+                    short entero = (short) (m[a] - m[b]);
+                    m[d + 1] = (short) (m[a + 1] - m[b + 1]);
+                    m[d] = entero;
+                }
+                case SHL -> {
+                    m[d] = (short) (m[a] << exponente[k]);
+                    m[d + 1] = 0;
+                }
+                case SAR -> {
+                    // CWD; AND DX, 2^k - 1; ADD AX, DX; SAR AX, k: trunca hacia cero
+                    int ajuste = m[a] < 0 ? (1 << exponente[k]) - 1 : 0;
+                    short entero = (short) ((short) (m[a] + ajuste) >> exponente[k]);
+                    m[d + 1] = dividir(m[a + 1], m[b + 1]);
+                    m[d] = entero;
+                }
+                default -> asignar(m, k);
+            }
+        }
+        return milesimas(m[resultado], m[resultado + 1]);
+    }
+
+    /**
+     * Lee un valor de sus dos palabras como lo imprime el programa ASM: el
+     * signo es el de la palabra de enteros y los decimales se suman a su valor
+     * absoluto, porque se guardan sin signo ("-10.271" es -10 y 271). Un valor
+     * entre -1 y 0 tiene 0 enteros y se lee positivo.
+     *
+     * @param entero    La palabra de enteros.
+     * @param decimales La palabra de decimales.
+     * @return El valor en milésimas.
+     */
+    static long milesimas(short entero, short decimales) {
+        long magnitud = Math.abs(entero) * (long) PuntoFijo.ESCALA + decimales;
+        return entero < 0 ? -magnitud : magnitud;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // INSTRUCCIONES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Ajuste de decimales y asignación: si los decimales del valor asignado
+     * llegan a 1000 o son negativos se corrigen una vez, llevando o pidiendo
+     * una unidad a los enteros, y después se copian ambas palabras.
+     */
+    private void asignar(short[] m, int k) {
+        int b = operando2[k];
+        int escritura = escritura2[k];
+        short decimales = m[b + 1];
+        if (decimales >= PuntoFijo.ESCALA) {
+            m[escritura + 1] = (short) (decimales - PuntoFijo.ESCALA);
+            m[escritura] = (short) (m[b] + 1);
+        } else if (decimales < 0) {
+            m[escritura + 1] = (short) (decimales + PuntoFijo.ESCALA);
+            m[escritura] = (short) (m[b] - 1);
+        }
+        int d = destino[k];
+        m[d] = m[b];
+        m[d + 1] = m[b + 1];
+    }
+
+    /**
+     * {@code IDIV} de 32 entre 16 bits con el dividendo extendido por
+     * {@code CWD}.
+     */
+    private static short dividir(short dividendo, short divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("División entre cero en IDIV (el 8086 la interrumpe)");
+        }
+        int cociente = dividendo / divisor;
+        if (cociente != (short) cociente) {
+            throw new ArithmeticException("El cociente de IDIV no cabe en 16 bits: " + dividendo + " / " + divisor);
+        }
+        return (short) cociente;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // SEGMENTO DE DATOS
+    // ---------------------------------------------------------------------------------
+    /**
+     * Separa un valor de entrada como {@code convertirValorASM}: enteros con
+     * signo y milésimas sin signo, cada uno en una palabra.
+     */
+    private static void cargarValor(String variable, double valor, short[] m, int posicion) {
+        if (!PuntoFijo.representable(valor)) {
+            throw new IllegalArgumentException("El valor de '" + variable + "' no cabe en una palabra: " + valor);
+        }
+        long milesimas = PuntoFijo.milesimas(valor);
+        long entero = PuntoFijo.entero(milesimas);
+        if (entero < Short.MIN_VALUE || entero > 0xFFFF) {
+            throw new IllegalArgumentException("El valor de '" + variable + "' no cabe en una palabra: " + valor);
+        }
+        m[posicion] = (short) entero;
+        m[posicion + 1] = (short) PuntoFijo.decimales(milesimas);
+    }
+
+    /**
+     * Partes de un literal tal como se escriben en el ASM: "-2.5" como -2 y 5
+     * (sus dígitos decimales), "4" como 4 y 000. Igual que el ensamblador,
+     * cada parte se trunca a 16 bits.
+     */
+    private static void cargarLiteral(String literal, short[] m, int posicion) {
+        int i = literal.startsWith("-") ? 1 : 0;
+        int entero = 0;
+        while (i < literal.length() && literal.charAt(i) != '.') {
+            entero = entero * 10 + literal.charAt(i++) - '0';
+        }
+        int decimales = 0;
+        for (i++; i < literal.length(); i++) {
+            decimales = decimales * 10 + literal.charAt(i) - '0';
+        }
+        m[posicion] = (short) (literal.startsWith("-") ? -entero : entero);
+        m[posicion + 1] = (short) decimales;
+    }
+
+    private static boolean esLiteral(String operando) {
+        char c = operando.charAt(0);
+        return c == '-' || c >= '0' && c <= '9';
+    }
+}
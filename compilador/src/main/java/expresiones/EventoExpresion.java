@@ -0,0 +1,26 @@
+package expresiones;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de una expresión analizada (no se emite si viene de la caché):
+ * su tamaño y lo que produjo el análisis.
+ */
+@Name("expresiones.Expresion")
+@Label("Expresión analizada")
+@Category("Expresiones aritméticas")
+@Description("Tamaño y código de una expresión recién analizada")
+final class EventoExpresion extends jdk.jfr.Event {
+    @Label("Caracteres")
+    long caracteres;
+
+    @Label("Temporales")
+    long temporales;
+
+    @Label("Instrucciones")
+    @Description("Instrucciones de tres direcciones, ya optimizadas")
+    long instrucciones;
+}
@@ -0,0 +1,28 @@
+package expresiones;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR de una fase de la compilación (lectura, validación, generación
+ * del ASM, ...). Lo crea {@link Metricas}; la duración es la del evento.
+ */
+@Name("expresiones.Fase")
+@Label("Fase de compilación")
+@Category("Expresiones aritméticas")
+@Description("Una fase de la compilación de una expresión")
+final class EventoFase extends jdk.jfr.Event {
+    @Label("Fase")
+    String fase;
+
+    @Label("Tamaño")
+    @Description("Caracteres de la entrada, o bytes escritos en la generación del ASM")
+    long tamano;
+
+    @Label("Bytes asignados")
+    @DataAmount
+    long bytesAsignados;
+}
@@ -0,0 +1,42 @@
+package expresiones;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expresión ya validada y descompuesta en instrucciones. No depende de los
+ * valores de las variables ni se modifica después de crearse, por lo que una
+ * misma expresión puede evaluarse muchas veces, incluso desde varios hilos.
+ *
+ * @param expresionFormateada La expresión original formateada para mostrarse.
+ * @param variableIzquierda   La variable que recibe el resultado.
+ * @param variables           Variables utilizadas en el lado derecho.
+ * @param variables_neg       Variables escritas con signo negativo, p. ej.
+ *                            "(-a)".
+ * @param codigo              Código de tres direcciones de la expresión; las
+ *                            instrucciones ASM se escriben a partir de él.
+ * @param simbolos            Número y tipo de cada nombre del código, y el
+ *                            código escrito con esos números para evaluarlo.
+ * @param ranuras             Posición de cada temporal en el segmento de
+ *                            datos del programa ASM.
+ * @param instruccionesASM    Líneas ASM de las operaciones ya seleccionadas
+ *                            con registros u optimizadas por la mirilla;
+ *                            vacía si ambas están desactivadas y las
+ *                            instrucciones se escriben directamente desde el
+ *                            código.
+ * @param informe             Lo que las optimizaciones eliminaron.
+ * @param opciones            Optimizaciones con que se procesó; también
+ *                            deciden cómo se escriben las instrucciones ASM.
+ */
+record ExpresionCompilada(
+        String expresionFormateada,
+        String variableIzquierda,
+        Set<String> variables,
+        Set<String> variables_neg,
+        List<Instruccion> codigo,
+        TablaSimbolos simbolos,
+        AsignadorTemporales.Asignacion ranuras,
+        List<String> instruccionesASM,
+        InformeOptimizacion informe,
+        OpcionesCompilacion opciones) {
+}
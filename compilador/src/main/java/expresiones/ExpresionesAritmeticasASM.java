@@ -0,0 +1,1570 @@
+package expresiones;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Clase principal que procesa expresiones aritméticas desde un archivo .txt,
+ * valida su estructura, y genera un archivo Ensamblador (ASM).
+ */
+public class ExpresionesAritmeticasASM {
+    // Variable con signo negativo, p. ej. "(-a)"
+    private static final Pattern VARIABLE_NEGATIVA = Pattern.compile("\\(-([a-zA-Z_][a-zA-Z0-9_]*)\\)");
+    // Separador de sentencias en un archivo con varias
+    private static final Pattern SEPARADOR_SENTENCIAS = Pattern.compile("[;\\r\\n]");
+    // Etiquetas de las instrucciones ASM, que cada sentencia renombra con su sufijo
+    private static final Pattern ETIQUETA_AJUSTE = Pattern.compile("\\b(Ajuste_Menor|Fin_Ajuste)\\b");
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODO PRINCIPAL
+    // ---------------------------------------------------------------------------------
+    public static void main(String[] args) {
+        // --metrics en cualquier posición: métricas por fase al terminar
+        args = activarMetricas(args);
+
+        // Modo por lotes: compila varios archivos sin interacción
+        if (args.length > 0 && args[0].equals("--lote")) {
+            System.exit(ModoLote.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        // Modo de evaluación: una expresión con muchos conjuntos de valores
+        if (args.length > 0 && args[0].equals("--evaluar")) {
+            System.exit(ModoEvaluacion.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        // Modo de flujo: un archivo muy grande con memoria acotada
+        if (args.length > 0 && args[0].equals("--flujo")) {
+            System.exit(ModoFlujo.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        // Modo de ejecución: corre programas ASM ya generados y cuenta sus ciclos
+        if (args.length > 0 && args[0].equals("--ejecutar")) {
+            System.exit(ModoEjecucion.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        // Modo servidor: compila las peticiones que llegan por un socket local
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            System.exit(ModoServidor.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        // Modo de vigilancia: recompila los archivos de un directorio al cambiar
+        if (args.length > 0 && args[0].equals("--vigilar")) {
+            System.exit(ModoVigilancia.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // Modo de línea de comandos, o el gráfico con --gui
+        System.exit(compilarArchivo(args));
+    }
+
+    /**
+     * Compila un archivo .txt indicado en la línea de comandos, sin abrir
+     * ventanas: la ruta de entrada y la del programa ASM son argumentos.
+     *
+     * <pre>
+     * &lt;archivo.txt&gt; [&lt;salida.ASM&gt;] [-Dvariable=valor]... [-O0 | --sin-&lt;optimización&gt;...]
+     *     [--cache-disco &lt;directorio&gt; [--cache-disco-mb &lt;n&gt;]]
+     * --gui [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * Sin salida, el programa se escribe junto a la entrada con extensión .ASM.
+     * Si no hay opciones {@code -D}, los valores se piden por consola como en
+     * el modo gráfico; si las hay, deben cubrir todas las variables. Con
+     * {@code --gui} el archivo se elige en un cuadro de diálogo
+     * ({@link ModoGrafico}); es el único caso en que se cargan AWT y Swing.
+     * Con {@code --cache-disco} el programa se busca primero en una
+     * {@link CacheDisco} de {@code --cache-disco-mb} megabytes (64 por
+     * defecto); como los valores forman parte de la clave, exige opciones
+     * {@code -D}.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @return Código de salida: 0 si se generó el programa, 1 si la expresión
+     *         es inválida, hubo un error de lectura o escritura o no hay
+     *         pantalla para {@code --gui}, y 2 si los argumentos son
+     *         incorrectos.
+     */
+    private static int compilarArchivo(String[] args) {
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        Map<String, Double> valores = new HashMap<>();
+        List<Path> rutas = new ArrayList<>();
+        boolean grafico = false;
+        Path directorioCache = null;
+        long capacidadCache = CacheDisco.CAPACIDAD_PREDETERMINADA;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--gui")) {
+                    grafico = true;
+                } else if (arg.equals("--cache-disco") && i + 1 < args.length) {
+                    directorioCache = Paths.get(args[++i]);
+                } else if (arg.equals("--cache-disco-mb") && i + 1 < args.length) {
+                    capacidadCache = Long.parseLong(args[++i]) << 20;
+                } else if (OpcionesCompilacion.esOpcion(arg)) {
+                    opciones = opciones.aplicar(arg);
+                } else if (arg.startsWith("-D")) {
+                    TablaValores.agregarOpcion(arg, valores);
+                } else if (!arg.startsWith("-") && rutas.size() < 2) {
+                    rutas.add(Paths.get(arg));
+                } else {
+                    throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+                }
+            }
+            if (grafico == !rutas.isEmpty()) {
+                throw new IllegalArgumentException(grafico ? "--gui no admite rutas de archivos"
+                        : "Falta el archivo .txt a compilar");
+            }
+            if (directorioCache != null && (grafico || valores.isEmpty())) {
+                throw new IllegalArgumentException("--cache-disco necesita los valores en opciones -D");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Uso: <archivo.txt> [<salida.ASM>] [-Dvariable=valor]..."
+                    + " [-O | -O0 | --sin-<optimización>...] [--cache-disco <directorio> [--cache-disco-mb <n>]]"
+                    + " | --gui [-O | -O0 | --sin-<optimización>...]"
+                    + " | --lote ... | --evaluar ... | --flujo ... | --ejecutar ... | --servidor ... | --vigilar ...");
+            return 2;
+        }
+        if (grafico) {
+            return ModoGrafico.ejecutar(opciones);
+        }
+
+        Path entrada = rutas.get(0);
+        Path salida = rutas.size() > 1 ? rutas.get(1)
+                : entrada.resolveSibling(entrada.getFileName().toString().replaceFirst("(?i)\\.txt$", "") + ".ASM");
+        String contenido;
+        try {
+            contenido = leerArchivo(entrada);
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+            return 1;
+        }
+        try {
+            if (directorioCache != null) {
+                try (CacheDisco disco = new CacheDisco(directorioCache, capacidadCache)) {
+                    compilar(contenido, opciones, null, disco, valores, salida, true);
+                }
+            } else {
+                compilar(contenido, opciones, valores.isEmpty() ? fuenteConsola() : TablaValores.fuente(valores),
+                        salida, true);
+            }
+            System.out.println(" - Archivo ASM generado exitosamente: " + salida + "\n");
+            return 0;
+        } catch (IllegalArgumentException e) {
+            // El mensaje ya dice qué falló ("La expresión es inválida: ...", "Faltan valores...")
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println(" - Error al generar el archivo ASM: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * @return Una fuente que pide por consola el valor de cada variable.
+     */
+    @SuppressWarnings("ConvertToTryWithResources")
+    static FuenteValores fuenteConsola() {
+        return (variables, variables_neg) -> {
+            Scanner scanner = new Scanner(System.in);
+            Map<String, Double> valores = obtenerValoresDeVariables(variables, variables_neg, scanner);
+            scanner.close();
+            return valores;
+        };
+    }
+
+    /**
+     * Quita de los argumentos la opción {@code --metrics} (o
+     * {@code --metrics=json}) y, si estaba, activa las {@link Metricas} y
+     * muestra su informe en la salida de errores al terminar el programa,
+     * también si se detiene con Ctrl+C.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @return Los argumentos sin la opción.
+     */
+    private static String[] activarMetricas(String[] args) {
+        List<String> resto = new ArrayList<>();
+        String formato = null;
+        for (String arg : args) {
+            if (arg.equals("--metrics") || arg.equals("--metrics=texto") || arg.equals("--metrics=json")) {
+                formato = arg;
+            } else {
+                resto.add(arg);
+            }
+        }
+        if (formato == null) {
+            return args;
+        }
+        Metricas.activar();
+        boolean json = formato.endsWith("json");
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> System.err.println(json ? Metricas.json() : "\n" + Metricas.informe())));
+        return resto.toArray(new String[0]);
+    }
+
+    /**
+     * Lee un archivo de expresiones con la codificación del sistema, midiendo
+     * la fase de lectura.
+     *
+     * @param archivo El archivo .txt.
+     * @return Su contenido.
+     * @throws IOException Si no puede leerse.
+     */
+    static String leerArchivo(Path archivo) throws IOException {
+        Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.LECTURA, 0);
+        String contenido = new String(Files.readAllBytes(archivo));
+        medicion.terminar(contenido.length());
+        return contenido;
+    }
+
+    /**
+     * Fuente de los valores numéricos de las variables de una expresión.
+     */
+    @FunctionalInterface
+    interface FuenteValores {
+        /**
+         * Obtiene el valor de cada variable utilizada en la expresión.
+         * 
+         * @param variables     Conjunto de variables positivas.
+         * @param variables_neg Conjunto de variables que tienen un signo negativo.
+         * @return Un mapa que asocia cada variable con su valor numérico.
+         */
+        Map<String, Double> obtener(Set<String> variables, Set<String> variables_neg);
+    }
+
+    /**
+     * Compila el contenido de un archivo .txt y escribe el programa en un archivo
+     * ASM.
+     * 
+     * @param contenido      El texto leído del archivo.
+     * @param opciones       Optimizaciones a aplicar.
+     * @param fuente         De dónde se obtienen los valores de las variables.
+     * @param archivoSalida  Ruta del archivo ASM a generar.
+     * @param mostrarDetalle true para mostrar en consola la expresión, las
+     *                       operaciones intermedias y el resultado.
+     * @return El resultado numérico de la expresión.
+     * @throws IllegalArgumentException Si la expresión es inválida o faltan
+     *                                  valores.
+     * @throws IOException              Si ocurre un error al escribir el
+     *                                  archivo ASM.
+     */
+    static double compilar(String contenido, OpcionesCompilacion opciones, FuenteValores fuente, Path archivoSalida,
+            boolean mostrarDetalle) throws IOException {
+        return compilar(contenido, opciones, null, fuente, ContextoCompilacion.SalidaASM.archivo(archivoSalida),
+                mostrarDetalle).resultado();
+    }
+
+    /**
+     * Compila el contenido de un archivo .txt: valida la expresión, calcula su
+     * resultado y genera el programa ASM correspondiente. Todo el estado de la
+     * compilación vive en un {@link ContextoCompilacion} propio, por lo que este
+     * método puede llamarse desde varios hilos a la vez. Se aplican las
+     * optimizaciones predeterminadas.
+     * 
+     * @param contenido      El texto leído del archivo.
+     * @param fuente         De dónde se obtienen los valores de las variables.
+     * @param salida         Destino del programa ASM.
+     * @param mostrarDetalle true para mostrar en consola la expresión, las
+     *                       operaciones intermedias y el resultado.
+     * @return El resultado numérico de la expresión.
+     * @throws IllegalArgumentException Si la expresión es inválida o faltan
+     *                                  valores.
+     * @throws IOException              Si ocurre un error al escribir el
+     *                                  programa ASM.
+     */
+    static double compilar(String contenido, FuenteValores fuente, ContextoCompilacion.SalidaASM salida,
+            boolean mostrarDetalle) throws IOException {
+        return compilar(contenido, OpcionesCompilacion.PREDETERMINADAS, null, fuente, salida, mostrarDetalle)
+                .resultado();
+    }
+
+    /**
+     * Compila el contenido de un archivo .txt reutilizando, si es posible, una
+     * expresión ya procesada de la caché: una expresión repetida sólo se evalúa
+     * con los nuevos valores y se emite.
+     * 
+     * <p>
+     * El archivo puede tener varias sentencias, separadas por ';' o por saltos de
+     * línea (ver {@link #separarSentencias}). Cada sentencia puede leer los
+     * resultados de las anteriores, y todas se emiten en un solo programa ASM.
+     * 
+     * @param contenido      El texto leído del archivo.
+     * @param opciones       Optimizaciones a aplicar.
+     * @param cache          Caché de expresiones procesadas, o null para
+     *                       analizar siempre la expresión.
+     * @param fuente         De dónde se obtienen los valores de las variables.
+     * @param salida         Destino del programa ASM.
+     * @param mostrarDetalle true para mostrar en consola la expresión, las
+     *                       operaciones intermedias y el resultado.
+     * @return El contexto del programa, con las sentencias procesadas y sus
+     *         resultados.
+     * @throws IllegalArgumentException Si alguna sentencia es inválida o faltan
+     *                                  valores.
+     * @throws IOException              Si ocurre un error al escribir el
+     *                                  programa ASM.
+     */
+    static ContextoPrograma compilar(String contenido, OpcionesCompilacion opciones, CacheExpresiones cache,
+            FuenteValores fuente, ContextoCompilacion.SalidaASM salida, boolean mostrarDetalle) throws IOException {
+        Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.NORMALIZACION, contenido.length());
+        List<String> sentencias = separarSentencias(contenido);
+        medicion.terminar();
+        if (sentencias.isEmpty()) {
+            sentencias = List.of(""); // Se rechaza al validarla, como un archivo sin sentencias
+        }
+
+        // Validar y procesar todas las sentencias (una sola vez si están en la caché)
+        List<ExpresionCompilada> expresiones = new ArrayList<>();
+        for (String ExpresionAritmetica : sentencias) {
+            // Mostrar la expresión original en la consola
+            if (mostrarDetalle) {
+                System.out.println("\nExpresión Aritmética Original: " + formatearExpresion(ExpresionAritmetica) + "\n");
+            }
+            expresiones.add((cache != null) ? cache.obtener(ExpresionAritmetica, opciones)
+                    : analizar(ExpresionAritmetica, opciones));
+        }
+
+        // Una sola sentencia: la tabla de símbolos es la de la fuente, como siempre
+        if (expresiones.size() == 1) {
+            ExpresionCompilada expresion = expresiones.get(0);
+            Map<String, Double> valoresVariables = fuente.obtener(expresion.variables(), expresion.variables_neg());
+            ContextoCompilacion contexto = new ContextoCompilacion(expresion, valoresVariables, salida);
+            medicion = Metricas.iniciar(Metricas.Fase.EVALUACION, expresion.codigo().size());
+            evaluar(contexto);
+            medicion.terminar();
+            if (mostrarDetalle) {
+                mostrarEvaluacion(contexto);
+            }
+            ContextoPrograma programa = new ContextoPrograma(contexto);
+            generarArchivoASM(programa);
+            return programa;
+        }
+
+        // Las variables de entrada son las que se leen antes de asignarse
+        Set<String> asignadas = new HashSet<>();
+        Set<String> variablesEntrada = new LinkedHashSet<>();
+        Set<String> variablesEntrada_neg = new LinkedHashSet<>();
+        for (ExpresionCompilada expresion : expresiones) {
+            for (String variable : expresion.variables_neg()) {
+                if (asignadas.contains(variable)) {
+                    throw new IllegalArgumentException("La variable '" + variable
+                            + "' se calcula en una sentencia anterior y no puede escribirse como (-" + variable + ")");
+                }
+                variablesEntrada_neg.add(variable);
+            }
+            for (String variable : expresion.variables()) {
+                if (!asignadas.contains(variable)) {
+                    variablesEntrada.add(variable);
+                }
+            }
+            asignadas.add(expresion.variableIzquierda());
+        }
+        Map<String, Double> valoresEntrada = fuente.obtener(variablesEntrada, variablesEntrada_neg);
+
+        // Evaluar cada sentencia con las entradas y los resultados anteriores
+        Map<String, Double> calculadas = new HashMap<>();
+        List<ContextoCompilacion> contextos = new ArrayList<>();
+        for (ExpresionCompilada expresion : expresiones) {
+            Map<String, Double> valoresVariables = new HashMap<>();
+            for (String variable : expresion.variables()) {
+                Double calculada = calculadas.get(variable);
+                valoresVariables.put(variable, calculada != null ? calculada : valoresEntrada.get(variable));
+            }
+            ContextoCompilacion contexto = new ContextoCompilacion(expresion, valoresVariables, null);
+            medicion = Metricas.iniciar(Metricas.Fase.EVALUACION, expresion.codigo().size());
+            calculadas.put(expresion.variableIzquierda(), evaluar(contexto));
+            medicion.terminar();
+            if (mostrarDetalle) {
+                mostrarEvaluacion(contexto);
+            }
+            contextos.add(contexto);
+        }
+
+        // Generar un solo archivo ASM con todas las sentencias
+        ContextoPrograma programa = new ContextoPrograma(contextos, variablesEntrada, valoresEntrada, salida);
+        generarArchivoASM(programa);
+        return programa;
+    }
+
+    /**
+     * Muestra en consola las operaciones intermedias y el resultado de una
+     * sentencia ya evaluada.
+     * 
+     * @param contexto El contexto de la sentencia.
+     */
+    private static void mostrarEvaluacion(ContextoCompilacion contexto) {
+        ExpresionCompilada expresion = contexto.expresion();
+        mostrarEvaluacion(contexto.temporales(), expresion.variableIzquierda(), contexto.resultado(),
+                expresion.informe());
+    }
+
+    private static void mostrarEvaluacion(List<String> temporales, String variableIzquierda, double resultado,
+            InformeOptimizacion informe) {
+        System.out.println();
+        for (String temp : temporales) {
+            System.out.println(temp);
+        }
+        System.out.println("\n - Resultado: " + variableIzquierda + " = " + PuntoFijo.texto(resultado) + "\n");
+        if (!informe.vacio()) {
+            System.out.println(" - " + informe + "\n");
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CACHÉ EN DISCO
+    // ---------------------------------------------------------------------------------
+    /**
+     * Compila el contenido de un archivo .txt consultando primero una
+     * {@link CacheDisco}. Si el programa está en la caché, se copia al archivo
+     * de salida y el resultado se calcula con el código de tres direcciones
+     * guardado, sin validar ni procesar la expresión; la consola muestra lo
+     * mismo que una compilación completa. Si no está, se compila como siempre
+     * y se guarda.
+     *
+     * @param contenido      El texto leído del archivo.
+     * @param opciones       Optimizaciones a aplicar.
+     * @param cache          Caché de expresiones procesadas, o null.
+     * @param disco          Caché en disco.
+     * @param valores        Valores de las variables; forman parte de la clave,
+     *                       así que no pueden pedirse por consola.
+     * @param archivoSalida  Ruta del archivo ASM a generar.
+     * @param mostrarDetalle true para mostrar en consola la expresión, las
+     *                       operaciones intermedias y el resultado.
+     * @return El resultado, el informe de optimización y si hubo acierto.
+     * @throws IllegalArgumentException Si alguna sentencia es inválida o faltan
+     *                                  valores.
+     * @throws IOException              Si ocurre un error al escribir el
+     *                                  programa ASM o la entrada de la caché.
+     */
+    static CacheDisco.Resultado compilar(String contenido, OpcionesCompilacion opciones, CacheExpresiones cache,
+            CacheDisco disco, Map<String, Double> valores, Path archivoSalida, boolean mostrarDetalle)
+            throws IOException {
+        String clave = CacheDisco.clave(separarSentencias(contenido), valores, opciones);
+        CacheDisco.Entrada entrada = disco.obtener(clave);
+        if (entrada != null) {
+            double resultado = reproducir(contenido, entrada, valores, mostrarDetalle);
+            Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.GENERACION, 0);
+            Files.write(archivoSalida, entrada.asm());
+            medicion.terminar(entrada.asm().length);
+            InformeOptimizacion informe = InformeOptimizacion.VACIO;
+            for (CacheDisco.Sentencia sentencia : entrada.sentencias()) {
+                informe = informe.sumar(sentencia.informe());
+            }
+            return new CacheDisco.Resultado(resultado, informe, true);
+        }
+
+        ByteArrayOutputStream asm = new ByteArrayOutputStream();
+        ContextoPrograma programa = compilar(contenido, opciones, cache, TablaValores.fuente(valores),
+                () -> Channels.newChannel(asm), mostrarDetalle);
+        byte[] bytes = asm.toByteArray();
+        Files.write(archivoSalida, bytes);
+        disco.guardar(clave, programa, bytes);
+        return new CacheDisco.Resultado(programa.resultado(), programa.informe(), false);
+    }
+
+    /**
+     * Evalúa las sentencias de una entrada de la caché en disco y, si se pide,
+     * muestra en consola lo mismo que {@link #compilar} al compilarlas.
+     *
+     * @param contenido      El texto leído del archivo.
+     * @param entrada        La entrada de la caché.
+     * @param valores        Valores de las variables de entrada.
+     * @param mostrarDetalle true para mostrar la expresión, las operaciones
+     *                       intermedias y el resultado.
+     * @return El resultado de la última sentencia.
+     * @throws IllegalArgumentException Si falta el valor de alguna variable.
+     */
+    private static double reproducir(String contenido, CacheDisco.Entrada entrada, Map<String, Double> valores,
+            boolean mostrarDetalle) {
+        if (mostrarDetalle) {
+            for (String sentencia : separarSentencias(contenido)) {
+                System.out.println("\nExpresión Aritmética Original: " + formatearExpresion(sentencia) + "\n");
+            }
+        }
+
+        // Las variables de entrada son las que se leen antes de asignarse
+        Set<String> asignadas = new HashSet<>();
+        Set<String> variablesEntrada = new LinkedHashSet<>();
+        Set<String> variablesEntrada_neg = new LinkedHashSet<>();
+        for (CacheDisco.Sentencia sentencia : entrada.sentencias()) {
+            variablesEntrada_neg.addAll(sentencia.variables_neg());
+            for (String variable : sentencia.variables()) {
+                if (!asignadas.contains(variable)) {
+                    variablesEntrada.add(variable);
+                }
+            }
+            asignadas.add(sentencia.variableIzquierda());
+        }
+        Map<String, Double> valoresVariables = new HashMap<>(
+                TablaValores.fuente(valores).obtener(variablesEntrada, variablesEntrada_neg));
+
+        double resultado = Double.NaN;
+        for (CacheDisco.Sentencia sentencia : entrada.sentencias()) {
+            List<String> temporales = new ArrayList<>();
+            for (Instruccion instruccion : sentencia.codigo()) {
+                double b = valorOperando(valoresVariables, instruccion.op2());
+                if (instruccion.operador().equals("MOV")) {
+                    valoresVariables.put(instruccion.op1(), b);
+                    continue;
+                }
+                double valor = calcularResultado(valorOperando(valoresVariables, instruccion.op1()), b,
+                        instruccion.operador());
+                valoresVariables.put(instruccion.destino(), valor);
+                temporales.add(ContextoCompilacion.lineaTemporal(instruccion, valor));
+            }
+            resultado = valoresVariables.get(sentencia.variableIzquierda());
+            if (mostrarDetalle) {
+                mostrarEvaluacion(temporales, sentencia.variableIzquierda(), resultado, sentencia.informe());
+            }
+        }
+        return resultado;
+    }
+
+    // Valor de una variable, de un temporal o de un literal
+    private static double valorOperando(Map<String, Double> valoresVariables, String operando) {
+        Double valor = valoresVariables.get(operando);
+        return valor != null ? valor : Double.parseDouble(operando);
+    }
+
+    /**
+     * Separa el contenido de un archivo en sentencias normalizadas. Las
+     * sentencias se separan con ';' o con saltos de línea; un fragmento sin '='
+     * continúa la sentencia anterior, de modo que una expresión larga puede
+     * ocupar varias líneas.
+     * 
+     * @param contenido El texto leído del archivo.
+     * @return Las sentencias sin espacios y en minúsculas, sin las vacías.
+     */
+    static List<String> separarSentencias(String contenido) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        for (String fragmento : SEPARADOR_SENTENCIAS.split(contenido)) {
+            String normalizado = normalizarExpresion(fragmento);
+            if (normalizado.indexOf('=') >= 0 && actual.indexOf("=") >= 0) {
+                sentencias.add(actual.toString());
+                actual.setLength(0);
+            }
+            actual.append(normalizado);
+        }
+        if (actual.length() > 0) {
+            sentencias.add(actual.toString());
+        }
+        return sentencias;
+    }
+
+    /**
+     * Elimina los espacios de la expresión leída del archivo y la convierte a
+     * minúsculas.
+     * 
+     * @param contenido El texto leído del archivo.
+     * @return La expresión normalizada.
+     */
+    static String normalizarExpresion(String contenido) {
+        return contenido.replaceAll("\\s+", "").toLowerCase();
+    }
+
+    /**
+     * Valida una expresión normalizada, identifica sus variables y la descompone
+     * en instrucciones. El resultado no depende de los valores de las variables,
+     * por lo que puede evaluarse tantas veces como se quiera.
+     * 
+     * @param ExpresionAritmetica La expresión sin espacios y en minúsculas.
+     * @param opciones            Optimizaciones a aplicar.
+     * @return La expresión validada y procesada.
+     * @throws IllegalArgumentException Si la expresión es inválida.
+     */
+    static ExpresionCompilada analizar(String ExpresionAritmetica, OpcionesCompilacion opciones) {
+        // Formatear la expresión para una mejor visualización
+        int caracteres = ExpresionAritmetica.length();
+        Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.FORMATEO, caracteres);
+        String expresionFormateada = formatearExpresion(ExpresionAritmetica);
+        medicion.terminar();
+
+        // Eliminar los signos negativos de variables en la expresión
+        medicion = Metricas.iniciar(Metricas.Fase.VALIDACION, caracteres);
+        String normalizada = ExpresionAritmetica;
+        ExpresionAritmetica = VARIABLE_NEGATIVA.matcher(ExpresionAritmetica).replaceAll("$1");
+
+        // Validar la estructura de la expresión
+        ValidadorExpresion.Violacion violacion = ValidadorExpresion.validar(ExpresionAritmetica);
+        medicion.terminar();
+        if (violacion != null) {
+            violacion = violacion.desplazar(caracteresQuitados(normalizada, violacion.posicion()));
+            throw new IllegalArgumentException(
+                    "La expresión es inválida: " + expresionFormateada + " (" + violacion + ")");
+        }
+        // Identificar la variable de asignación y las variables utilizadas en la
+        // expresión
+        medicion = Metricas.iniciar(Metricas.Fase.VARIABLES, caracteres);
+        String variableIzquierda = identificarVariableIzquierda(ExpresionAritmetica);
+        Set<String> variables = new HashSet<>();
+        Set<String> variables_neg = new HashSet<>();
+        identificarVariables(normalizada, variables, variables_neg);
+        variables.remove(variableIzquierda);
+        medicion.terminar();
+
+        // Procesar la expresión en código de tres direcciones
+        medicion = Metricas.iniciar(Metricas.Fase.PROCESAMIENTO, caracteres);
+        List<Instruccion> codigo = procesarExpresion(ExpresionAritmetica);
+        medicion.terminar();
+        medicion = Metricas.iniciar(Metricas.Fase.OPTIMIZACION, codigo.size());
+        int plegadas = 0;
+        int simplificadas = 0;
+        int eliminadas = 0;
+        int reducidas = 0;
+
+        // Calcular las constantes al compilar y simplificar identidades
+        if (opciones.plegarConstantes()) {
+            PlegadoConstantes.Resultado plegado = PlegadoConstantes.plegar(codigo);
+            codigo = plegado.codigo();
+            plegadas = plegado.plegadas();
+            simplificadas = plegado.simplificadas();
+        }
+
+        // Calcular una sola vez las operaciones repetidas
+        if (opciones.eliminarSubexpresiones()) {
+            EliminadorSubexpresiones.Resultado sinRepetidas = EliminadorSubexpresiones.eliminar(codigo);
+            codigo = sinRepetidas.codigo();
+            eliminadas = sinRepetidas.eliminadas();
+        }
+
+        // Multiplicaciones y divisiones que se escribirán como desplazamientos
+        if (opciones.plegarConstantes()) {
+            for (Instruccion instruccion : codigo) {
+                if (exponenteDesplazamiento(instruccion) > 0) {
+                    reducidas++;
+                }
+            }
+        }
+
+        // Asignar a los temporales sus posiciones en el segmento de datos
+        AsignadorTemporales.Asignacion ranuras = opciones.reutilizarTemporales() ? AsignadorTemporales.asignar(codigo)
+                : AsignadorTemporales.sinReutilizar(codigo);
+
+        // Las instrucciones ASM no dependen de los valores: seleccionarlas y
+        // optimizarlas una vez
+        List<String> instruccionesASM = List.of();
+        int instruccionesEliminadas = 0;
+        int bytesEliminados = 0;
+        int temporalesEnRegistros = 0;
+        if (opciones.asignarRegistros() && SelectorInstrucciones.aplicable(codigo)) {
+            SelectorInstrucciones.Resultado seleccion = SelectorInstrucciones.seleccionar(codigo, ranuras,
+                    opciones.plegarConstantes());
+            instruccionesASM = seleccion.lineas();
+            temporalesEnRegistros = seleccion.temporalesEnRegistros();
+        } else if (opciones.optimizarMirilla()) {
+            instruccionesASM = lineasInstrucciones(codigo, ranuras, opciones.plegarConstantes());
+        }
+        if (opciones.optimizarMirilla()) {
+            OptimizadorMirilla.Resultado mirilla = OptimizadorMirilla.optimizar(instruccionesASM);
+            instruccionesASM = mirilla.lineas();
+            instruccionesEliminadas = mirilla.instruccionesEliminadas();
+            bytesEliminados = mirilla.bytesEliminados();
+        }
+        instruccionesASM = List.copyOf(instruccionesASM);
+
+        InformeOptimizacion informe = new InformeOptimizacion(eliminadas, plegadas, simplificadas, reducidas,
+                instruccionesEliminadas, bytesEliminados, temporalesEnRegistros);
+        // Registrar cada nombre una sola vez, con su número y su tipo
+        TablaSimbolos simbolos = new TablaSimbolos(variableIzquierda, variables, variables_neg, codigo);
+        medicion.terminar();
+        Metricas.registrarExpresion(caracteres, simbolos.contar(TablaSimbolos.Tipo.TEMPORAL), codigo.size());
+
+        return new ExpresionCompilada(expresionFormateada, variableIzquierda, Collections.unmodifiableSet(variables),
+                Collections.unmodifiableSet(variables_neg), Collections.unmodifiableList(codigo), simbolos, ranuras,
+                instruccionesASM, informe, opciones);
+    }
+
+    /**
+     * Formatea la expresión aritmética agregando espacios alrededor de los
+     * operadores y asegurando una correcta visualización.
+     * 
+     * @param expresion La expresión aritmética sin espacios.
+     * @return La expresión formateada con espacios adecuados.
+     */
+    static String formatearExpresion(String expresion) {
+        // Agregar espacios alrededor de los operadores
+        expresion = expresion.replaceAll("(?<=[^\\s+\\-*/=])([+\\-*/=])(?=[^\\s+\\-*/=])", " $1 ");
+
+        // Eliminar espacios en expresiones del tipo "z=( -a)" o "z=( -1)"
+        expresion = expresion.replaceAll("\\(\\s*-\\s*", "(-");
+        return expresion.trim();
+    }
+
+    // ---------------------------------------------------------------------------------
+    // VALIDACIÓN DE LA EXPRESIÓN
+    // ---------------------------------------------------------------------------------
+    /**
+     * Cuenta los caracteres que se quitaron al cambiar "(-a)" por "a" antes de
+     * una posición, para indicar los errores en la expresión que escribió el
+     * usuario.
+     * 
+     * @param expresion La expresión normalizada, con las variables negativas.
+     * @param posicion  Una posición en la expresión sin variables negativas.
+     * @return Cuánto hay que sumar a la posición.
+     */
+    private static int caracteresQuitados(String expresion, int posicion) {
+        int quitados = 0;
+        Matcher m = VARIABLE_NEGATIVA.matcher(expresion);
+        while (m.find()) {
+            int inicio = m.start() - quitados;
+            if (posicion < inicio) {
+                break;
+            }
+            if (posicion < inicio + m.group(1).length()) {
+                return quitados + 2; // Dentro del nombre, después de "(-"
+            }
+            quitados += 3;
+        }
+        return quitados;
+    }
+
+
+    /**
+     * Extrae la variable del lado izquierdo de la asignación en la expresión.
+     * 
+     * @param expresion La expresión aritmética completa.
+     * @return El nombre de la variable a la izquierda del '='.
+     */
+    private static String identificarVariableIzquierda(String expresion) {
+        int idx = expresion.indexOf('=');
+        return (idx != -1) ? expresion.substring(0, idx) : null;
+    }
+
+    /**
+     * Identifica, en una sola pasada del analizador léxico, todas las variables
+     * de la expresión y las que se escriben con signo negativo ("(-a)"), en el
+     * orden en que aparecen.
+     * 
+     * @param expresion     La expresión normalizada, con las variables negativas.
+     * @param variables     Conjunto donde se agregan todas las variables.
+     * @param variables_neg Conjunto donde se agregan las variables negativas.
+     */
+    private static void identificarVariables(String expresion, Set<String> variables, Set<String> variables_neg) {
+        AnalizadorLexico lexico = new AnalizadorLexico(expresion);
+        while (lexico.avanzar() != AnalizadorLexico.TipoToken.FIN) {
+            if (lexico.tipo() == AnalizadorLexico.TipoToken.IDENTIFICADOR) {
+                String variable = lexico.texto();
+                variables.add(variable);
+                int inicio = lexico.inicio();
+                if (expresion.startsWith("(-", inicio - 2)
+                        && expresion.startsWith(")", inicio + variable.length())) {
+                    variables_neg.add(variable);
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PEDIR VALORES PARA LAS VARIABLES DESDE CONSOLA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Solicita al usuario los valores numéricos para cada variable identificada en
+     * la expresión.
+     * 
+     * @param variables     Conjunto de variables positivas.
+     * @param variables_neg Conjunto de variables que tienen un signo negativo.
+     * @param scanner       Objeto Scanner para leer la entrada del usuario.
+     * @return Un mapa que asocia cada variable con su valor numérico
+     *         correspondiente.
+     */
+    private static Map<String, Double> obtenerValoresDeVariables(Set<String> variables, Set<String> variables_neg,
+            Scanner scanner) {
+        Map<String, Double> map = new HashMap<>();
+
+        // Procesar las variables que deben ser negativas
+        for (String var : variables_neg) {
+            while (true) {
+                System.out.print(" * Ingrese el valor de '" + var + "': ");
+                String entrada = scanner.next();
+                try {
+                    double val = Double.parseDouble(entrada);
+                    map.put(var, -val); // Asignar el valor negativo
+                    break;
+                } catch (NumberFormatException ex) {
+                    System.out.println("Error: Solo se permiten números.");
+                }
+            }
+        }
+
+        // Procesar las variables que no tienen signo negativo
+        for (String var : variables) {
+            if (map.containsKey(var))
+                continue; // Omitir esta variable si ya fue asignada como negativa
+
+            while (true) {
+                System.out.print(" * Ingrese el valor de '" + var + "': ");
+                String entrada = scanner.next();
+                try {
+                    double val = Double.parseDouble(entrada);
+                    map.put(var, val); // Asignar el valor positivo
+                    break;
+                } catch (NumberFormatException ex) {
+                    System.out.println("Error: Solo se permiten números.");
+                }
+            }
+        }
+
+        return map;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROCESAR LA EXPRESIÓN Y GENERAR INSTRUCCIONES ASM
+    // ---------------------------------------------------------------------------------
+    /**
+     * Procesa la expresión aritmética, descomponiéndola en operaciones básicas.
+     * La expresión se analiza una sola vez para obtener su código de tres
+     * direcciones; las instrucciones ASM se escriben a partir de él al generar el
+     * archivo.
+     * 
+     * @param expresion La expresión aritmética a procesar.
+     * @return El código de tres direcciones de la expresión.
+     */
+    static List<Instruccion> procesarExpresion(String expresion) {
+        // Numerar los temporales de esta expresión: T1, T2, ...
+        int[] temporalCounter = { 1 };
+        return AnalizadorSintactico.analizar(expresion, () -> "T" + (temporalCounter[0]++));
+    }
+
+    /**
+     * Evalúa la expresión con los valores del contexto. Calcula sobre un arreglo
+     * con un valor por símbolo (ver {@link TablaSimbolos}), guarda en la tabla
+     * de símbolos del contexto el valor de cada temporal y de la variable de
+     * asignación, y registra los valores para mostrar las operaciones
+     * intermedias.
+     * 
+     * @param contexto Contexto con la expresión y los valores de las variables.
+     * @return El valor asignado a la variable de la izquierda.
+     */
+    static double evaluar(ContextoCompilacion contexto) {
+        TablaSimbolos simbolos = contexto.expresion().simbolos();
+        double[] valores = simbolos.valores(contexto.valoresVariables());
+        int[] operaciones = simbolos.operaciones();
+        for (int k = 0; k < operaciones.length; k += 4) {
+            double a = valores[operaciones[k + 1]];
+            double b = valores[operaciones[k + 2]];
+            valores[operaciones[k + 3]] = switch (operaciones[k]) {
+                case TablaSimbolos.MUL -> a * b;
+                case TablaSimbolos.DIV -> a / b;
+                case TablaSimbolos.ADD -> a + b;
+                case TablaSimbolos.SUB -> a - b;
+                default -> b; // MOV
+            };
+        }
+
+        // Los temporales quedan en la tabla del contexto para mostrarse y para el ASM
+        simbolos.publicar(valores, contexto.valoresVariables());
+        contexto.registrarValores(valores);
+        return valores[simbolos.resultado()];
+    }
+
+    /**
+     * Realiza la operación aritmética entre dos operandos.
+     * 
+     * @param a  Primer operando.
+     * @param b  Segundo operando.
+     * @param op Operación a realizar (MUL, DIV, ADD, SUB).
+     * @return El resultado de la operación.
+     */
+    static double calcularResultado(double a, double b, String op) {
+        return switch (op) {
+            case "MUL" -> a * b;
+            case "DIV" -> a / b;
+            case "ADD" -> a + b;
+            case "SUB" -> a - b;
+            default -> throw new IllegalArgumentException("Operador no soportado: " + op);
+        };
+    }
+
+    /**
+     * Escribe las instrucciones ASM correspondientes a una operación aritmética.
+     * Los literales decimales se escriben con punto y coma ("2.5" como "2;5") y
+     * el operando de los decimales se obtiene con
+     * {@link EmisorASM#operandoDecimales}.
+     * 
+     * @param asm         Emisor donde escribir las instrucciones.
+     * @param instruccion La operación (MUL, DIV, ADD, SUB, MOV) y sus operandos.
+     * @param ranuras     Posición asignada a cada temporal.
+     * @param sufijo      Sufijo de las etiquetas, para que no se repitan entre
+     *                    sentencias ("" con una sola).
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void generarInstruccionASM(EmisorASM asm, Instruccion instruccion,
+            AsignadorTemporales.Asignacion ranuras, String sufijo) throws IOException {
+        String op1 = ranuras.nombre(instruccion.op1());
+        String op2 = ranuras.nombre(instruccion.op2());
+        String tempVar = ranuras.nombre(instruccion.destino());
+
+        switch (instruccion.operador()) {
+            case "MUL" -> {
+                asm.texto("\n    ;Multiplicación\n");
+                asm.texto("    MOV AX, ").operando(op1).texto("\n");
+                asm.texto("    MOV BX, ").operando(op2).texto("\n");
+                asm.texto("    CWD\n");
+                asm.texto("    IMUL BX\n");
+                asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+                asm.texto("    ;Multiplicación_D\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op1).texto("\n");
+                asm.texto("    MOV BX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    CWD\n");
+                asm.texto("    IMUL BX\n");
+                asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+            }
+            case "DIV" -> {
+                asm.texto("\n    ;División\n");
+                asm.texto("    MOV AX, ").operando(op1).texto("\n");
+                asm.texto("    XOR DX, DX\n");
+                asm.texto("    MOV BX, ").operando(op2).texto("\n");
+                asm.texto("    CWD\n");
+                asm.texto("    IDIV BX\n");
+                asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+                asm.texto("    ;División_D\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op1).texto("\n");
+                asm.texto("    MOV BX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    CWD\n");
+                asm.texto("    IDIV BX\n");
+                asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+            }
+            case "ADD" -> {
+                asm.texto("\n    ;Suma\n");
+                asm.texto("    MOV AX, ").operando(op1).texto("\n");
+                asm.texto("    ADD AX, ").operando(op2).texto("\n");
+                asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+                asm.texto("    ;Suma_D\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op1).texto("\n");
+                asm.texto("    ADD AX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+            }
+            case "SUB" -> {
+                asm.texto("\n    ;Resta\n");
+                asm.texto("    MOV AX, ").operando(op1).texto("\n");
+                asm.texto("    SUB AX, ").operando(op2).texto("\n");
+                asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+                asm.texto("    ;Resta_D\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op1).texto("\n");
+                asm.texto("    SUB AX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+            }
+            case "MOV" -> {
+                asm.texto("\n    ;Ajuste de decimales\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    CMP AX, 1000\n");
+                asm.texto("    JL Ajuste_Menor").texto(sufijo).texto("\n");
+
+                asm.texto("    ;Ajuste mayor\n");
+                asm.texto("    SUB AX, 1000\n");
+                asm.texto("    MOV ").operandoDecimales(op2).texto(", AX\n");
+                asm.texto("    MOV AX, ").operando(op2).texto("\n");
+                asm.texto("    INC AX ;").operando(op2).texto("++\n");
+                asm.texto("    MOV ").operando(op2).texto(", AX\n");
+                asm.texto("    JMP Fin_Ajuste").texto(sufijo).texto("\n");
+
+                asm.texto("    Ajuste_Menor").texto(sufijo).texto(":\n");
+                asm.texto("    CMP AX, 0\n");
+                asm.texto("    JGE Fin_Ajuste").texto(sufijo).texto("\n");
+                asm.texto("    ADD AX, 1000\n");
+                asm.texto("    MOV ").operandoDecimales(op2).texto(", AX\n");
+                asm.texto("    MOV AX, ").operando(op2).texto("\n");
+                asm.texto("    DEC AX ;").operando(op2).texto("--\n");
+                asm.texto("    MOV ").operando(op2).texto(", AX\n");
+
+                asm.texto("    Fin_Ajuste").texto(sufijo).texto(":\n\n");
+
+                asm.texto("    ;Asignación\n");
+                asm.texto("    MOV AX, ").operando(op2).texto("\n");
+                asm.texto("    MOV ").operando(op1).texto(", AX\n");
+                asm.texto("    ;Asignación_D\n");
+                asm.texto("    MOV AX, ").operandoDecimales(op2).texto("\n");
+                asm.texto("    MOV ").operandoDecimales(op1).texto(", AX");
+            }
+            default -> throw new IllegalArgumentException("Operador no soportado: " + instruccion.operador());
+        }
+    }
+
+    /**
+     * Escribe las instrucciones ASM de todas las operaciones.
+     * 
+     * @param asm            Emisor donde escribir las instrucciones.
+     * @param codigo         Código de tres direcciones de la expresión.
+     * @param ranuras        Posición asignada a cada temporal.
+     * @param desplazamiento Escribir con desplazamientos las multiplicaciones y
+     *                       divisiones por potencias de dos.
+     * @param sufijo         Sufijo de las etiquetas de la sentencia.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    private static void generarInstrucciones(EmisorASM asm, List<Instruccion> codigo,
+            AsignadorTemporales.Asignacion ranuras, boolean desplazamiento, String sufijo) throws IOException {
+        for (Instruccion instruccion : codigo) {
+            generarOperacionASM(asm, instruccion, ranuras, desplazamiento, sufijo);
+        }
+    }
+
+    /**
+     * Escribe las instrucciones ASM de una operación en su propia línea, con un
+     * desplazamiento si es una multiplicación o división por 2^k.
+     * 
+     * @param asm            Emisor donde escribir las instrucciones.
+     * @param instruccion    La operación y sus operandos.
+     * @param ranuras        Posición asignada a cada temporal.
+     * @param desplazamiento Escribir con desplazamientos las multiplicaciones y
+     *                       divisiones por potencias de dos.
+     * @param sufijo         Sufijo de las etiquetas de la sentencia.
+     * @return true si la operación se escribió como un desplazamiento.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static boolean generarOperacionASM(EmisorASM asm, Instruccion instruccion, AsignadorTemporales.Asignacion ranuras,
+            boolean desplazamiento, String sufijo) throws IOException {
+        asm.texto("    ");
+        int exponente = desplazamiento ? exponenteDesplazamiento(instruccion) : 0;
+        if (exponente > 0) {
+            generarDesplazamientoASM(asm, instruccion, exponente, ranuras);
+        } else {
+            generarInstruccionASM(asm, instruccion, ranuras, sufijo);
+        }
+        asm.caracter('\n');
+        return exponente > 0;
+    }
+
+    /**
+     * Genera en memoria las instrucciones ASM de todas las operaciones, una
+     * línea por elemento, para optimizarlas antes de escribir el archivo.
+     * 
+     * @param codigo         Código de tres direcciones de la expresión.
+     * @param ranuras        Posición asignada a cada temporal.
+     * @param desplazamiento Escribir con desplazamientos las multiplicaciones y
+     *                       divisiones por potencias de dos.
+     * @return Las líneas, sin el salto de línea final.
+     */
+    private static List<String> lineasInstrucciones(List<Instruccion> codigo, AsignadorTemporales.Asignacion ranuras,
+            boolean desplazamiento) {
+        ByteArrayOutputStream bufer = new ByteArrayOutputStream();
+        try (EmisorASM asm = new EmisorASM(Channels.newChannel(bufer), StandardCharsets.UTF_8)) {
+            generarInstrucciones(asm, codigo, ranuras, desplazamiento, "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No ocurre al escribir en memoria
+        }
+        String texto = bufer.toString(StandardCharsets.UTF_8);
+        return Arrays.asList(texto.substring(0, texto.length() - 1).split("\n", -1));
+    }
+
+    /**
+     * Indica si una multiplicación o división es por un literal 2^k y puede
+     * escribirse como un desplazamiento de k bits.
+     * 
+     * @param instruccion Una instrucción del código de tres direcciones.
+     * @return El exponente k, o 0 si la instrucción no se puede desplazar.
+     */
+    static int exponenteDesplazamiento(Instruccion instruccion) {
+        int exponente = switch (instruccion.operador()) {
+            case "MUL" -> Math.max(PlegadoConstantes.exponenteDeDos(instruccion.op2()),
+                    PlegadoConstantes.exponenteDeDos(instruccion.op1()));
+            case "DIV" -> PlegadoConstantes.exponenteDeDos(instruccion.op2());
+            default -> -1;
+        };
+        return Math.max(exponente, 0);
+    }
+
+    /**
+     * Escribe una multiplicación o división por 2^k con desplazamientos, que en
+     * el 8086 cuestan unos 8 + 4k ciclos frente a los más de 120 de
+     * {@code IMUL} y 160 de {@code IDIV}. La palabra entera queda igual que con
+     * {@code IMUL}/{@code IDIV}: la división suma 2^k - 1 a los negativos antes
+     * de {@code SAR} para truncar hacia cero. En la palabra de decimales la
+     * multiplicación da 0 (los decimales de un literal entero son 000) y la
+     * división se escribe igual que antes.
+     * 
+     * @param asm         Emisor donde escribir las instrucciones.
+     * @param instruccion La multiplicación o división.
+     * @param exponente   El exponente k de la potencia de dos.
+     * @param ranuras     Posición asignada a cada temporal.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    private static void generarDesplazamientoASM(EmisorASM asm, Instruccion instruccion, int exponente,
+            AsignadorTemporales.Asignacion ranuras) throws IOException {
+        String tempVar = ranuras.nombre(instruccion.destino());
+        if (instruccion.operador().equals("MUL")) {
+            // El operando que no es la potencia de dos
+            String op = ranuras.nombre(PlegadoConstantes.exponenteDeDos(instruccion.op2()) == exponente
+                    ? instruccion.op1()
+                    : instruccion.op2());
+            asm.texto("\n    ;Multiplicación\n");
+            asm.texto("    MOV AX, ").operando(op).texto("\n");
+            desplazar(asm, "SHL", exponente);
+            asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+            asm.texto("    ;Multiplicación_D\n");
+            asm.texto("    XOR AX, AX\n");
+            asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+            return;
+        }
+
+        String op1 = ranuras.nombre(instruccion.op1());
+        String op2 = ranuras.nombre(instruccion.op2());
+        asm.texto("\n    ;División\n");
+        asm.texto("    MOV AX, ").operando(op1).texto("\n");
+        asm.texto("    CWD\n");
+        asm.texto("    AND DX, ").entero((1 << exponente) - 1).texto("\n");
+        asm.texto("    ADD AX, DX\n");
+        desplazar(asm, "SAR", exponente);
+        asm.texto("    MOV ").texto(tempVar).texto(", AX\n");
+        asm.texto("    ;División_D\n");
+        asm.texto("    MOV AX, ").operandoDecimales(op1).texto("\n");
+        asm.texto("    MOV BX, ").operandoDecimales(op2).texto("\n");
+        asm.texto("    CWD\n");
+        asm.texto("    IDIV BX\n");
+        asm.texto("    MOV ").texto(tempVar).texto("_D, AX");
+    }
+
+    /**
+     * Desplaza AX k bits. El 8086 sólo desplaza 1 bit con un inmediato; para más
+     * bits la cuenta va en CL.
+     */
+    private static void desplazar(EmisorASM asm, String instruccion, int exponente) throws IOException {
+        if (exponente == 1) {
+            asm.texto("    ").texto(instruccion).texto(" AX, 1\n");
+        } else {
+            asm.texto("    MOV CL, ").entero(exponente).texto("\n");
+            asm.texto("    ").texto(instruccion).texto(" AX, CL\n");
+        }
+    }
+
+    /**
+     * Genera el archivo ASM de una sola sentencia ya evaluada.
+     * 
+     * @param contexto Contexto de la compilación con la expresión, los valores
+     *                 de las variables y el destino del archivo.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    static void generarArchivoASM(ContextoCompilacion contexto) throws IOException {
+        generarArchivoASM(new ContextoPrograma(contexto));
+    }
+
+    /**
+     * Genera el archivo ASM con las secciones de datos y código, incluyendo las
+     * instrucciones y variables necesarias.
+     * 
+     * <p>
+     * Con varias sentencias, el segmento de datos declara una sola vez cada
+     * variable y temporal, y los datos y etiquetas propios de cada sentencia
+     * llevan el sufijo "_k" (k = 1, 2, ...). Primero se calculan todas las
+     * sentencias y después se imprimen, porque imprimir un resultado escribe en
+     * la memoria de su variable. Con una sola sentencia no hay sufijos y el
+     * programa es el de siempre.
+     * 
+     * @param programa Contexto del programa con las sentencias evaluadas, los
+     *                 valores de entrada y el destino del archivo.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    static void generarArchivoASM(ContextoPrograma programa) throws IOException {
+        Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.GENERACION, 0);
+        List<ContextoCompilacion> sentencias = programa.sentencias();
+        Set<String> variablesEntrada = programa.variablesEntrada();
+        String[] sufijos = new String[sentencias.size()];
+        List<List<String>> textosVariables = new ArrayList<>();
+        for (int k = 0; k < sufijos.length; k++) {
+            sufijos[k] = sufijos.length == 1 ? "" : "_" + (k + 1);
+        }
+
+        EmisorASM asm = new EmisorASM(programa.abrirSalida());
+        try (asm) {
+            // 1) Encabezado del archivo ASM
+            agregarEncabezado(asm);
+
+            // 2) Declarar las variables asignadas y sus decimales (una vez cada una)
+            Set<String> declaradas = new HashSet<>();
+            int numeroRanuras = 0;
+            for (ContextoCompilacion sentencia : sentencias) {
+                String variableIzquierda = sentencia.expresion().variableIzquierda();
+                if (variableIzquierda != null && !variablesEntrada.contains(variableIzquierda)
+                        && declaradas.add(variableIzquierda)) {
+                    asm.texto("    ").texto(variableIzquierda).texto(" DW ?\n");
+                    asm.texto("    ").texto(variableIzquierda).texto("_D DW ? ;Decimales de '")
+                            .texto(variableIzquierda).texto("'\n");
+                }
+                numeroRanuras = Math.max(numeroRanuras, sentencia.expresion().ranuras().numeroRanuras());
+            }
+            if (!declaradas.isEmpty()) {
+                asm.texto("\n");
+            }
+
+            // Declarar las variables de entrada con sus valores
+            for (Map.Entry<String, Double> entry : programa.valoresEntrada().entrySet()) {
+                if (variablesEntrada.contains(entry.getKey())) {
+                    convertirValorASM(asm, entry.getKey(), entry.getValue());
+                }
+            }
+
+            asm.texto("\n");
+
+            // Declarar variables temporales, compartidas por todas las sentencias
+            for (int i = 1; i <= numeroRanuras; i++) {
+                asm.texto("    T").entero(i).texto(" DW ?\n");
+                asm.texto("    T").entero(i).texto("_D DW ? ;Decimales de 'T").entero(i).texto("'\n");
+            }
+
+            // Textos y partes del resultado de cada sentencia
+            Map<String, String> etiquetasTexto = new HashMap<>();
+            for (int k = 0; k < sufijos.length; k++) {
+                textosVariables.add(declararTextosSentencia(asm, sentencias.get(k), sufijos[k], k == 0,
+                        k == sufijos.length - 1, etiquetasTexto));
+            }
+
+            // 3) Segmento de código
+            agregarSegmentoCodigoInicio(asm);
+            imprimirSentenciaASM(asm, sufijos[0], textosVariables.get(0));
+
+            // 4) Incluir las instrucciones ASM generadas, de todas las sentencias
+            for (int k = 0; k < sufijos.length; k++) {
+                ExpresionCompilada expresion = sentencias.get(k).expresion();
+                if (!expresion.instruccionesASM().isEmpty()) {
+                    for (String linea : expresion.instruccionesASM()) {
+                        if (!sufijos[k].isEmpty()) {
+                            linea = ETIQUETA_AJUSTE.matcher(linea).replaceAll("$1" + sufijos[k]);
+                        }
+                        asm.texto(linea).caracter('\n');
+                    }
+                } else {
+                    generarInstrucciones(asm, expresion.codigo(), expresion.ranuras(),
+                            expresion.opciones().plegarConstantes(), sufijos[k]);
+                }
+            }
+
+            // 5) Imprimir el resultado de cada sentencia
+            for (int k = 0; k < sufijos.length; k++) {
+                if (k > 0) {
+                    imprimirSentenciaASM(asm, sufijos[k], textosVariables.get(k));
+                }
+                imprimirResultadoASM(asm, sentencias.get(k).expresion().variableIzquierda(), sufijos[k]);
+            }
+
+            // 6) Finalización del programa ASM
+            asm.texto("    MOV AH, 4Ch\n");
+            asm.texto("    INT 21h\n");
+            asm.texto("END start\n");
+        }
+        medicion.terminar(asm.bytesEscritos());
+        Metricas.contar(Metricas.Contador.LINEAS_ASM, asm.lineas());
+    }
+
+    /**
+     * Declara los datos propios de una sentencia: el texto de la expresión, el de
+     * cada variable y las partes del resultado.
+     * 
+     * @param asm            Emisor donde escribir las declaraciones.
+     * @param sentencia      La sentencia ya evaluada.
+     * @param sufijo         Sufijo de los nombres de la sentencia.
+     * @param primera        true si es la primera sentencia del programa.
+     * @param ultima         true si es la última sentencia del programa.
+     * @param etiquetasTexto Textos de variables ya declarados por otras
+     *                       sentencias, por variable y valor; se completa.
+     * @return Las etiquetas de los textos de las variables, en el orden en que
+     *         se imprimen.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    private static List<String> declararTextosSentencia(EmisorASM asm, ContextoCompilacion sentencia, String sufijo,
+            boolean primera, boolean ultima, Map<String, String> etiquetasTexto) throws IOException {
+        ExpresionCompilada expresion = sentencia.expresion();
+        String variableIzquierda = expresion.variableIzquierda();
+        Set<String> variables_neg = expresion.variables_neg();
+        // El resultado anterior termina sin salto de línea: cada sentencia posterior empieza con uno
+        asm.texto(primera ? "\n" : "").texto("    ExpresionAritmetica").texto(sufijo)
+                .texto(primera ? " DB '" : " DB 0Dh, 0Ah, '")
+                .texto(expresion.expresionFormateada()).texto("', 0Dh, 0Ah, 0Dh, 0Ah, '$'\n");
+
+        // Declarar las variables con sus valores para imprimir (excluyendo temporales y
+        // variableIzquierda); un texto igual de otra sentencia se reutiliza
+        List<String> etiquetas = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : sentencia.valoresVariables().entrySet()) {
+            String nombreVariable = entry.getKey();
+            TablaSimbolos.Tipo tipo = expresion.simbolos().tipo(nombreVariable);
+            if (tipo != TablaSimbolos.Tipo.TEMPORAL && tipo != TablaSimbolos.Tipo.RESULTADO) {
+                double valor = entry.getValue();
+
+                // Verificar si la variable es negativa
+                if (variables_neg.contains(nombreVariable)) {
+                    valor *= -1; // Cambiar el signo del valor
+                }
+
+                String valorFormateado = PuntoFijo.texto(valor);
+                String clave = nombreVariable + " = " + valorFormateado;
+                String etiqueta = etiquetasTexto.get(clave);
+                if (etiqueta == null) {
+                    etiqueta = nombreVariable + "_T";
+                    if (etiquetasTexto.containsValue(etiqueta)) {
+                        etiqueta += sufijo; // La variable cambió de valor desde otra sentencia
+                    }
+                    etiquetasTexto.put(clave, etiqueta);
+                    asm.texto("    ").texto(etiqueta).texto(" DB '  ").texto(clave).texto("', 0Dh, 0Ah, '$'\n");
+                }
+                etiquetas.add(etiqueta);
+            }
+        }
+
+        declararResultadoASM(asm, variableIzquierda, sentencia.resultado(), sufijo, primera, ultima);
+        return etiquetas;
+    }
+
+    /**
+     * Declara las partes del resultado de una sentencia, ya convertidas a texto:
+     * el signo, la parte entera, el punto (sólo en la primera) y los decimales.
+     * 
+     * @param asm               Emisor donde escribir las declaraciones.
+     * @param variableIzquierda La variable asignada por la sentencia.
+     * @param resultadoNumerico El resultado calculado de la sentencia.
+     * @param sufijo            Sufijo de los nombres de la sentencia.
+     * @param primera           true si es la primera sentencia del programa.
+     * @param ultima            true si es la última sentencia del programa.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void declararResultadoASM(EmisorASM asm, String variableIzquierda, double resultadoNumerico,
+            String sufijo, boolean primera, boolean ultima) throws IOException {
+        // Separar el resultado en signo, enteros y milésimas; un resultado que no
+        // es un número válido se escribe 0.0
+        boolean valido = !Double.isNaN(resultadoNumerico) && !Double.isInfinite(resultadoNumerico);
+        char Signo = valido && PuntoFijo.negativo(resultadoNumerico) ? '-' : '+';
+        long enteros = 0;
+        int decimales = 0;
+        String parteEntera = null;
+        if (PuntoFijo.representable(resultadoNumerico)) {
+            long milesimas = Math.abs(PuntoFijo.milesimas(resultadoNumerico));
+            enteros = PuntoFijo.entero(milesimas);
+            decimales = PuntoFijo.decimales(milesimas);
+        } else if (valido) {
+            // Fuera del rango de un int: los dígitos del texto formateado
+            String resultadoFinalJava = String.format(Locale.US, "%.3f", Math.abs(resultadoNumerico));
+            int punto = resultadoFinalJava.indexOf('.');
+            parteEntera = resultadoFinalJava.substring(0, punto);
+            decimales = Integer.parseInt(resultadoFinalJava, punto + 1, resultadoFinalJava.length(), 10);
+        }
+
+        asm.texto("    Resultado").texto(sufijo).texto(" DB 0Dh, 0Ah, '").texto(variableIzquierda)
+                .texto(" = ', '$'\n");
+        asm.texto("    Signo").texto(sufijo).texto(" DB ").entero(Signo);
+        asm.texto(", 5 DUP('$')\n");
+        asm.texto("    Enteros").texto(sufijo).texto(" DB ");
+        if (parteEntera != null) {
+            convertirCadenaADecimal(asm, parteEntera);
+        } else {
+            convertirDigitosADecimal(asm, enteros, valido ? 1 : 3);
+        }
+        asm.texto(", 5 DUP('$')\n");
+        if (primera) {
+            asm.texto("    Punto DB '.', '$'\n");
+        }
+        asm.texto("    Decimales").texto(sufijo).texto(" DB ");
+        convertirDigitosADecimal(asm, decimales, 3);
+        asm.texto(ultima ? ", 5 DUP('$')\n\n" : ", 5 DUP('$')\n");
+    }
+
+    /**
+     * Escribe las instrucciones que imprimen la expresión de una sentencia y los
+     * valores de sus variables.
+     * 
+     * @param asm       Emisor donde escribir las instrucciones.
+     * @param sufijo    Sufijo de los nombres de la sentencia.
+     * @param etiquetas Etiquetas de los textos de las variables.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void imprimirSentenciaASM(EmisorASM asm, String sufijo, List<String> etiquetas)
+            throws IOException {
+        // Instrucciones para imprimir la expresión aritmética
+        asm.texto("    ;Imprimir Expresión Aritmetica\n");
+        asm.texto("    LEA DX, ExpresionAritmetica").texto(sufijo).texto("\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+
+        // Instrucciones para imprimir los valores de las variables
+        asm.texto("    ;Imprimir variables\n");
+        for (String etiqueta : etiquetas) {
+            asm.texto("    LEA DX, ").texto(etiqueta).texto("\n");
+            asm.texto("    MOV AH, 09h\n");
+            asm.texto("    INT 21h\n");
+        }
+    }
+
+    /**
+     * Escribe las instrucciones que imprimen el resultado de una sentencia.
+     * 
+     * @param asm               Emisor donde escribir las instrucciones.
+     * @param variableIzquierda La variable asignada por la sentencia.
+     * @param sufijo            Sufijo de los nombres y etiquetas de la
+     *                          sentencia.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void imprimirResultadoASM(EmisorASM asm, String variableIzquierda, String sufijo)
+            throws IOException {
+        // Imprimir el resultado desde las partes separadas
+        asm.texto("\n    ;Imprimir resultado\n");
+        asm.texto("    LEA DX, Resultado").texto(sufijo).texto("\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+
+        // Determinar el signo de la variable
+        asm.texto("    ;Determinar el signo de '").texto(variableIzquierda).texto("'\n");
+        asm.texto("    MOV AX, ").texto(variableIzquierda).texto("\n");
+        asm.texto("    CMP AX, 0\n");
+        asm.texto("    JL Negativo").texto(sufijo).texto("\n");
+        asm.texto("    MOV BYTE PTR ").texto(variableIzquierda).texto(", '+'\n");
+        asm.texto("    JMP FIN_Signo").texto(sufijo).texto("\n");
+        asm.texto("    Negativo").texto(sufijo).texto(":\n");
+        asm.texto("    MOV BYTE PTR ").texto(variableIzquierda).texto(", '-'\n");
+        asm.texto("    FIN_Signo").texto(sufijo).texto(":\n\n");
+
+        // Imprimir el signo
+        asm.texto("    ;Imprimir signo\n");
+        asm.texto("    LEA DX, Signo").texto(sufijo).texto("\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+
+        // Conversión de la parte entera
+        asm.texto("    ;Conversión de '").texto(variableIzquierda).texto("' a texto (Enteros)\n");
+        asm.texto("    MOV AX, ").texto(variableIzquierda).texto("\n");
+        asm.texto("    MOV CX, 5\n");
+        asm.texto("    LEA DI, ").texto(variableIzquierda).texto("\n");
+        asm.texto("    MOV BX, 10\n\n");
+
+        asm.texto("    LOOP_Enteros").texto(sufijo).texto(":\n");
+        asm.texto("        XOR DX, DX\n");
+        asm.texto("        DIV BX\n");
+        asm.texto("        ADD DL, '0'\n");
+        asm.texto("        DEC DI\n");
+        asm.texto("        MOV [DI], DL\n");
+        asm.texto("        DEC CX\n");
+        asm.texto("        TEST AX, AX\n");
+        asm.texto("        JNZ LOOP_Enteros").texto(sufijo).texto("\n\n");
+        // Imprimir la parte entera
+        asm.texto("    ;Imprimir parte entera\n");
+        asm.texto("    LEA DX, Enteros").texto(sufijo).texto("\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+        // Conversión de la parte decimal
+        asm.texto("    ;Conversión de '").texto(variableIzquierda).texto("_D' a texto (Decimales)\n");
+        asm.texto("    MOV AX, ").texto(variableIzquierda).texto("_D\n");
+        asm.texto("    MOV CX, 5\n");
+        asm.texto("    LEA DI, ").texto(variableIzquierda).texto("_D\n");
+        asm.texto("    MOV BX, 10\n\n");
+        asm.texto("    LOOP_Decimales").texto(sufijo).texto(":\n");
+        asm.texto("        XOR DX, DX\n");
+        asm.texto("        DIV BX\n");
+        asm.texto("        ADD DL, '0'\n");
+        asm.texto("        DEC DI\n");
+        asm.texto("        MOV [DI], DL\n");
+        asm.texto("        DEC CX\n");
+        asm.texto("        TEST AX, AX\n");
+        asm.texto("        JNZ LOOP_Decimales").texto(sufijo).texto("\n\n");
+        // Imprimir el punto
+        asm.texto("    ;Imprimir punto\n");
+        asm.texto("    LEA DX, Punto\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+        // Imprimir la parte decimal
+        asm.texto("    ;Imprimir parte decimal\n");
+        asm.texto("    LEA DX, Decimales").texto(sufijo).texto("\n");
+        asm.texto("    MOV AH, 09h\n");
+        asm.texto("    INT 21h\n\n");
+    }
+
+    /**
+     * Convierte una cadena de caracteres en su representación decimal separada por
+     * comas.
+     * 
+     * @param asm    Emisor donde escribir los valores.
+     * @param cadena La cadena de entrada a convertir.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    private static void convertirCadenaADecimal(EmisorASM asm, String cadena) throws IOException {
+        for (int i = 0; i < cadena.length(); i++) {
+            if (i > 0) {
+                asm.caracter(',');
+            }
+            asm.entero(cadena.charAt(i));
+        }
+    }
+
+    /**
+     * Escribe los códigos de los dígitos decimales de un número separados por
+     * comas, igual que {@link #convertirCadenaADecimal} con el número escrito
+     * como texto, pero sin crear la cadena.
+     * 
+     * @param asm    Emisor donde escribir los valores.
+     * @param numero El número, no negativo.
+     * @param minimo Mínimo de dígitos; se completa con ceros a la izquierda.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    private static void convertirDigitosADecimal(EmisorASM asm, long numero, int minimo) throws IOException {
+        // Potencia de diez del primer dígito a escribir
+        long potencia = 1;
+        for (int digitos = 1; digitos < minimo || potencia <= numero / 10; digitos++) {
+            potencia *= 10;
+        }
+        for (; potencia > 0; potencia /= 10) {
+            asm.entero('0' + (int) (numero / potencia % 10));
+            if (potencia > 1) {
+                asm.caracter(',');
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Agrega el encabezado estándar de un archivo ASM, incluyendo .MODEL y .STACK.
+     * 
+     * @param asm El emisor donde escribir el archivo ASM.
+     * @throws IOException Si ocurre un error al escribir en el archivo.
+     */
+    static void agregarEncabezado(EmisorASM asm) throws IOException {
+        asm.texto(".MODEL SMALL\n");
+        asm.texto(".STACK 100h\n\n");
+        asm.texto(".DATA\n");
+    }
+
+    /**
+     * Agrega la sección de código inicial de un archivo ASM, incluyendo la
+     * inicialización del segmento de datos.
+     * 
+     * @param asm El emisor donde escribir el archivo ASM.
+     * @throws IOException Si ocurre un error al escribir en el archivo.
+     */
+    static void agregarSegmentoCodigoInicio(EmisorASM asm) throws IOException {
+        asm.texto(".CODE\n");
+        asm.texto("start:\n");
+        asm.texto("    MOV AX, @DATA\n");
+        asm.texto("    MOV DS, AX\n\n");
+    }
+
+    /**
+     * Escribe la declaración ASM de una variable con su valor.
+     * 
+     * @param asm      Emisor donde escribir la declaración.
+     * @param variable Nombre de la variable.
+     * @param valor    Valor numérico asociado a la variable.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    static void convertirValorASM(EmisorASM asm, String variable, double valor) throws IOException {
+        int parteEntera;
+        int parteDecimal;
+        if (PuntoFijo.representable(valor)) {
+            // Separar parte entera y decimal en milésimas, con el redondeo de "%.3f"
+            long milesimas = PuntoFijo.milesimas(valor);
+            parteEntera = (int) PuntoFijo.entero(milesimas);
+            parteDecimal = PuntoFijo.decimales(milesimas);
+        } else {
+            // Fuera del rango de un int (o NaN): falla igual que al convertir el texto
+            String resultado = String.format(Locale.US, "%.3f", valor);
+            int punto = resultado.indexOf('.');
+            parteEntera = Integer.parseInt(resultado, 0, punto, 10);
+            parteDecimal = Integer.parseInt(resultado, punto + 1, resultado.length(), 10);
+        }
+        // Generar declaraciones en formato ASM
+        asm.texto("    ").texto(variable).texto(" DW ").entero(parteEntera).texto("\n    ").texto(variable)
+                .texto("_D DW ");
+        if (parteDecimal < 100) {
+            asm.caracter('0');
+        }
+        if (parteDecimal < 10) {
+            asm.caracter('0');
+        }
+        asm.entero(parteDecimal).texto(" ;Decimales de '").texto(variable).texto("'\n");
+    }
+}
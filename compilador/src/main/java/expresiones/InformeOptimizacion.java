@@ -0,0 +1,81 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de lo que las optimizaciones eliminaron de una expresión, para
+ * mostrarlo en consola.
+ *
+ * @param subexpresionesEliminadas Operaciones repetidas que se calculan una
+ *                                 sola vez (ver
+ *                                 {@link EliminadorSubexpresiones}).
+ * @param constantesPlegadas       Operaciones entre literales calculadas al
+ *                                 compilar (ver {@link PlegadoConstantes}).
+ * @param identidadesSimplificadas Operaciones como {@code x-0} reemplazadas
+ *                                 por su operando.
+ * @param operacionesReducidas     Multiplicaciones y divisiones por potencias
+ *                                 de dos escritas como desplazamientos.
+ * @param instruccionesEliminadas  Instrucciones ASM que quitó la mirilla (ver
+ *                                 {@link OptimizadorMirilla}).
+ * @param bytesEliminados          Bytes de código 8086 que ocupaban.
+ * @param temporalesEnRegistros    Temporales que se quedan en registros y
+ *                                 nunca se escriben en memoria (ver
+ *                                 {@link SelectorInstrucciones}).
+ */
+record InformeOptimizacion(int subexpresionesEliminadas, int constantesPlegadas, int identidadesSimplificadas,
+        int operacionesReducidas, int instruccionesEliminadas, int bytesEliminados, int temporalesEnRegistros) {
+    /** Informe de una expresión en la que no se eliminó nada. */
+    static final InformeOptimizacion VACIO = new InformeOptimizacion(0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * @param otro Otro informe.
+     * @return La suma de ambos informes, p. ej. para el total de un lote.
+     */
+    InformeOptimizacion sumar(InformeOptimizacion otro) {
+        return new InformeOptimizacion(subexpresionesEliminadas + otro.subexpresionesEliminadas,
+                constantesPlegadas + otro.constantesPlegadas,
+                identidadesSimplificadas + otro.identidadesSimplificadas,
+                operacionesReducidas + otro.operacionesReducidas,
+                instruccionesEliminadas + otro.instruccionesEliminadas, bytesEliminados + otro.bytesEliminados,
+                temporalesEnRegistros + otro.temporalesEnRegistros);
+    }
+
+    /**
+     * @return true si no se eliminó nada.
+     */
+    boolean vacio() {
+        return equals(VACIO);
+    }
+
+    /**
+     * @return Lo que quitó la mirilla, p. ej. para el detalle de cada archivo.
+     */
+    String mirilla() {
+        return instruccionesEliminadas + " instrucciones ASM (" + bytesEliminados + " bytes) eliminadas";
+    }
+
+    @Override
+    public String toString() {
+        List<String> partes = new ArrayList<>();
+        if (subexpresionesEliminadas > 0) {
+            partes.add(subexpresionesEliminadas + " operaciones repetidas eliminadas");
+        }
+        if (constantesPlegadas > 0) {
+            partes.add(constantesPlegadas + " constantes plegadas");
+        }
+        if (identidadesSimplificadas > 0) {
+            partes.add(identidadesSimplificadas + " identidades simplificadas");
+        }
+        if (operacionesReducidas > 0) {
+            partes.add(operacionesReducidas + " MUL/DIV cambiadas por desplazamientos");
+        }
+        if (instruccionesEliminadas > 0) {
+            partes.add(mirilla());
+        }
+        if (temporalesEnRegistros > 0) {
+            partes.add(temporalesEnRegistros + " temporales en registros");
+        }
+        return "Optimización: " + (partes.isEmpty() ? "sin cambios" : String.join(", ", partes));
+    }
+}
@@ -0,0 +1,45 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instrucción de código de tres direcciones (cuádrupla) producida al analizar
+ * una expresión aritmética. Cada instrucción combina dos operandos con un
+ * operador y guarda el resultado en una variable temporal.
+ *
+ * <p>
+ * Para la asignación final ({@code MOV}) {@code op1} es la variable de la
+ * izquierda, {@code op2} el valor asignado y {@code destino} el temporal
+ * reservado para la operación.
+ *
+ * @param operador Nombre del operador (MUL, DIV, ADD, SUB, MOV).
+ * @param op1      Primer operando (variable, temporal o literal numérico).
+ * @param op2      Segundo operando (variable, temporal o literal numérico).
+ * @param destino  Variable temporal que recibe el resultado.
+ */
+record Instruccion(String operador, String op1, String op2, String destino) {
+    /**
+     * Vuelve a numerar en orden ({@code T1}, {@code T2}, ...) los temporales de
+     * un código al que se le quitaron instrucciones.
+     *
+     * @param codigo Código de tres direcciones.
+     * @return El mismo código con los temporales numerados sin huecos.
+     */
+    static List<Instruccion> renumerarTemporales(List<Instruccion> codigo) {
+        Map<String, String> nombres = new HashMap<>();
+        for (int k = 0; k < codigo.size(); k++) {
+            nombres.put(codigo.get(k).destino(), "T" + (k + 1));
+        }
+        List<Instruccion> resultado = new ArrayList<>(codigo.size());
+        for (Instruccion instruccion : codigo) {
+            resultado.add(new Instruccion(instruccion.operador(),
+                    nombres.getOrDefault(instruccion.op1(), instruccion.op1()),
+                    nombres.getOrDefault(instruccion.op2(), instruccion.op2()),
+                    nombres.get(instruccion.destino())));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,815 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intérprete del subconjunto del 8086 y de DOS que usan los programas ASM
+ * generados: {@code MOV}, {@code ADD}, {@code SUB}, {@code AND}, {@code XOR},
+ * {@code CMP}, {@code TEST}, {@code INC}, {@code DEC}, {@code CWD},
+ * {@code IMUL}, {@code IDIV}, {@code DIV}, {@code SHL}, {@code SAR},
+ * {@code LEA}, {@code JMP}, los saltos condicionales, {@code LOOP} y
+ * {@code INT 21h} con los servicios 02h, 09h y 4Ch.
+ *
+ * <p>
+ * El segmento de datos se carga byte por byte en el orden en que se declara,
+ * desde la posición 0, como lo haría el ensamblador, de modo que también se
+ * reproducen las escrituras que se salen de una variable (la conversión a
+ * texto escribe los dígitos antes de la variable del resultado). Lo que el
+ * programa imprime se guarda en lugar de mostrarse, y una división que el 8086
+ * interrumpe termina el programa con el mensaje de DOS "Divide overflow".
+ * Una línea fuera del subconjunto, o que el ensamblador rechazaría (como el
+ * ajuste de decimales de un literal, {@code MOV -4;5, AX}, que el programa
+ * nunca alcanza), sólo es un error si llega a ejecutarse.
+ *
+ * <p>
+ * Además de ejecutar, cuenta las instrucciones y estima los ciclos con las
+ * tablas de tiempos del 8086 (Intel, <i>iAPX 86/88 User's Manual</i>):
+ * incluye el cálculo de la dirección efectiva, los 4 ciclos de cada palabra
+ * leída o escrita en una dirección impar y, para las instrucciones con un
+ * rango ({@code IMUL}, {@code IDIV}, {@code DIV}), el punto medio. No cuenta
+ * el tiempo de los servicios de DOS ni la cola de instrucciones, por lo que
+ * sirve para comparar dos programas entre sí más que como tiempo real.
+ */
+final class Interprete8086 {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    // Instrucciones que se ejecutan antes de suponer que el programa no termina
+    static final long LIMITE_INSTRUCCIONES = 100_000_000L;
+
+    // Tipos de operando
+    private static final byte REGISTRO = 0;
+    private static final byte SEGMENTO = 1;
+    private static final byte INMEDIATO = 2;
+    private static final byte DIRECTO = 3;
+    private static final byte INDIRECTO = 4;
+    private static final byte ETIQUETA = 5;
+
+    // Registros de 16 bits en el orden de su codificación; los de 8 bits usan el
+    // mismo índice (AL = 0, CL = 1, DL = 2, BL = 3) más 4 para la parte alta
+    private static final List<String> REGISTROS_16 = List.of("AX", "CX", "DX", "BX", "SP", "BP", "SI", "DI");
+    private static final List<String> REGISTROS_8 = List.of("AL", "CL", "DL", "BL", "AH", "CH", "DH", "BH");
+    private static final List<String> SEGMENTOS = List.of("ES", "CS", "SS", "DS");
+    private static final int AX = 0;
+    private static final int CX = 1;
+    private static final int DX = 2;
+
+    /**
+     * Resultado de ejecutar un programa.
+     *
+     * @param salida        Lo que el programa imprimió.
+     * @param instrucciones Instrucciones ejecutadas.
+     * @param ciclos        Ciclos estimados del 8086.
+     * @param codigoSalida  El código de {@code INT 21h/4Ch}, o -1 si el
+     *                      programa no terminó así.
+     * @param error         Por qué se detuvo el programa si no terminó con
+     *                      {@code INT 21h/4Ch} (p. ej. "Divide overflow"), o
+     *                      null.
+     */
+    record Resultado(String salida, long instrucciones, long ciclos, int codigoSalida, String error) {
+    }
+
+    private record Operando(byte tipo, int valor, boolean palabra) {
+    }
+
+    /**
+     * Una instrucción ya leída, con sus ciclos fijos: {@code ciclos} si un
+     * salto no se toma (o para el resto de instrucciones) y {@code ciclosSalto}
+     * si se toma. Una línea que no se pudo leer guarda el motivo en
+     * {@code error} y sólo falla si llega a ejecutarse.
+     */
+    private record Orden(String mnemonico, Operando destino, Operando fuente, int ciclos, int ciclosSalto,
+            int linea, String error) {
+    }
+
+    private final byte[] memoria = new byte[1 << 16];
+    private final Map<String, Integer> etiquetasDatos = new HashMap<>();
+    private final Map<String, Boolean> etiquetasPalabra = new HashMap<>();
+    private final Map<String, Integer> etiquetasCodigo = new HashMap<>();
+    private final List<Orden> programa = new ArrayList<>();
+    private int inicio;
+
+    // Estado de la ejecución
+    private final int[] registros = new int[8];
+    private boolean acarreo;
+    private boolean cero;
+    private boolean signo;
+    private boolean desbordamiento;
+
+    private Interprete8086() {
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CARGA DEL PROGRAMA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Lee un programa ASM.
+     *
+     * @param archivo El archivo ASM.
+     * @return El intérprete con el programa cargado.
+     * @throws IOException              Si ocurre un error al leer el archivo.
+     * @throws IllegalArgumentException Si una declaración de datos no es
+     *                                  válida o no existe la etiqueta de
+     *                                  inicio.
+     */
+    static Interprete8086 cargar(Path archivo) throws IOException {
+        // Latin-1 conserva cada byte del archivo, sea cual sea su codificación
+        return cargar(Files.readAllLines(archivo, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Lee un programa ASM.
+     *
+     * @param lineas Las líneas del programa.
+     * @return El intérprete con el programa cargado.
+     * @throws IllegalArgumentException Si una declaración de datos no es
+     *                                  válida o no existe la etiqueta de
+     *                                  inicio.
+     */
+    static Interprete8086 cargar(List<String> lineas) {
+        Interprete8086 interprete = new Interprete8086();
+        interprete.leer(lineas);
+        return interprete;
+    }
+
+    private void leer(List<String> lineas) {
+        // Primera pasada: datos y etiquetas del código
+        String seccion = "";
+        int posicion = 0;
+        int instrucciones = 0;
+        String etiquetaInicio = null;
+        for (String linea : lineas) {
+            String codigo = quitarComentario(linea).strip();
+            if (codigo.isEmpty()) {
+                continue;
+            }
+            if (codigo.startsWith(".")) {
+                seccion = codigo.toUpperCase();
+            } else if (seccion.equals(".DATA")) {
+                posicion = declarar(codigo, posicion);
+            } else if (seccion.equals(".CODE")) {
+                if (codigo.endsWith(":")) {
+                    etiquetasCodigo.put(codigo.substring(0, codigo.length() - 1).strip(), instrucciones);
+                } else if (esFin(codigo)) {
+                    etiquetaInicio = codigo.substring(3).strip();
+                } else {
+                    instrucciones++;
+                }
+            }
+        }
+
+        // Segunda pasada: instrucciones, ya con todas las etiquetas conocidas
+        seccion = "";
+        for (int i = 0; i < lineas.size(); i++) {
+            String codigo = quitarComentario(lineas.get(i)).strip();
+            if (codigo.startsWith(".")) {
+                seccion = codigo.toUpperCase();
+            } else if (seccion.equals(".CODE") && !codigo.isEmpty() && !codigo.endsWith(":") && !esFin(codigo)) {
+                programa.add(orden(lineas.get(i), i + 1));
+            }
+        }
+        if (etiquetaInicio != null && !etiquetaInicio.isEmpty()) {
+            Integer posicionInicio = etiquetasCodigo.get(etiquetaInicio);
+            if (posicionInicio == null) {
+                throw new IllegalArgumentException("No existe la etiqueta de inicio '" + etiquetaInicio + "'");
+            }
+            inicio = posicionInicio;
+        }
+    }
+
+    /**
+     * Declara una variable del segmento de datos ({@code nombre DB ...} o
+     * {@code nombre DW ...}).
+     *
+     * @return La posición siguiente a la variable.
+     */
+    private int declarar(String codigo, int posicion) {
+        String[] partes = codigo.split("\\s+", 3);
+        if (partes.length < 3 || !(partes[1].equalsIgnoreCase("DB") || partes[1].equalsIgnoreCase("DW"))) {
+            throw new IllegalArgumentException("Declaración no soportada: " + codigo);
+        }
+        boolean palabra = partes[1].equalsIgnoreCase("DW");
+        etiquetasDatos.put(partes[0], posicion);
+        etiquetasPalabra.put(partes[0], palabra);
+        for (String elemento : separarElementos(partes[2])) {
+            posicion = agregarElemento(elemento.strip(), palabra, posicion);
+        }
+        return posicion;
+    }
+
+    private int agregarElemento(String elemento, boolean palabra, int posicion) {
+        int dup = elemento.toUpperCase().indexOf(" DUP");
+        if (dup > 0) {
+            int veces = numero(elemento.substring(0, dup).strip());
+            String repetido = elemento.substring(elemento.indexOf('(', dup) + 1, elemento.lastIndexOf(')')).strip();
+            for (int k = 0; k < veces; k++) {
+                posicion = agregarElemento(repetido, palabra, posicion);
+            }
+            return posicion;
+        }
+        if (elemento.length() >= 2 && elemento.startsWith("'") && elemento.endsWith("'") && !palabra) {
+            for (int k = 1; k < elemento.length() - 1; k++) {
+                memoria[posicion++ & 0xFFFF] = (byte) elemento.charAt(k);
+            }
+            return posicion;
+        }
+        int valor = elemento.equals("?") ? 0 : numero(elemento);
+        memoria[posicion++ & 0xFFFF] = (byte) valor;
+        if (palabra) {
+            memoria[posicion++ & 0xFFFF] = (byte) (valor >> 8);
+        }
+        return posicion;
+    }
+
+    private Orden orden(String linea, int numeroLinea) {
+        OptimizadorMirilla.Operacion op = OptimizadorMirilla.operacion(linea);
+        String mnemonico = op.mnemonico().toUpperCase();
+        try {
+            int esperados = switch (mnemonico) {
+                case "CWD" -> 0;
+                case "INC", "DEC", "IMUL", "IDIV", "DIV", "INT", "LOOP" -> 1;
+                default -> esSalto(mnemonico) ? 1 : 2;
+            };
+            int operandos = op.destino() == null ? 0 : op.fuente() == null ? 1 : 2;
+            if (operandos != esperados) {
+                throw new IllegalArgumentException(mnemonico + " lleva " + esperados + " operandos");
+            }
+            Operando destino = op.destino() != null ? operando(op.destino()) : null;
+            Operando fuente = op.fuente() != null ? operando(op.fuente()) : null;
+            if (destino != null && fuente != null) {
+                // El tamaño lo decide el registro, si hay uno
+                if (fuente.tipo == REGISTRO && destino.tipo != REGISTRO) {
+                    destino = new Operando(destino.tipo, destino.valor, fuente.palabra);
+                } else if (destino.tipo == REGISTRO || destino.tipo == SEGMENTO) {
+                    fuente = new Operando(fuente.tipo, fuente.valor, destino.palabra);
+                }
+            }
+            int[] ciclos = ciclos(mnemonico, destino, fuente);
+            return new Orden(mnemonico, destino, fuente, ciclos[0], ciclos[1], numeroLinea, null);
+        } catch (IllegalArgumentException e) {
+            return new Orden(mnemonico, null, null, 0, 0, numeroLinea,
+                    "Línea " + numeroLinea + ": " + e.getMessage() + ": " + linea.strip());
+        }
+    }
+
+    private Operando operando(String texto) {
+        String t = texto.strip();
+        Boolean palabra = null;
+        String mayusculas = t.toUpperCase();
+        if (mayusculas.startsWith("BYTE PTR ")) {
+            palabra = false;
+            t = t.substring(9).strip();
+        } else if (mayusculas.startsWith("WORD PTR ")) {
+            palabra = true;
+            t = t.substring(9).strip();
+        }
+        mayusculas = t.toUpperCase();
+
+        if (REGISTROS_16.contains(mayusculas)) {
+            return new Operando(REGISTRO, REGISTROS_16.indexOf(mayusculas), true);
+        }
+        if (REGISTROS_8.contains(mayusculas)) {
+            return new Operando(REGISTRO, REGISTROS_8.indexOf(mayusculas), false);
+        }
+        if (SEGMENTOS.contains(mayusculas)) {
+            return new Operando(SEGMENTO, SEGMENTOS.indexOf(mayusculas), true);
+        }
+        if (t.startsWith("[") && t.endsWith("]")) {
+            String base = t.substring(1, t.length() - 1).strip().toUpperCase();
+            if (!List.of("BX", "BP", "SI", "DI").contains(base)) {
+                throw new IllegalArgumentException("Direccionamiento no soportado " + t);
+            }
+            return new Operando(INDIRECTO, REGISTROS_16.indexOf(base), palabra == null || palabra);
+        }
+        if (t.startsWith("@")) {
+            return new Operando(INMEDIATO, 0, true); // Segmento de datos: siempre el mismo
+        }
+        if (t.length() == 3 && t.charAt(0) == '\'' && t.charAt(2) == '\'') {
+            return new Operando(INMEDIATO, t.charAt(1), palabra == null || palabra);
+        }
+        Integer datos = etiquetasDatos.get(t);
+        if (datos != null) {
+            return new Operando(DIRECTO, datos, palabra != null ? palabra : etiquetasPalabra.get(t));
+        }
+        Integer codigo = etiquetasCodigo.get(t);
+        if (codigo != null) {
+            return new Operando(ETIQUETA, codigo, true);
+        }
+        try {
+            return new Operando(INMEDIATO, numero(t), palabra == null || palabra);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Operando desconocido '" + t + "'");
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // TIEMPOS
+    // ---------------------------------------------------------------------------------
+    /**
+     * Ciclos del 8086 de una instrucción según sus operandos.
+     *
+     * @return Los ciclos sin tomar el salto y tomándolo (iguales si no es un
+     *         salto). Los desplazamientos por CL suman 4 por bit al ejecutarse.
+     */
+    private static int[] ciclos(String mnemonico, Operando destino, Operando fuente) {
+        int ciclos = switch (mnemonico) {
+            case "MOV" -> {
+                if (esMemoria(destino) && fuente.tipo == REGISTRO && fuente.valor == AX && destino.tipo == DIRECTO) {
+                    yield 10; // Forma corta del acumulador
+                }
+                if (esMemoria(fuente) && destino.tipo == REGISTRO && destino.valor == AX && fuente.tipo == DIRECTO) {
+                    yield 10;
+                }
+                if (esMemoria(destino)) {
+                    yield (fuente.tipo == INMEDIATO ? 10 : 9) + ea(destino) + impar(destino, 1);
+                }
+                if (esMemoria(fuente)) {
+                    yield 8 + ea(fuente) + impar(fuente, 1);
+                }
+                yield fuente.tipo == INMEDIATO ? 4 : 2;
+            }
+            case "ADD", "SUB", "AND", "XOR", "OR", "ADC", "SBB" -> {
+                if (esMemoria(destino)) {
+                    yield (fuente.tipo == INMEDIATO ? 17 : 16) + ea(destino) + impar(destino, 2);
+                }
+                if (esMemoria(fuente)) {
+                    yield 9 + ea(fuente) + impar(fuente, 1);
+                }
+                yield fuente.tipo == INMEDIATO ? 4 : 3;
+            }
+            case "CMP" -> {
+                if (esMemoria(destino)) {
+                    yield (fuente.tipo == INMEDIATO ? 10 : 9) + ea(destino) + impar(destino, 1);
+                }
+                if (esMemoria(fuente)) {
+                    yield 9 + ea(fuente) + impar(fuente, 1);
+                }
+                yield fuente.tipo == INMEDIATO ? 4 : 3;
+            }
+            case "TEST" -> {
+                if (esMemoria(destino)) {
+                    yield (fuente.tipo == INMEDIATO ? 11 : 9) + ea(destino) + impar(destino, 1);
+                }
+                if (fuente.tipo == INMEDIATO) {
+                    yield destino.valor == AX ? 4 : 5;
+                }
+                yield 3;
+            }
+            case "INC", "DEC" -> esMemoria(destino) ? 15 + ea(destino) + impar(destino, 2) : destino.palabra ? 2 : 3;
+            case "CWD" -> 5;
+            case "IMUL" -> (destino.palabra ? (128 + 154) / 2 : (80 + 98) / 2) + memoria(destino, 6);
+            case "IDIV" -> (destino.palabra ? (165 + 184) / 2 : (101 + 112) / 2) + memoria(destino, 6);
+            case "DIV" -> (destino.palabra ? (144 + 162) / 2 : (80 + 90) / 2) + memoria(destino, 6);
+            case "SHL", "SAL", "SAR", "SHR" -> {
+                boolean uno = fuente.tipo == INMEDIATO && fuente.valor == 1;
+                if (esMemoria(destino)) {
+                    yield (uno ? 15 : 20) + ea(destino) + impar(destino, 2);
+                }
+                yield uno ? 2 : 8;
+            }
+            case "LEA" -> 2 + ea(fuente);
+            case "JMP" -> 15;
+            case "LOOP" -> 5;
+            case "INT" -> 51;
+            default -> {
+                if (esSalto(mnemonico)) {
+                    yield 4;
+                }
+                throw new IllegalArgumentException("Instrucción no soportada " + mnemonico);
+            }
+        };
+        int ciclosSalto = switch (mnemonico) {
+            case "LOOP" -> 17;
+            default -> esSalto(mnemonico) && !mnemonico.equals("JMP") ? 16 : ciclos;
+        };
+        return new int[] { ciclos, ciclosSalto };
+    }
+
+    /**
+     * Ciclos de una instrucción sin cargar ningún programa, para comparar
+     * formas de escribir una operación (ver {@link SelectorInstrucciones}). Lo
+     * que no es un registro ni un número se toma como una variable en una
+     * dirección par.
+     *
+     * @param mnemonico El mnemónico, p. ej. "ADD".
+     * @param destino   El primer operando, o null.
+     * @param fuente    El segundo operando, o null.
+     * @return Los ciclos estimados, sin tomar el salto si es uno.
+     * @throws IllegalArgumentException Si la instrucción no está en el
+     *                                  subconjunto.
+     */
+    static int ciclosEstimados(String mnemonico, String destino, String fuente) {
+        return ciclos(mnemonico, destino != null ? operandoSinPrograma(destino) : null,
+                fuente != null ? operandoSinPrograma(fuente) : null)[0];
+    }
+
+    private static Operando operandoSinPrograma(String texto) {
+        String mayusculas = texto.toUpperCase();
+        if (REGISTROS_16.contains(mayusculas)) {
+            return new Operando(REGISTRO, REGISTROS_16.indexOf(mayusculas), true);
+        }
+        if (REGISTROS_8.contains(mayusculas)) {
+            return new Operando(REGISTRO, REGISTROS_8.indexOf(mayusculas), false);
+        }
+        try {
+            return new Operando(INMEDIATO, numero(texto), true);
+        } catch (NumberFormatException e) {
+            return new Operando(DIRECTO, 0, true);
+        }
+    }
+
+    /** Cálculo de la dirección efectiva: 6 ciclos la directa, 5 la de [registro]. */
+    private static int ea(Operando operando) {
+        return operando.tipo == DIRECTO ? 6 : 5;
+    }
+
+    private static int memoria(Operando operando, int extra) {
+        return esMemoria(operando) ? extra + ea(operando) + impar(operando, 1) : 0;
+    }
+
+    /**
+     * 4 ciclos por cada palabra transferida en una dirección impar conocida al
+     * cargar (las de [registro] se cuentan al ejecutarse).
+     */
+    private static int impar(Operando operando, int transferencias) {
+        return operando.tipo == DIRECTO && operando.palabra && (operando.valor & 1) != 0 ? 4 * transferencias : 0;
+    }
+
+    private static boolean esMemoria(Operando operando) {
+        return operando != null && (operando.tipo == DIRECTO || operando.tipo == INDIRECTO);
+    }
+
+    private static boolean esSalto(String mnemonico) {
+        return mnemonico.startsWith("J");
+    }
+
+    // ---------------------------------------------------------------------------------
+    // EJECUCIÓN
+    // ---------------------------------------------------------------------------------
+    /**
+     * Ejecuta el programa desde su etiqueta de inicio. Cada llamada parte del
+     * segmento de datos tal como quedó la ejecución anterior.
+     *
+     * @return Lo que imprimió, cuántas instrucciones ejecutó y sus ciclos.
+     * @throws IllegalArgumentException Si se alcanza
+     *                                  {@value #LIMITE_INSTRUCCIONES}
+     *                                  instrucciones o se llega a una
+     *                                  instrucción fuera del subconjunto.
+     */
+    Resultado ejecutar() {
+        StringBuilder salida = new StringBuilder();
+        long instrucciones = 0;
+        long ciclos = 0;
+        int i = inicio;
+        while (i < programa.size()) {
+            if (++instrucciones > LIMITE_INSTRUCCIONES) {
+                throw new IllegalArgumentException("El programa no terminó después de " + LIMITE_INSTRUCCIONES
+                        + " instrucciones");
+            }
+            Orden orden = programa.get(i++);
+            if (orden.error != null) {
+                throw new IllegalArgumentException(orden.error);
+            }
+            Operando d = orden.destino;
+            Operando f = orden.fuente;
+            ciclos += orden.ciclos;
+            if (!orden.mnemonico.equals("LEA")) {
+                ciclos += imparIndirecto(d) + imparIndirecto(f);
+            }
+            switch (orden.mnemonico) {
+                case "MOV" -> escribir(d, leer(f));
+                case "LEA" -> escribir(d, direccion(f));
+                case "ADD" -> escribir(d, sumar(leer(d), leer(f), d.palabra, true));
+                case "SUB" -> escribir(d, restar(leer(d), leer(f), d.palabra, true));
+                case "CMP" -> restar(leer(d), leer(f), d.palabra, true);
+                case "INC" -> escribir(d, sumar(leer(d), 1, d.palabra, false));
+                case "DEC" -> escribir(d, restar(leer(d), 1, d.palabra, false));
+                case "AND" -> escribir(d, logica(leer(d) & leer(f), d.palabra));
+                case "OR" -> escribir(d, logica(leer(d) | leer(f), d.palabra));
+                case "XOR" -> escribir(d, logica(leer(d) ^ leer(f), d.palabra));
+                case "TEST" -> logica(leer(d) & leer(f), d.palabra);
+                case "CWD" -> registros[DX] = (registros[AX] & 0x8000) != 0 ? 0xFFFF : 0;
+                case "IMUL" -> multiplicar(leer(d), d.palabra);
+                case "IDIV", "DIV" -> {
+                    if (!dividir(leer(d), d.palabra, orden.mnemonico.equals("IDIV"))) {
+                        salida.append("Divide overflow\r\n");
+                        return new Resultado(salida.toString(), instrucciones, ciclos, -1, "Divide overflow");
+                    }
+                }
+                case "SHL", "SAL", "SHR", "SAR" -> {
+                    int n = leer(f) & 0xFF;
+                    if (f.tipo != INMEDIATO) {
+                        ciclos += 4L * n;
+                    }
+                    escribir(d, desplazar(orden.mnemonico, leer(d), n, d.palabra));
+                }
+                case "JMP" -> i = saltar(d, orden);
+                case "LOOP" -> {
+                    registros[CX] = (registros[CX] - 1) & 0xFFFF;
+                    if (registros[CX] != 0) {
+                        i = saltar(d, orden);
+                        ciclos += orden.ciclosSalto - orden.ciclos;
+                    }
+                }
+                case "INT" -> {
+                    if (leer(d) != 0x21) {
+                        throw new IllegalArgumentException("Línea " + orden.linea + ": interrupción no soportada");
+                    }
+                    int servicio = registros[AX] >> 8;
+                    switch (servicio) {
+                        case 0x02 -> salida.append((char) (registros[DX] & 0xFF));
+                        case 0x09 -> imprimir(salida, registros[DX]);
+                        case 0x4C -> {
+                            return new Resultado(salida.toString(), instrucciones, ciclos, registros[AX] & 0xFF, null);
+                        }
+                        default -> throw new IllegalArgumentException("Línea " + orden.linea
+                                + ": servicio de INT 21h no soportado: AH=" + Integer.toHexString(servicio) + "h");
+                    }
+                }
+                default -> {
+                    if (condicion(orden.mnemonico)) {
+                        i = saltar(d, orden);
+                        ciclos += orden.ciclosSalto - orden.ciclos;
+                    }
+                }
+            }
+        }
+        return new Resultado(salida.toString(), instrucciones, ciclos, -1, "El programa terminó sin INT 21h/4Ch");
+    }
+
+    /**
+     * @param etiqueta Una variable del segmento de datos.
+     * @return La palabra con signo guardada en la variable.
+     * @throws IllegalArgumentException Si la variable no existe.
+     */
+    int palabra(String etiqueta) {
+        Integer posicion = etiquetasDatos.get(etiqueta);
+        if (posicion == null) {
+            throw new IllegalArgumentException("No existe la variable '" + etiqueta + "'");
+        }
+        return (short) leerPalabra(posicion);
+    }
+
+    private int saltar(Operando destino, Orden orden) {
+        if (destino == null || destino.tipo != ETIQUETA) {
+            throw new IllegalArgumentException("Línea " + orden.linea + ": el salto no va a una etiqueta");
+        }
+        return destino.valor;
+    }
+
+    private boolean condicion(String mnemonico) {
+        return switch (mnemonico) {
+            case "JE", "JZ" -> cero;
+            case "JNE", "JNZ" -> !cero;
+            case "JL", "JNGE" -> signo != desbordamiento;
+            case "JGE", "JNL" -> signo == desbordamiento;
+            case "JLE", "JNG" -> cero || signo != desbordamiento;
+            case "JG", "JNLE" -> !cero && signo == desbordamiento;
+            case "JB", "JC", "JNAE" -> acarreo;
+            case "JAE", "JNC", "JNB" -> !acarreo;
+            case "JBE", "JNA" -> acarreo || cero;
+            case "JA", "JNBE" -> !acarreo && !cero;
+            case "JS" -> signo;
+            case "JNS" -> !signo;
+            case "JO" -> desbordamiento;
+            case "JNO" -> !desbordamiento;
+            default -> throw new IllegalArgumentException("Instrucción no soportada " + mnemonico);
+        };
+    }
+
+    private void imprimir(StringBuilder salida, int posicion) {
+        for (int k = 0; k < memoria.length; k++) {
+            char c = (char) (memoria[(posicion + k) & 0xFFFF] & 0xFF);
+            if (c == '$') {
+                return;
+            }
+            salida.append(c);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ARITMÉTICA Y BANDERAS
+    // ---------------------------------------------------------------------------------
+    private int sumar(int a, int b, boolean palabra, boolean cambiaAcarreo) {
+        int mascara = palabra ? 0xFFFF : 0xFF;
+        int r = (a & mascara) + (b & mascara);
+        if (cambiaAcarreo) {
+            acarreo = r > mascara;
+        }
+        desbordamiento = ((a ^ r) & (b ^ r) & bitSigno(palabra)) != 0;
+        return banderas(r & mascara, palabra);
+    }
+
+    private int restar(int a, int b, boolean palabra, boolean cambiaAcarreo) {
+        int mascara = palabra ? 0xFFFF : 0xFF;
+        int r = (a & mascara) - (b & mascara);
+        if (cambiaAcarreo) {
+            acarreo = r < 0;
+        }
+        desbordamiento = ((a ^ b) & (a ^ r) & bitSigno(palabra)) != 0;
+        return banderas(r & mascara, palabra);
+    }
+
+    private int logica(int r, boolean palabra) {
+        acarreo = false;
+        desbordamiento = false;
+        return banderas(r & (palabra ? 0xFFFF : 0xFF), palabra);
+    }
+
+    private int desplazar(String mnemonico, int valor, int n, boolean palabra) {
+        int bits = palabra ? 16 : 8;
+        int mascara = palabra ? 0xFFFF : 0xFF;
+        if (n == 0) {
+            return valor & mascara;
+        }
+        int r;
+        if (mnemonico.equals("SHL") || mnemonico.equals("SAL")) {
+            long ancho = (long) (valor & mascara) << Math.min(n, 32);
+            acarreo = n <= bits && (ancho >> bits & 1) != 0;
+            r = (int) ancho & mascara;
+            desbordamiento = ((r & bitSigno(palabra)) != 0) != acarreo;
+        } else {
+            int conSigno = mnemonico.equals("SAR") ? (palabra ? (short) valor : (byte) valor) : valor & mascara;
+            int k = Math.min(n, 31);
+            acarreo = (conSigno >> (k - 1) & 1) != 0;
+            r = (conSigno >> k) & mascara;
+            desbordamiento = mnemonico.equals("SHR") && (valor & bitSigno(palabra)) != 0 && n == 1;
+        }
+        return banderas(r, palabra);
+    }
+
+    private void multiplicar(int fuente, boolean palabra) {
+        if (palabra) {
+            int r = (short) registros[AX] * (short) fuente;
+            registros[AX] = r & 0xFFFF;
+            registros[DX] = (r >>> 16) & 0xFFFF;
+            acarreo = r != (short) r;
+        } else {
+            int r = (byte) registros[AX] * (byte) fuente;
+            registros[AX] = r & 0xFFFF;
+            acarreo = r != (byte) r;
+        }
+        desbordamiento = acarreo;
+    }
+
+    /**
+     * {@code IDIV} o {@code DIV}.
+     *
+     * @return false si el 8086 interrumpe la división (divisor 0 o cociente que
+     *         no cabe).
+     */
+    private boolean dividir(int fuente, boolean palabra, boolean conSigno) {
+        long dividendo;
+        long divisor;
+        if (palabra) {
+            long dxax = ((long) registros[DX] << 16) | registros[AX];
+            dividendo = conSigno ? (int) dxax : dxax;
+            divisor = conSigno ? (short) fuente : fuente & 0xFFFF;
+        } else {
+            dividendo = conSigno ? (short) registros[AX] : registros[AX];
+            divisor = conSigno ? (byte) fuente : fuente & 0xFF;
+        }
+        if (divisor == 0) {
+            return false;
+        }
+        long cociente = dividendo / divisor;
+        long resto = dividendo % divisor;
+        long minimo = conSigno ? (palabra ? Short.MIN_VALUE : Byte.MIN_VALUE) : 0;
+        long maximo = conSigno ? (palabra ? Short.MAX_VALUE : Byte.MAX_VALUE) : (palabra ? 0xFFFF : 0xFF);
+        if (cociente < minimo || cociente > maximo) {
+            return false;
+        }
+        if (palabra) {
+            registros[AX] = (int) cociente & 0xFFFF;
+            registros[DX] = (int) resto & 0xFFFF;
+        } else {
+            registros[AX] = ((int) resto & 0xFF) << 8 | ((int) cociente & 0xFF);
+        }
+        return true;
+    }
+
+    private int banderas(int r, boolean palabra) {
+        cero = r == 0;
+        signo = (r & bitSigno(palabra)) != 0;
+        return r;
+    }
+
+    private static int bitSigno(boolean palabra) {
+        return palabra ? 0x8000 : 0x80;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // OPERANDOS
+    // ---------------------------------------------------------------------------------
+    private int leer(Operando o) {
+        return switch (o.tipo) {
+            case REGISTRO -> o.palabra ? registros[o.valor]
+                    : o.valor < 4 ? registros[o.valor] & 0xFF : registros[o.valor - 4] >> 8;
+            case SEGMENTO -> 0;
+            case INMEDIATO -> o.palabra ? o.valor & 0xFFFF : o.valor & 0xFF;
+            case DIRECTO, INDIRECTO -> o.palabra ? leerPalabra(direccion(o)) : memoria[direccion(o)] & 0xFF;
+            default -> throw new IllegalArgumentException("Operando no válido");
+        };
+    }
+
+    private void escribir(Operando o, int valor) {
+        switch (o.tipo) {
+            case REGISTRO -> {
+                if (o.palabra) {
+                    registros[o.valor] = valor & 0xFFFF;
+                } else if (o.valor < 4) {
+                    registros[o.valor] = (registros[o.valor] & 0xFF00) | (valor & 0xFF);
+                } else {
+                    registros[o.valor - 4] = (registros[o.valor - 4] & 0x00FF) | ((valor & 0xFF) << 8);
+                }
+            }
+            case SEGMENTO -> {
+                // Un solo segmento: cargar DS no cambia nada
+            }
+            case DIRECTO, INDIRECTO -> {
+                int posicion = direccion(o);
+                memoria[posicion] = (byte) valor;
+                if (o.palabra) {
+                    memoria[(posicion + 1) & 0xFFFF] = (byte) (valor >> 8);
+                }
+            }
+            default -> throw new IllegalArgumentException("No se puede escribir en un inmediato");
+        }
+    }
+
+    private int direccion(Operando o) {
+        return switch (o.tipo) {
+            case DIRECTO -> o.valor & 0xFFFF;
+            case INDIRECTO -> registros[o.valor] & 0xFFFF;
+            default -> throw new IllegalArgumentException("Se esperaba una posición de memoria");
+        };
+    }
+
+    private int leerPalabra(int posicion) {
+        return (memoria[posicion & 0xFFFF] & 0xFF) | (memoria[(posicion + 1) & 0xFFFF] & 0xFF) << 8;
+    }
+
+    /** 4 ciclos si una palabra en [registro] está en una dirección impar. */
+    private int imparIndirecto(Operando o) {
+        return o != null && o.tipo == INDIRECTO && o.palabra && (registros[o.valor] & 1) != 0 ? 4 : 0;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    /** Quita el comentario de una línea, sin cortar un ';' entre comillas. */
+    private static String quitarComentario(String linea) {
+        boolean comillas = false;
+        for (int k = 0; k < linea.length(); k++) {
+            char c = linea.charAt(k);
+            if (c == '\'') {
+                comillas = !comillas;
+            } else if (c == ';' && !comillas) {
+                return linea.substring(0, k);
+            }
+        }
+        return linea;
+    }
+
+    /** Separa los elementos de una declaración por las comas fuera de comillas y paréntesis. */
+    private static List<String> separarElementos(String texto) {
+        List<String> elementos = new ArrayList<>();
+        boolean comillas = false;
+        int parentesis = 0;
+        int desde = 0;
+        for (int k = 0; k < texto.length(); k++) {
+            char c = texto.charAt(k);
+            if (c == '\'') {
+                comillas = !comillas;
+            } else if (!comillas && c == '(') {
+                parentesis++;
+            } else if (!comillas && c == ')') {
+                parentesis--;
+            } else if (!comillas && parentesis == 0 && c == ',') {
+                elementos.add(texto.substring(desde, k));
+                desde = k + 1;
+            }
+        }
+        elementos.add(texto.substring(desde));
+        return elementos;
+    }
+
+    private static boolean esFin(String codigo) {
+        String mayusculas = codigo.toUpperCase();
+        return mayusculas.equals("END") || mayusculas.startsWith("END ");
+    }
+
+    /** Un número decimal ("-12", "048") o hexadecimal ("0Dh"). */
+    private static int numero(String texto) {
+        if (texto.endsWith("h") || texto.endsWith("H")) {
+            return Integer.parseInt(texto.substring(0, texto.length() - 1), 16);
+        }
+        return Integer.parseInt(texto);
+    }
+}
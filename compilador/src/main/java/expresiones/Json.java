@@ -0,0 +1,265 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector mínimo de JSON, suficiente para los archivos de valores y las
+ * peticiones que recibe el compilador. Los objetos se leen como
+ * {@code Map<String, Object>}, los arreglos como {@code List<Object>}, los
+ * números como {@code Double} y los literales como {@code String},
+ * {@code Boolean} o {@code null}. Para las respuestas sólo se escriben cadenas
+ * y números.
+ *
+ * <p>
+ * La lectura es recursiva, así que el anidamiento de objetos y arreglos se
+ * limita a {@link #PROFUNDIDAD_MAXIMA} niveles: un texto más profundo se
+ * rechaza como JSON inválido en lugar de agotar la pila.
+ */
+final class Json {
+    /** Niveles de objetos y arreglos anidados que se admiten. */
+    private static final int PROFUNDIDAD_MAXIMA = 256;
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final String texto;
+    private int posicion;
+    private int profundidad;
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Lee un valor JSON completo.
+     *
+     * @param texto El texto JSON.
+     * @return El valor leído.
+     * @throws IllegalArgumentException Si el texto no es JSON válido.
+     */
+    static Object leer(String texto) {
+        Json lector = new Json(texto);
+        Object valor = lector.leerValor();
+        lector.saltarEspacios();
+        if (lector.posicion != texto.length()) {
+            throw lector.error("contenido después del valor");
+        }
+        return valor;
+    }
+
+    /**
+     * Lee un objeto JSON.
+     *
+     * @param texto El texto JSON.
+     * @return Las propiedades del objeto, en el orden en que aparecen.
+     * @throws IllegalArgumentException Si el texto no es un objeto JSON válido.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> leerObjeto(String texto) {
+        Object valor = leer(texto);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // LECTURA
+    // ---------------------------------------------------------------------------------
+    private Object leerValor() {
+        saltarEspacios();
+        if (posicion >= texto.length()) {
+            throw error("fin inesperado");
+        }
+        char c = texto.charAt(posicion);
+        return switch (c) {
+            case '{', '[' -> leerAnidado(c);
+            case '"' -> leerCadena();
+            case 't' -> leerLiteral("true", Boolean.TRUE);
+            case 'f' -> leerLiteral("false", Boolean.FALSE);
+            case 'n' -> leerLiteral("null", null);
+            default -> leerNumero();
+        };
+    }
+
+    private Object leerAnidado(char apertura) {
+        if (++profundidad > PROFUNDIDAD_MAXIMA) {
+            throw error("más de " + PROFUNDIDAD_MAXIMA + " niveles de anidamiento");
+        }
+        Object valor = apertura == '{' ? leerMapa() : leerLista();
+        profundidad--;
+        return valor;
+    }
+
+    private Map<String, Object> leerMapa() {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir('}')) {
+            return mapa;
+        }
+        do {
+            saltarEspacios();
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("se esperaba el nombre de una propiedad");
+            }
+            String clave = leerCadena();
+            saltarEspacios();
+            if (!consumir(':')) {
+                throw error("se esperaba ':'");
+            }
+            mapa.put(clave, leerValor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw error("se esperaba '}'");
+        }
+        return mapa;
+    }
+
+    private List<Object> leerLista() {
+        List<Object> lista = new ArrayList<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir(']')) {
+            return lista;
+        }
+        do {
+            lista.add(leerValor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw error("se esperaba ']'");
+        }
+        return lista;
+    }
+
+    private String leerCadena() {
+        StringBuilder sb = new StringBuilder();
+        posicion++;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(posicion++);
+            switch (escape) {
+                case '"', '\\', '/' -> sb.append(escape);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (posicion + 4 > texto.length()) {
+                        throw error("secuencia \\u incompleta");
+                    }
+                    sb.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    posicion += 4;
+                }
+                default -> throw error("secuencia de escape no válida");
+            }
+        }
+        throw error("cadena sin cerrar");
+    }
+
+    private Object leerLiteral(String literal, Object valor) {
+        if (!texto.startsWith(literal, posicion)) {
+            throw error("valor no válido");
+        }
+        posicion += literal.length();
+        return valor;
+    }
+
+    private Double leerNumero() {
+        int inicio = posicion;
+        while (posicion < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(posicion)) >= 0) {
+            posicion++;
+        }
+        try {
+            return Double.valueOf(texto.substring(inicio, posicion));
+        } catch (NumberFormatException e) {
+            posicion = inicio;
+            throw error("valor no válido");
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ESCRITURA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Escribe una cadena JSON, con comillas y secuencias de escape.
+     *
+     * @param texto El texto.
+     * @return La cadena JSON, o {@code null} si el texto es null.
+     */
+    static String cadena(String texto) {
+        if (texto == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(texto.length() + 2).append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Escribe un número JSON.
+     *
+     * @param valor El número.
+     * @return El número (sin decimales si es entero), o {@code null} si es
+     *         infinito o NaN (JSON no los admite).
+     */
+    static String numero(double valor) {
+        if (!Double.isFinite(valor)) {
+            return "null";
+        }
+        return valor == Math.rint(valor) && Math.abs(valor) < 1e15 ? Long.toString((long) valor)
+                : Double.toString(valor);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+
+    private boolean consumir(char esperado) {
+        if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + mensaje);
+    }
+}
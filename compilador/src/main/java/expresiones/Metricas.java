@@ -0,0 +1,328 @@
+package expresiones;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de la compilación por fase: cuántas veces se ejecutó cada una, su
+ * duración, los bytes que asignó y el tamaño de lo que procesó, más algunos
+ * contadores (temporales, instrucciones, líneas ASM). Con {@code --metrics}
+ * se muestran al terminar el programa (ver {@link #informe()} y
+ * {@link #json()}).
+ *
+ * <p>
+ * Cada fase se mide con {@link #iniciar} y {@link Medicion#terminar}. Si no
+ * hay nada activo, {@link #iniciar} devuelve siempre el mismo objeto vacío y
+ * la medición no cuesta más que una comparación. Los registros se suman con
+ * {@link LongAdder}, así que pueden medirse compilaciones en varios hilos.
+ *
+ * <p>
+ * Además, si los eventos JFR están activos ({@code --metrics},
+ * {@code -Dexpresiones.jfr=true} o los modos que se quedan en ejecución), cada
+ * fase emite un {@link EventoFase} y cada expresión analizada un
+ * {@link EventoExpresion}, visibles en una grabación de Flight Recorder. No se
+ * activan siempre porque cargar JFR cuesta cientos de milisegundos, más que
+ * una compilación completa desde la línea de comandos.
+ */
+final class Metricas {
+    /**
+     * Fases de la compilación, en el orden en que se ejecutan.
+     */
+    enum Fase {
+        LECTURA("lectura"),
+        NORMALIZACION("normalización"),
+        FORMATEO("formateo"),
+        VALIDACION("validación"),
+        VARIABLES("variables"),
+        PROCESAMIENTO("procesamiento"),
+        OPTIMIZACION("optimización"),
+        EVALUACION("evaluación"),
+        GENERACION("generación ASM");
+
+        private final String nombre;
+
+        Fase(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * @return El nombre de la fase en los informes.
+         */
+        String nombre() {
+            return nombre;
+        }
+    }
+
+    /**
+     * Contadores de lo que produce la compilación.
+     */
+    enum Contador {
+        /** Temporales de las expresiones analizadas. */
+        TEMPORALES("temporales"),
+        /** Instrucciones de tres direcciones de las expresiones analizadas. */
+        INSTRUCCIONES("instrucciones"),
+        /** Líneas escritas en los programas ASM. */
+        LINEAS_ASM("líneas ASM");
+
+        private final String nombre;
+
+        Contador(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    /**
+     * Medición en curso de una fase.
+     */
+    static final class Medicion {
+        private static final Medicion NINGUNA = new Medicion(null, 0, 0, 0, null);
+
+        private final Fase fase;
+        private final long tamano;
+        private final long inicio;
+        private final long bytesInicio;
+        private final EventoFase evento;
+
+        private Medicion(Fase fase, long tamano, long inicio, long bytesInicio, EventoFase evento) {
+            this.fase = fase;
+            this.tamano = tamano;
+            this.inicio = inicio;
+            this.bytesInicio = bytesInicio;
+            this.evento = evento;
+        }
+
+        /**
+         * Termina la medición con el tamaño indicado al iniciarla.
+         */
+        void terminar() {
+            terminar(tamano);
+        }
+
+        /**
+         * Termina la medición con un tamaño que sólo se conoce al final, p. ej.
+         * los bytes escritos.
+         *
+         * @param tamano Tamaño de lo procesado.
+         */
+        void terminar(long tamano) {
+            if (fase == null) {
+                return;
+            }
+            long nanos = System.nanoTime() - inicio;
+            long bytes = bytesInicio >= 0 ? bytesAsignados() - bytesInicio : -1;
+            if (activas) {
+                Registro registro = REGISTROS[fase.ordinal()];
+                registro.llamadas.increment();
+                registro.nanos.add(nanos);
+                registro.tamano.add(tamano);
+                if (bytes >= 0) {
+                    registro.bytes.add(bytes);
+                }
+            }
+            if (evento != null) {
+                evento.fase = fase.nombre();
+                evento.tamano = tamano;
+                evento.bytesAsignados = Math.max(bytes, 0);
+                evento.commit();
+            }
+        }
+    }
+
+    private static final class Registro {
+        final LongAdder llamadas = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder tamano = new LongAdder();
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private static final Registro[] REGISTROS = new Registro[Fase.values().length];
+    private static final LongAdder[] CONTADORES = new LongAdder[Contador.values().length];
+
+    static {
+        for (int i = 0; i < REGISTROS.length; i++) {
+            REGISTROS[i] = new Registro();
+        }
+        for (int i = 0; i < CONTADORES.length; i++) {
+            CONTADORES[i] = new LongAdder();
+        }
+    }
+
+    private static volatile boolean activas;
+    private static volatile boolean jfr = Boolean.getBoolean("expresiones.jfr");
+    private static volatile com.sun.management.ThreadMXBean hilos;
+
+    static {
+        if (jfr) {
+            cargarHilos();
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Activa el registro de métricas y los eventos JFR.
+     */
+    static void activar() {
+        cargarHilos();
+        jfr = true;
+        activas = true;
+    }
+
+    /**
+     * Activa sólo los eventos JFR; sirve a los modos que se quedan en
+     * ejecución, donde el costo de cargar JFR se paga una vez.
+     */
+    static void activarJfr() {
+        cargarHilos();
+        jfr = true;
+    }
+
+    /**
+     * @return true si se están registrando métricas.
+     */
+    static boolean activas() {
+        return activas;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MEDICIÓN
+    // ---------------------------------------------------------------------------------
+    /**
+     * Empieza a medir una fase en el hilo actual.
+     *
+     * @param fase   La fase.
+     * @param tamano Tamaño de su entrada, p. ej. caracteres de la expresión.
+     * @return La medición, que se termina con {@link Medicion#terminar}.
+     */
+    static Medicion iniciar(Fase fase, long tamano) {
+        if (!activas && !jfr) {
+            return Medicion.NINGUNA;
+        }
+        EventoFase evento = null;
+        if (jfr) {
+            evento = new EventoFase();
+            if (evento.isEnabled()) {
+                evento.begin();
+            } else {
+                evento = null;
+            }
+        }
+        if (!activas && evento == null) {
+            return Medicion.NINGUNA;
+        }
+        return new Medicion(fase, tamano, System.nanoTime(), bytesAsignados(), evento);
+    }
+
+    /**
+     * Registra lo que produjo el análisis de una expresión.
+     *
+     * @param caracteres    Longitud de la expresión normalizada.
+     * @param temporales    Temporales de su código.
+     * @param instrucciones Instrucciones de su código de tres direcciones.
+     */
+    static void registrarExpresion(int caracteres, int temporales, int instrucciones) {
+        if (activas) {
+            CONTADORES[Contador.TEMPORALES.ordinal()].add(temporales);
+            CONTADORES[Contador.INSTRUCCIONES.ordinal()].add(instrucciones);
+        }
+        if (jfr) {
+            EventoExpresion evento = new EventoExpresion();
+            if (evento.shouldCommit()) {
+                evento.caracteres = caracteres;
+                evento.temporales = temporales;
+                evento.instrucciones = instrucciones;
+                evento.commit();
+            }
+        }
+    }
+
+    /**
+     * Suma a un contador.
+     *
+     * @param contador El contador.
+     * @param cantidad Lo que se suma.
+     */
+    static void contar(Contador contador, long cantidad) {
+        if (activas) {
+            CONTADORES[contador.ordinal()].add(cantidad);
+        }
+    }
+
+    private static void cargarHilos() {
+        if (hilos == null && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported()) {
+            mx.setThreadAllocatedMemoryEnabled(true);
+            hilos = mx;
+        }
+    }
+
+    // Bytes asignados por el hilo actual, o -1 si la JVM no lo sabe (p. ej. en
+    // un hilo virtual)
+    private static long bytesAsignados() {
+        com.sun.management.ThreadMXBean mx = hilos;
+        return mx != null ? mx.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // INFORMES
+    // ---------------------------------------------------------------------------------
+    /**
+     * @return Una tabla con una fila por fase ejecutada y los contadores, lista
+     *         para mostrarse en consola.
+     */
+    static String informe() {
+        StringBuilder texto = new StringBuilder("Métricas por fase:\n");
+        texto.append(String.format("  %-16s %9s %12s %12s %14s %12s%n", "fase", "llamadas", "total ms", "media µs",
+                "asignado KB", "tamaño"));
+        long totalNanos = 0;
+        for (Fase fase : Fase.values()) {
+            Registro registro = REGISTROS[fase.ordinal()];
+            long llamadas = registro.llamadas.sum();
+            if (llamadas == 0) {
+                continue;
+            }
+            long nanos = registro.nanos.sum();
+            totalNanos += nanos;
+            texto.append(String.format("  %-16s %9d %12.3f %12.1f %14.1f %12d%n", fase.nombre(), llamadas,
+                    nanos / 1e6, nanos / 1e3 / llamadas, registro.bytes.sum() / 1024.0, registro.tamano.sum()));
+        }
+        texto.append(String.format("  %-16s %9s %12.3f%n", "total", "", totalNanos / 1e6));
+        texto.append("Contadores:");
+        for (Contador contador : Contador.values()) {
+            texto.append(' ').append(contador.nombre).append(' ').append(CONTADORES[contador.ordinal()].sum())
+                    .append(contador.ordinal() < CONTADORES.length - 1 ? "," : "");
+        }
+        return texto.toString();
+    }
+
+    /**
+     * @return Las mismas métricas en un objeto JSON de una línea, con los
+     *         tiempos en nanosegundos y los nombres de las constantes (p. ej.
+     *         "generacion", "lineas_asm") para no depender de acentos.
+     */
+    static String json() {
+        StringBuilder texto = new StringBuilder("{\"fases\":[");
+        boolean primera = true;
+        for (Fase fase : Fase.values()) {
+            Registro registro = REGISTROS[fase.ordinal()];
+            if (registro.llamadas.sum() == 0) {
+                continue;
+            }
+            texto.append(primera ? "" : ",").append("{\"fase\":").append(Json.cadena(fase.name().toLowerCase()))
+                    .append(",\"llamadas\":").append(registro.llamadas.sum())
+                    .append(",\"nanosegundos\":").append(registro.nanos.sum())
+                    .append(",\"bytesAsignados\":").append(registro.bytes.sum())
+                    .append(",\"tamano\":").append(registro.tamano.sum()).append('}');
+            primera = false;
+        }
+        texto.append("],\"contadores\":{");
+        for (Contador contador : Contador.values()) {
+            texto.append(contador.ordinal() > 0 ? "," : "").append(Json.cadena(contador.name().toLowerCase())).append(':')
+                    .append(CONTADORES[contador.ordinal()].sum());
+        }
+        return texto.append("}}").toString();
+    }
+}
@@ -0,0 +1,81 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modo de ejecución: corre uno o varios programas ASM con
+ * {@link Interprete8086}, sin emulador de DOS, y muestra lo que imprimen junto
+ * con las instrucciones ejecutadas y los ciclos estimados del 8086. Sirve para
+ * medir si un cambio en la generación de código hace más rápido el programa.
+ */
+final class ModoEjecucion {
+    private ModoEjecucion() {
+    }
+
+    /**
+     * Ejecuta el modo de ejecución.
+     *
+     * <pre>
+     * --ejecutar &lt;archivo.ASM&gt;... [--silencioso]
+     * </pre>
+     *
+     * Con {@code --silencioso} sólo se muestran las cuentas de cada programa.
+     *
+     * @param args Argumentos de la línea de comandos después de "--ejecutar".
+     * @return Código de salida: 0 si todos los programas terminaron con
+     *         {@code INT 21h/4Ch}, 1 si alguno falló o no pudo leerse y 2 si
+     *         los argumentos son incorrectos.
+     */
+    static int ejecutar(String[] args) {
+        List<Path> archivos = new ArrayList<>();
+        boolean silencioso = false;
+        for (String arg : args) {
+            if (arg.equals("--silencioso")) {
+                silencioso = true;
+            } else if (arg.startsWith("--")) {
+                System.err.println("Error: Argumento no reconocido: " + arg);
+                return 2;
+            } else {
+                archivos.add(Paths.get(arg));
+            }
+        }
+        if (archivos.isEmpty()) {
+            System.err.println("Uso: --ejecutar <archivo.ASM>... [--silencioso]");
+            return 2;
+        }
+
+        int errores = 0;
+        long instrucciones = 0;
+        long ciclos = 0;
+        for (Path archivo : archivos) {
+            try {
+                Interprete8086.Resultado resultado = Interprete8086.cargar(archivo).ejecutar();
+                if (!silencioso) {
+                    System.out.print(resultado.salida().replace("\r\n", "\n"));
+                    System.out.println();
+                }
+                System.out.println(" - " + archivo + ": " + resultado.instrucciones() + " instrucciones, "
+                        + resultado.ciclos() + " ciclos estimados"
+                        + (resultado.error() != null ? " (" + resultado.error() + ")" : ""));
+                instrucciones += resultado.instrucciones();
+                ciclos += resultado.ciclos();
+                if (resultado.error() != null) {
+                    errores++;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println(" - Error en " + archivo + ": " + e.getMessage());
+                errores++;
+            }
+        }
+
+        if (archivos.size() > 1) {
+            System.out.println("\nProgramas: " + archivos.size() + ", con errores: " + errores + " ("
+                    + instrucciones + " instrucciones, " + ciclos + " ciclos estimados)");
+        }
+        return errores == 0 ? 0 : 1;
+    }
+}
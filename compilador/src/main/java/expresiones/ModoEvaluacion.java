@@ -0,0 +1,286 @@
+package expresiones;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modo de evaluación: valida y procesa una expresión una sola vez y la evalúa
+ * con cada fila de un archivo de valores, sin pedir datos por consola. El
+ * archivo debe tener una sola sentencia (puede ocupar varias líneas); los
+ * evaluadores de este modo trabajan sobre una expresión, no sobre un programa.
+ *
+ * <p>
+ * Para cada fila se muestra el resultado y, si se indica un directorio con
+ * {@code --asm}, se genera un archivo ASM propio ({@code nombre_1.ASM},
+ * {@code nombre_2.ASM}, ...).
+ *
+ * <p>
+ * Con {@code --columnar} las filas se pasan a un arreglo {@code double[]} por
+ * variable y se evalúan todas juntas con {@link EvaluadorColumnar}, sin mapas
+ * ni objetos por fila; los resultados pueden escribirse en un archivo con
+ * {@code --resultados}.
+ *
+ * <p>
+ * Con {@code --punto-fijo} el resultado de cada fila es el que calcula el
+ * programa ASM en el 8086, con {@link EvaluadorPuntoFijo}, en lugar del
+ * cálculo en {@code double}; una fila en la que el programa fallaría (p. ej.
+ * al dividir los decimales entre 000) se informa como error.
+ *
+ * <p>
+ * Con {@code --compilado} la expresión se traduce a una clase de la JVM con
+ * {@link EvaluadorBytecode} y cada fila se calcula con ella en lugar de
+ * recorrer el código de tres direcciones; el resultado es el mismo.
+ */
+final class ModoEvaluacion {
+    private ModoEvaluacion() {
+    }
+
+    /**
+     * Ejecuta el modo de evaluación.
+     *
+     * <pre>
+     * --evaluar &lt;archivo.txt&gt; [--valores &lt;archivo&gt;] [-Dvariable=valor]... [--asm &lt;directorio&gt;]
+     *           [--columnar [--resultados &lt;archivo&gt;] | --punto-fijo | --compilado]
+     *           [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * Las opciones {@code -D} aportan valores comunes a todas las filas; si una
+     * fila define la misma variable, prevalece el valor de la fila.
+     *
+     * @param args Argumentos de la línea de comandos después de "--evaluar".
+     * @return Código de salida: 0 si todas las filas se evaluaron, 1 si hubo
+     *         errores y 2 si los argumentos o la expresión son incorrectos.
+     */
+    static int ejecutar(String[] args) {
+        Path archivoExpresion = null;
+        Path archivoValores = null;
+        Path directorioASM = null;
+        Path archivoResultados = null;
+        boolean columnar = false;
+        boolean puntoFijo = false;
+        boolean compilado = false;
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        Map<String, Double> valoresComunes = new HashMap<>();
+        List<Map<String, Double>> filas;
+        ExpresionCompilada expresion;
+        EvaluadorBytecode evaluadorCompilado = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--valores") && i + 1 < args.length) {
+                    archivoValores = Paths.get(args[++i]);
+                } else if (args[i].equals("--asm") && i + 1 < args.length) {
+                    directorioASM = Paths.get(args[++i]);
+                } else if (args[i].equals("--resultados") && i + 1 < args.length) {
+                    archivoResultados = Paths.get(args[++i]);
+                } else if (args[i].equals("--columnar")) {
+                    columnar = true;
+                } else if (args[i].equals("--punto-fijo")) {
+                    puntoFijo = true;
+                } else if (args[i].equals("--compilado")) {
+                    compilado = true;
+                } else if (OpcionesCompilacion.esOpcion(args[i])) {
+                    opciones = opciones.aplicar(args[i]);
+                } else if (args[i].startsWith("-D")) {
+                    TablaValores.agregarOpcion(args[i], valoresComunes);
+                } else if (archivoExpresion == null) {
+                    archivoExpresion = Paths.get(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Argumento no reconocido: " + args[i]);
+                }
+            }
+            if (archivoExpresion == null) {
+                System.err.println("Uso: --evaluar <archivo.txt> [--valores <archivo>] [-Dvariable=valor]..."
+                        + " [--asm <directorio>] [--columnar [--resultados <archivo>] | --punto-fijo | --compilado]"
+                        + " [-O0 | --sin-<optimización>...]");
+                return 2;
+            }
+            if (columnar && directorioASM != null) {
+                throw new IllegalArgumentException("--columnar no genera archivos ASM; quite la opción --asm");
+            }
+            if (columnar && puntoFijo) {
+                throw new IllegalArgumentException("--columnar calcula en double; quite la opción --punto-fijo");
+            }
+            if (columnar && compilado) {
+                throw new IllegalArgumentException(
+                        "--columnar no usa el evaluador compilado; quite la opción --compilado");
+            }
+            if (puntoFijo && compilado) {
+                throw new IllegalArgumentException("--punto-fijo calcula como el 8086; quite la opción --compilado");
+            }
+            if (!columnar && archivoResultados != null) {
+                throw new IllegalArgumentException("--resultados sólo se usa junto con --columnar");
+            }
+
+            // Validar y procesar la expresión una sola vez
+            String contenido = ExpresionesAritmeticasASM.leerArchivo(archivoExpresion);
+            List<String> sentencias = ExpresionesAritmeticasASM.separarSentencias(contenido);
+            if (sentencias.size() > 1) {
+                throw new IllegalArgumentException("--evaluar admite una sola sentencia y " + archivoExpresion
+                        + " tiene " + sentencias.size() + "; use --lote para compilar archivos con varias");
+            }
+            expresion = ExpresionesAritmeticasASM.analizar(sentencias.isEmpty() ? "" : sentencias.get(0), opciones);
+            if (compilado) {
+                evaluadorCompilado = new EvaluadorBytecode(expresion);
+            }
+
+            filas = archivoValores != null ? TablaValores.leer(archivoValores) : List.of(Map.of());
+            if (directorioASM != null) {
+                Files.createDirectories(directorioASM);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 2;
+        }
+        if (columnar) {
+            return evaluarColumnas(expresion, filas, valoresComunes, archivoResultados);
+        }
+
+        // Evaluar la expresión con cada fila de valores
+        EvaluadorPuntoFijo evaluador = puntoFijo ? new EvaluadorPuntoFijo(expresion) : null;
+        long inicio = System.nanoTime();
+        String nombreBase = nombreBase(archivoExpresion);
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            int numeroFila = i + 1;
+            Map<String, Double> fila = new HashMap<>(valoresComunes);
+            fila.putAll(filas.get(i));
+            try {
+                Map<String, Double> valoresVariables = TablaValores.fuente(fila).obtener(expresion.variables(),
+                        expresion.variables_neg());
+                Path archivoASM = directorioASM == null ? null
+                        : directorioASM.resolve(filas.size() == 1 ? nombreBase + ".ASM"
+                                : nombreBase + "_" + numeroFila + ".ASM");
+                ContextoCompilacion contexto = new ContextoCompilacion(expresion, valoresVariables,
+                        archivoASM != null ? ContextoCompilacion.SalidaASM.archivo(archivoASM) : null);
+                String resultado = null;
+                if (evaluador != null) {
+                    resultado = PuntoFijo.texto(evaluador.evaluar(valoresVariables));
+                } else if (evaluadorCompilado != null) {
+                    resultado = PuntoFijo.texto(evaluadorCompilado.evaluar(valoresVariables));
+                }
+                if (resultado == null || archivoASM != null) {
+                    double valor = ExpresionesAritmeticasASM.evaluar(contexto);
+                    if (archivoASM != null) {
+                        ExpresionesAritmeticasASM.generarArchivoASM(contexto);
+                    }
+                    if (resultado == null) {
+                        resultado = PuntoFijo.texto(valor);
+                    }
+                }
+                System.out.println(" - Fila " + numeroFila + ": " + expresion.variableIzquierda() + " = "
+                        + resultado
+                        + (archivoASM != null ? " -> " + archivoASM : ""));
+            } catch (IOException | RuntimeException e) {
+                errores.add(" - Error en la fila " + numeroFila + ": " + e.getMessage());
+            }
+        }
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Resumen de la evaluación
+        for (String error : errores) {
+            System.err.println(error);
+        }
+        System.out.println("\nFilas evaluadas: " + (filas.size() - errores.size()) + ", con errores: "
+                + errores.size() + " (" + milisegundos + " ms)");
+        if (!expresion.informe().vacio()) {
+            System.out.println(expresion.informe());
+        }
+        return errores.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Evalúa todas las filas con el evaluador por columnas. Las filas a las que
+     * les falta algún valor se informan como errores y no se evalúan.
+     *
+     * @param expresion         La expresión validada y procesada.
+     * @param filas             Las filas de valores.
+     * @param valoresComunes    Valores de la línea de comandos.
+     * @param archivoResultados Archivo donde escribir los resultados, o null para
+     *                          mostrarlos en consola.
+     * @return Código de salida: 0 si todas las filas se evaluaron, 1 si hubo
+     *         errores.
+     */
+    private static int evaluarColumnas(ExpresionCompilada expresion, List<Map<String, Double>> filas,
+            Map<String, Double> valoresComunes, Path archivoResultados) {
+        Set<String> nombres = new LinkedHashSet<>(expresion.variables());
+        nombres.addAll(expresion.variables_neg());
+        List<String> variables = new ArrayList<>(nombres);
+        double[][] columnas = new double[variables.size()][filas.size()];
+        int[] numerosFila = new int[filas.size()];
+        List<String> errores = new ArrayList<>();
+
+        // Pasar las filas completas a columnas
+        int completas = 0;
+        for (int i = 0; i < filas.size(); i++) {
+            Map<String, Double> fila = filas.get(i);
+            List<String> faltantes = new ArrayList<>();
+            for (int v = 0; v < variables.size(); v++) {
+                Double valor = fila.getOrDefault(variables.get(v), valoresComunes.get(variables.get(v)));
+                if (valor == null) {
+                    faltantes.add(variables.get(v));
+                } else {
+                    columnas[v][completas] = valor;
+                }
+            }
+            if (faltantes.isEmpty()) {
+                numerosFila[completas++] = i + 1;
+            } else {
+                faltantes.sort(null);
+                errores.add(" - Error en la fila " + (i + 1) + ": Faltan valores para las variables " + faltantes);
+            }
+        }
+
+        long inicio = System.nanoTime();
+        double[] resultados = new double[completas];
+        new EvaluadorColumnar(expresion, variables).evaluar(columnas, resultados, completas);
+        long nanosegundos = System.nanoTime() - inicio;
+
+        try {
+            if (archivoResultados != null) {
+                try (Writer writer = new BufferedWriter(new FileWriter(archivoResultados.toFile()))) {
+                    writer.write("fila," + expresion.variableIzquierda() + "\n");
+                    for (int i = 0; i < completas; i++) {
+                        writer.write(numerosFila[i] + "," + resultados[i] + "\n");
+                    }
+                }
+            } else {
+                for (int i = 0; i < completas; i++) {
+                    System.out.println(" - Fila " + numerosFila[i] + ": " + expresion.variableIzquierda() + " = "
+                            + PuntoFijo.texto(resultados[i]));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al escribir los resultados: " + e.getMessage());
+            return 1;
+        }
+
+        // Resumen de la evaluación
+        for (String error : errores) {
+            System.err.println(error);
+        }
+        System.out.println("\nFilas evaluadas: " + completas + ", con errores: " + errores.size() + " ("
+                + nanosegundos / 1_000_000 + " ms"
+                + (nanosegundos > 0 ? ", " + (long) (completas * 1e9 / nanosegundos) + " filas/s" : "") + ")");
+        if (!expresion.informe().vacio()) {
+            System.out.println(expresion.informe());
+        }
+        return errores.isEmpty() ? 0 : 1;
+    }
+
+    private static String nombreBase(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(0, punto) : nombre;
+    }
+}
@@ -0,0 +1,653 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modo de flujo: compila archivos de expresión muy grandes (cientos de MB) con
+ * memoria acotada, sin cargar el archivo ni la expresión en el heap.
+ *
+ * <p>
+ * El archivo se lee por bloques de {@value #BLOQUE} bytes y se normaliza a un
+ * archivo temporal (sin espacios, en minúsculas y con las variables "(-a)"
+ * reemplazadas por su nombre). Ese archivo se recorre proyectado en memoria
+ * ({@link FileChannel#map}): una pasada lo valida, otra identifica sus
+ * variables y la última lo analiza con una pila de operadores, escribiendo y
+ * evaluando cada operación en cuanto se conocen sus dos operandos. Las
+ * instrucciones van a otro archivo temporal que se copia al programa ASM una
+ * vez declarados los datos. La memoria ocupada es proporcional a la
+ * profundidad de los paréntesis y al número de variables distintas, no al
+ * tamaño del archivo.
+ *
+ * <p>
+ * La jerarquía de operadores es la de siempre y el resultado es el mismo, pero
+ * las operaciones se escriben en el orden en que se completan y no nivel por
+ * nivel, por lo que el programa no es idéntico al del modo normal. No se
+ * eliminan subexpresiones ni se aplican la optimización de mirilla ni la
+ * asignación de registros, que necesitan el código completo; sí se usan
+ * desplazamientos para las potencias de dos. El archivo debe tener una sola sentencia.
+ */
+final class ModoFlujo {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private static final int BLOQUE = 1 << 16;
+    private static final String[] NOMBRES_OPERADORES = { "MUL", "DIV", "ADD", "SUB" };
+    // Marca de un '(' en la pila de operadores
+    private static final byte PARENTESIS = -1;
+    // Los temporales se nombran directamente con su ranura
+    private static final AsignadorTemporales.Asignacion SIN_RANURAS = new AsignadorTemporales.Asignacion(Map.of(),
+            0);
+
+    private ModoFlujo() {
+    }
+
+    /**
+     * Resultado de compilar un archivo en modo de flujo.
+     *
+     * @param variableIzquierda La variable asignada.
+     * @param resultado         Su valor.
+     * @param operaciones       Número de operaciones escritas.
+     * @param ranuras           Número de temporales declarados.
+     * @param informe           Lo que las optimizaciones eliminaron.
+     */
+    record Resultado(String variableIzquierda, double resultado, long operaciones, int ranuras,
+            InformeOptimizacion informe) {
+    }
+
+    /**
+     * Ejecuta el modo de flujo.
+     *
+     * <pre>
+     * --flujo &lt;archivo.txt&gt; [--salida &lt;archivo.ASM&gt;] [-Dvariable=valor]... [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * Sin {@code --salida}, el programa se escribe junto al archivo de entrada
+     * con extensión {@code .ASM}.
+     *
+     * @param args Argumentos de la línea de comandos después de "--flujo".
+     * @return Código de salida: 0 si se compiló, 1 si la expresión es inválida o
+     *         no pudo escribirse el programa y 2 si los argumentos son
+     *         incorrectos.
+     */
+    static int ejecutar(String[] args) {
+        Path entrada = null;
+        Path salida = null;
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        Map<String, Double> valores = new HashMap<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--salida") && i + 1 < args.length) {
+                    salida = Paths.get(args[++i]);
+                } else if (OpcionesCompilacion.esOpcion(args[i])) {
+                    opciones = opciones.aplicar(args[i]);
+                } else if (args[i].startsWith("-D")) {
+                    TablaValores.agregarOpcion(args[i], valores);
+                } else if (entrada == null) {
+                    entrada = Paths.get(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Argumento no reconocido: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 2;
+        }
+        if (entrada == null) {
+            System.err.println("Uso: --flujo <archivo.txt> [--salida <archivo.ASM>] [-Dvariable=valor]..."
+                    + " [-O0 | --sin-<optimización>...]");
+            return 2;
+        }
+        if (salida == null) {
+            String nombre = entrada.getFileName().toString();
+            int punto = nombre.lastIndexOf('.');
+            salida = entrada.resolveSibling((punto > 0 ? nombre.substring(0, punto) : nombre) + ".ASM");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            Resultado resultado = compilar(entrada, salida, TablaValores.fuente(valores), opciones);
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+            System.out.println(" - " + entrada + " -> " + salida + " (" + resultado.variableIzquierda() + " = "
+                    + PuntoFijo.texto(resultado.resultado()) + ", " + resultado.operaciones()
+                    + " operaciones, " + resultado.ranuras() + " temporales, " + milisegundos + " ms)");
+            if (!resultado.informe().vacio()) {
+                System.out.println(resultado.informe());
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println(" - Error en " + entrada + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Compila un archivo en modo de flujo. Los archivos temporales se crean en
+     * el directorio de salida y se borran al terminar.
+     *
+     * @param entrada  Archivo .txt con una sola sentencia.
+     * @param salida   Archivo ASM a generar.
+     * @param fuente   De dónde se obtienen los valores de las variables.
+     * @param opciones Optimizaciones a aplicar (sólo las que no necesitan el
+     *                 código completo).
+     * @return El resultado de la compilación.
+     * @throws IllegalArgumentException Si la expresión es inválida o faltan
+     *                                  valores.
+     * @throws IOException              Si ocurre un error al leer o escribir.
+     */
+    static Resultado compilar(Path entrada, Path salida, ExpresionesAritmeticasASM.FuenteValores fuente,
+            OpcionesCompilacion opciones) throws IOException {
+        Path directorio = salida.toAbsolutePath().getParent();
+        Path normalizada = Files.createTempFile(directorio, "flujo", ".txt");
+        Path formateada = Files.createTempFile(directorio, "flujo", ".txt");
+        Path codigo = Files.createTempFile(directorio, "flujo", ".ASM");
+        try {
+            // 1) Normalizar por bloques: la expresión sin espacios y la formateada para mostrarla
+            Set<String> variables_neg;
+            try (FileChannel canalEntrada = FileChannel.open(entrada, StandardOpenOption.READ);
+                    Normalizador normalizador = new Normalizador(normalizada, formateada)) {
+                ByteBuffer bloque = ByteBuffer.allocate(BLOQUE);
+                while (canalEntrada.read(bloque) >= 0) {
+                    bloque.flip();
+                    while (bloque.hasRemaining()) {
+                        normalizador.agregar((char) (bloque.get() & 0xff));
+                    }
+                    bloque.clear();
+                }
+                variables_neg = normalizador.terminar();
+            }
+
+            try (FileChannel canalNormalizada = FileChannel.open(normalizada, StandardOpenOption.READ)) {
+                TextoProyectado texto = TextoProyectado.proyectar(canalNormalizada);
+
+                // 2) Validar la estructura de la expresión
+                ValidadorExpresion.Violacion violacion = ValidadorExpresion.validar(texto);
+                if (violacion != null) {
+                    throw new IllegalArgumentException("La expresión es inválida (" + violacion + ")");
+                }
+
+                // 3) Identificar la variable de asignación y las variables utilizadas
+                String variableIzquierda = null;
+                Set<String> variables = new HashSet<>();
+                AnalizadorLexico lexico = new AnalizadorLexico(texto);
+                while (lexico.avanzar() != AnalizadorLexico.TipoToken.FIN) {
+                    if (lexico.tipo() == AnalizadorLexico.TipoToken.IDENTIFICADOR) {
+                        if (variableIzquierda == null) {
+                            variableIzquierda = lexico.texto();
+                        } else {
+                            variables.add(lexico.texto());
+                        }
+                    }
+                }
+                Map<String, Double> valoresVariables = fuente.obtener(variables, variables_neg);
+
+                // 4) Analizar, escribir y evaluar cada operación en cuanto está completa
+                Analizador analizador;
+                try (EmisorASM asm = new EmisorASM(FileChannel.open(codigo, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING))) {
+                    analizador = new Analizador(asm, valoresVariables, opciones);
+                    analizador.analizar(texto);
+                }
+
+                // 5) Escribir el programa: los datos, y después el código ya generado
+                generarArchivoASM(salida, analizador, valoresVariables, variables_neg, formateada, codigo);
+                return new Resultado(variableIzquierda, analizador.resultado, analizador.operaciones,
+                        analizador.numeroRanuras, new InformeOptimizacion(0, 0, 0, analizador.desplazamientos, 0, 0, 0));
+            }
+        } finally {
+            borrar(normalizada);
+            borrar(formateada);
+            borrar(codigo);
+        }
+    }
+
+    /**
+     * Escribe el programa ASM con la misma estructura que el modo normal,
+     * copiando la expresión formateada y las instrucciones desde sus archivos
+     * temporales.
+     */
+    private static void generarArchivoASM(Path salida, Analizador analizador, Map<String, Double> valoresVariables,
+            Set<String> variables_neg, Path formateada, Path codigo) throws IOException {
+        String variableIzquierda = analizador.variableIzquierda;
+        try (EmisorASM asm = new EmisorASM(ContextoCompilacion.SalidaASM.archivo(salida).abrir());
+                FileChannel canalFormateada = FileChannel.open(formateada, StandardOpenOption.READ);
+                FileChannel canalCodigo = FileChannel.open(codigo, StandardOpenOption.READ)) {
+            ExpresionesAritmeticasASM.agregarEncabezado(asm);
+
+            // Declarar la variable principal, las demás variables y los temporales
+            asm.texto("    ").texto(variableIzquierda).texto(" DW ?\n");
+            asm.texto("    ").texto(variableIzquierda).texto("_D DW ? ;Decimales de '").texto(variableIzquierda)
+                    .texto("'\n\n");
+            for (Map.Entry<String, Double> entry : valoresVariables.entrySet()) {
+                ExpresionesAritmeticasASM.convertirValorASM(asm, entry.getKey(), entry.getValue());
+            }
+            asm.texto("\n");
+            for (int i = 1; i <= analizador.numeroRanuras; i++) {
+                asm.texto("    T").entero(i).texto(" DW ?\n");
+                asm.texto("    T").entero(i).texto("_D DW ? ;Decimales de 'T").entero(i).texto("'\n");
+            }
+
+            asm.texto("\n    ExpresionAritmetica DB '").copiar(canalFormateada)
+                    .texto("', 0Dh, 0Ah, 0Dh, 0Ah, '$'\n");
+
+            // Textos de las variables para imprimir
+            List<String> etiquetas = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : valoresVariables.entrySet()) {
+                String nombreVariable = entry.getKey();
+                double valor = variables_neg.contains(nombreVariable) ? -entry.getValue() : entry.getValue();
+                asm.texto("    ").texto(nombreVariable).texto("_T DB '  ").texto(nombreVariable).texto(" = ")
+                        .texto(PuntoFijo.texto(valor)).texto("', 0Dh, 0Ah, '$'\n");
+                etiquetas.add(nombreVariable + "_T");
+            }
+            ExpresionesAritmeticasASM.declararResultadoASM(asm, variableIzquierda, analizador.resultado, "", true,
+                    true);
+
+            // Segmento de código
+            ExpresionesAritmeticasASM.agregarSegmentoCodigoInicio(asm);
+            ExpresionesAritmeticasASM.imprimirSentenciaASM(asm, "", etiquetas);
+            asm.copiar(canalCodigo);
+            ExpresionesAritmeticasASM.imprimirResultadoASM(asm, variableIzquierda, "");
+            asm.texto("    MOV AH, 4Ch\n");
+            asm.texto("    INT 21h\n");
+            asm.texto("END start\n");
+        }
+    }
+
+    private static void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            archivo.toFile().deleteOnExit(); // Aún proyectado en memoria en algunos sistemas
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // NORMALIZACIÓN POR BLOQUES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Normaliza la expresión carácter por carácter, como
+     * {@link ExpresionesAritmeticasASM#normalizarExpresion} seguido del
+     * reemplazo de "(-a)" por "a", y a la vez la formatea como
+     * {@link ExpresionesAritmeticasASM#formatearExpresion}. Sólo retiene el
+     * carácter anterior y el nombre de una posible variable negativa.
+     */
+    private static final class Normalizador implements AutoCloseable {
+        private final FileChannel normalizada;
+        private final FileChannel formateada;
+        private final ByteBuffer bufferNormalizada = ByteBuffer.allocate(BLOQUE);
+        private final ByteBuffer bufferFormateada = ByteBuffer.allocate(BLOQUE);
+        private final Set<String> variables_neg = new HashSet<>();
+        // "(", "(-" o "(-nombre" que todavía puede ser una variable negativa
+        private final StringBuilder pendiente = new StringBuilder();
+        // Formato: el carácter actual espera al siguiente para decidir sus espacios
+        private char anterior;
+        private char actual;
+
+        private Normalizador(Path normalizada, Path formateada) throws IOException {
+            this.normalizada = FileChannel.open(normalizada, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.formateada = FileChannel.open(formateada, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private void agregar(char c) throws IOException {
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                return;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            formatear(c);
+            quitarSigno(c);
+        }
+
+        /**
+         * Termina la normalización.
+         *
+         * @return Las variables escritas como "(-a)".
+         */
+        private Set<String> terminar() throws IOException {
+            if (actual != 0) {
+                escribirFormateado(anterior, actual, (char) 0);
+            }
+            escribir(bufferNormalizada, normalizada, pendiente);
+            pendiente.setLength(0);
+            vaciar(bufferNormalizada, normalizada);
+            vaciar(bufferFormateada, formateada);
+            return variables_neg;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                normalizada.close();
+            } finally {
+                formateada.close();
+            }
+        }
+
+        private void formatear(char c) throws IOException {
+            if (actual != 0) {
+                escribirFormateado(anterior, actual, c);
+            }
+            anterior = actual;
+            actual = c;
+        }
+
+        private void escribirFormateado(char anterior, char c, char siguiente) throws IOException {
+            // Espacios alrededor de los operadores, salvo en "(-a)" y "(-1)"
+            if (esOperador(c) && anterior != 0 && siguiente != 0 && !esOperador(anterior) && !esOperador(siguiente)
+                    && !(c == '-' && anterior == '(')) {
+                escribir(bufferFormateada, formateada, ' ');
+                escribir(bufferFormateada, formateada, c);
+                escribir(bufferFormateada, formateada, ' ');
+            } else {
+                escribir(bufferFormateada, formateada, c);
+            }
+        }
+
+        private void quitarSigno(char c) throws IOException {
+            int n = pendiente.length();
+            if (n == 1 && c == '-' || n >= 2 && esParteIdentificador(c) && (n > 2 || !esDigito(c))) {
+                pendiente.append(c);
+                return;
+            }
+            if (n > 2 && c == ')') {
+                String variable = pendiente.substring(2);
+                variables_neg.add(variable);
+                escribir(bufferNormalizada, normalizada, variable);
+                pendiente.setLength(0);
+                return;
+            }
+            escribir(bufferNormalizada, normalizada, pendiente);
+            pendiente.setLength(0);
+            if (c == '(') {
+                pendiente.append(c);
+            } else {
+                escribir(bufferNormalizada, normalizada, c);
+            }
+        }
+
+        private static void escribir(ByteBuffer buffer, FileChannel canal, CharSequence texto) throws IOException {
+            for (int i = 0; i < texto.length(); i++) {
+                escribir(buffer, canal, texto.charAt(i));
+            }
+        }
+
+        private static void escribir(ByteBuffer buffer, FileChannel canal, char c) throws IOException {
+            if (!buffer.hasRemaining()) {
+                vaciar(buffer, canal);
+            }
+            buffer.put((byte) c);
+        }
+
+        private static void vaciar(ByteBuffer buffer, FileChannel canal) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // TEXTO PROYECTADO EN MEMORIA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Un archivo de un byte por carácter visto como {@link CharSequence}, sin
+     * copiarlo: el analizador léxico y el validador lo recorren directamente.
+     */
+    private static final class TextoProyectado implements CharSequence {
+        private final ByteBuffer bytes;
+
+        private TextoProyectado(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        private static TextoProyectado proyectar(FileChannel canal) throws IOException {
+            long tamano = canal.size();
+            if (tamano > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "La expresión normalizada ocupa " + tamano + " bytes; el máximo del modo de flujo es 2 GB");
+            }
+            return new TextoProyectado(canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano));
+        }
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int indice) {
+            return (char) (bytes.get(indice) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int inicio, int fin) {
+            byte[] copia = new byte[fin - inicio];
+            bytes.get(inicio, copia);
+            return new String(copia, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ANÁLISIS CON PILA DE OPERADORES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Analiza la expresión con una pila de operandos y otra de operadores. Un
+     * operador se resuelve en cuanto llega otro de igual o menor jerarquía (o
+     * se cierra su paréntesis), lo que da el mismo resultado que resolver cada
+     * nivel de la jerarquía por separado.
+     *
+     * <p>
+     * Los temporales vivos están siempre en la cima de la pila de operandos, en
+     * orden, por lo que el resultado de una operación ocupa la primera ranura
+     * libre: el número de ranuras es el máximo de temporales vivos a la vez.
+     */
+    private static final class Analizador {
+        private final EmisorASM asm;
+        private final Map<String, Double> valoresVariables;
+        private final OpcionesCompilacion opciones;
+
+        // Pila de operandos: nombre, valor y si es un temporal
+        private String[] nombres = new String[16];
+        private double[] valores = new double[16];
+        private boolean[] temporales = new boolean[16];
+        private int numOperandos;
+
+        // Pila de operadores, con PARENTESIS para cada '(' abierto
+        private byte[] operadores = new byte[16];
+        private int numOperadores;
+
+        private int vivos;
+        private int numeroRanuras;
+        private long operaciones;
+        private int desplazamientos;
+        private String variableIzquierda;
+        private double resultado;
+
+        private Analizador(EmisorASM asm, Map<String, Double> valoresVariables, OpcionesCompilacion opciones) {
+            this.asm = asm;
+            this.valoresVariables = valoresVariables;
+            this.opciones = opciones;
+        }
+
+        private void analizar(CharSequence texto) throws IOException {
+            AnalizadorLexico lexico = new AnalizadorLexico(texto);
+            boolean esperaOperando = true;
+            boolean inicioGrupo = true;
+
+            while (lexico.avanzar() != AnalizadorLexico.TipoToken.FIN) {
+                if (esperaOperando) {
+                    switch (lexico.tipo()) {
+                        case IDENTIFICADOR -> {
+                            String variable = lexico.texto();
+                            apilar(variable, valoresVariables.getOrDefault(variable, Double.NaN), false);
+                        }
+                        case NUMERO -> apilar(lexico.texto(), Double.parseDouble(lexico.texto()), false);
+                        case PARENTESIS_ABRE -> {
+                            apilarOperador(PARENTESIS);
+                            inicioGrupo = true;
+                            continue;
+                        }
+                        case OPERADOR -> {
+                            // Literal negativo al inicio de un grupo, p. ej. "(-5)"
+                            if (lexico.caracter() != '-' || !inicioGrupo || !lexico.siguienteEsNumero()) {
+                                throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operando");
+                            }
+                            lexico.avanzar();
+                            String literal = "-" + lexico.texto();
+                            apilar(literal, Double.parseDouble(literal), false);
+                        }
+                        default -> throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operando");
+                    }
+                    esperaOperando = false;
+                    inicioGrupo = false;
+                } else {
+                    switch (lexico.tipo()) {
+                        case OPERADOR -> {
+                            byte operador = codigoOperador(lexico.caracter());
+                            while (numOperadores > 0 && operadores[numOperadores - 1] != PARENTESIS
+                                    && operadores[numOperadores - 1] <= operador) {
+                                reducir();
+                            }
+                            apilarOperador(operador);
+                            esperaOperando = true;
+                        }
+                        case PARENTESIS_CIERRA -> {
+                            while (numOperadores > 0 && operadores[numOperadores - 1] != PARENTESIS) {
+                                reducir();
+                            }
+                            if (numOperadores == 0) {
+                                throw AnalizadorLexico.error(lexico.inicio(), "')' sin '(' correspondiente");
+                            }
+                            numOperadores--;
+                        }
+                        case IGUAL -> {
+                            if (variableIzquierda != null || numOperandos != 1 || numOperadores != 0
+                                    || temporales[0] || !esIdentificador(nombres[0])) {
+                                throw AnalizadorLexico.error(lexico.inicio(), "asignación no válida");
+                            }
+                            variableIzquierda = nombres[0];
+                            numOperandos = 0;
+                            esperaOperando = true;
+                            inicioGrupo = true;
+                        }
+                        default -> throw AnalizadorLexico.error(lexico.inicio(), "se esperaba un operador");
+                    }
+                }
+            }
+
+            if (esperaOperando) {
+                throw AnalizadorLexico.error(lexico.inicio(), "expresión incompleta");
+            }
+            while (numOperadores > 0) {
+                if (operadores[numOperadores - 1] == PARENTESIS) {
+                    throw AnalizadorLexico.error(lexico.inicio(), "'(' sin ')' correspondiente");
+                }
+                reducir();
+            }
+            // La asignación final; sin reutilizar temporales también consume uno
+            if (!opciones.reutilizarTemporales()) {
+                numeroRanuras = ++vivos;
+            }
+            ExpresionesAritmeticasASM.generarOperacionASM(asm,
+                    new Instruccion("MOV", variableIzquierda, nombres[0], ""), SIN_RANURAS, false, "");
+            resultado = valores[0];
+        }
+
+        /**
+         * Resuelve el operador de la cima con los dos últimos operandos.
+         */
+        private void reducir() throws IOException {
+            byte operador = operadores[--numOperadores];
+            int derecho = --numOperandos;
+            int izquierdo = numOperandos - 1;
+
+            // Liberar las ranuras de los operandos, que son las últimas ocupadas
+            if (opciones.reutilizarTemporales()) {
+                vivos -= (temporales[izquierdo] ? 1 : 0) + (temporales[derecho] ? 1 : 0);
+            }
+            String destino = "T" + (++vivos);
+            numeroRanuras = Math.max(numeroRanuras, vivos);
+
+            String nombre = NOMBRES_OPERADORES[operador];
+            Instruccion instruccion = new Instruccion(nombre, nombres[izquierdo], nombres[derecho], destino);
+            if (ExpresionesAritmeticasASM.generarOperacionASM(asm, instruccion, SIN_RANURAS,
+                    opciones.plegarConstantes(), "")) {
+                desplazamientos++;
+            }
+            operaciones++;
+
+            valores[izquierdo] = ExpresionesAritmeticasASM.calcularResultado(valores[izquierdo], valores[derecho],
+                    nombre);
+            nombres[izquierdo] = destino;
+            temporales[izquierdo] = true;
+        }
+
+        private void apilar(String nombre, double valor, boolean temporal) {
+            if (numOperandos == nombres.length) {
+                nombres = Arrays.copyOf(nombres, numOperandos * 2);
+                valores = Arrays.copyOf(valores, numOperandos * 2);
+                temporales = Arrays.copyOf(temporales, numOperandos * 2);
+            }
+            nombres[numOperandos] = nombre;
+            valores[numOperandos] = valor;
+            temporales[numOperandos++] = temporal;
+        }
+
+        private void apilarOperador(byte operador) {
+            if (numOperadores == operadores.length) {
+                operadores = Arrays.copyOf(operadores, numOperadores * 2);
+            }
+            operadores[numOperadores++] = operador;
+        }
+
+        private static byte codigoOperador(char operador) {
+            return switch (operador) {
+                case '*' -> 0;
+                case '/' -> 1;
+                case '+' -> 2;
+                case '-' -> 3;
+                default -> throw new IllegalArgumentException("Operador no soportado: " + operador);
+            };
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    private static boolean esOperador(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/' || c == '=';
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean esParteIdentificador(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || esDigito(c) || c == '_';
+    }
+
+    private static boolean esIdentificador(String texto) {
+        return !texto.isEmpty() && !esDigito(texto.charAt(0)) && texto.charAt(0) != '-';
+    }
+}
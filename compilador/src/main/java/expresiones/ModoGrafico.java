@@ -0,0 +1,85 @@
+package expresiones;
+
+import java.awt.HeadlessException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import javax.swing.JFileChooser;
+
+/**
+ * Modo gráfico ({@code --gui}): el archivo .txt se elige en un cuadro de
+ * diálogo y los valores de las variables se piden por consola; el programa se
+ * escribe en {@code Resultado.ASM}.
+ *
+ * <p>
+ * Es la única clase que usa Swing. Como la JVM carga las clases al usarlas
+ * por primera vez, los demás modos arrancan sin cargar AWT ni Swing y
+ * funcionan en servidores sin pantalla.
+ */
+final class ModoGrafico {
+    private ModoGrafico() {
+    }
+
+    /**
+     * Ejecuta el modo gráfico hasta compilar un archivo o hasta que el usuario
+     * cierre el diálogo.
+     *
+     * @param opciones Optimizaciones a aplicar.
+     * @return Código de salida: 0, o 1 si no hay pantalla donde mostrar el
+     *         diálogo.
+     */
+    static int ejecutar(OpcionesCompilacion opciones) {
+        try {
+            seleccionarYCompilar(opciones);
+            return 0;
+        } catch (HeadlessException e) {
+            System.err.println("Error: no hay pantalla para el modo gráfico; indique el archivo .txt como argumento.");
+            return 1;
+        }
+    }
+
+    private static void seleccionarYCompilar(OpcionesCompilacion opciones) {
+        // Selector de archivos mediante un cuadro de diálogo
+        while (true) {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Seleccione un archivo .txt");
+
+            // Abrir el diálogo para seleccionar el archivo .txt
+            int result = fileChooser.showOpenDialog(null);
+            if (result != JFileChooser.APPROVE_OPTION) {
+                System.out.println("No se seleccionó ningún archivo.");
+                return;
+            }
+
+            File selectedFile = fileChooser.getSelectedFile();
+            if (!selectedFile.getName().endsWith(".txt")) {
+                System.err.println("Por favor, seleccione un archivo con extensión .txt");
+                continue;
+            }
+
+            // Leer el contenido del archivo
+            String contenido;
+            try {
+                contenido = ExpresionesAritmeticasASM.leerArchivo(Paths.get(selectedFile.getAbsolutePath()));
+            } catch (IOException e) {
+                System.err.println("Error al leer el archivo: " + e.getMessage());
+                return;
+            }
+
+            // Compilar la expresión solicitando al usuario los valores de las variables
+            try {
+                ExpresionesAritmeticasASM.compilar(contenido, opciones, ExpresionesAritmeticasASM.fuenteConsola(),
+                        Paths.get("Resultado.ASM"), true);
+                System.out.println(" - Archivo ASM generado exitosamente: Resultado.ASM\n");
+            } catch (IllegalArgumentException e) {
+                System.err.println(
+                        "La expresión es inválida (operadores consecutivos, paréntesis mal, etc.). Por favor, seleccione un nuevo archivo.");
+                System.err.println(" - " + e.getMessage());
+                continue;
+            } catch (IOException e) {
+                System.err.println(" - Error al generar el archivo ASM: " + e.getMessage());
+            }
+            break;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Modo por lotes: compila en paralelo todos los archivos .txt de un directorio
+ * (o que coincidan con un patrón glob) sin abrir ventanas ni pedir datos por
+ * consola.
+ *
+ * <p>
+ * Cada archivo {@code nombre.txt} genera su propio {@code nombre.ASM}. Los
+ * valores de las variables se leen de {@code nombre.properties}, junto al
+ * archivo de entrada, con líneas de la forma {@code a=3.5}; las opciones
+ * {@code -Dvariable=valor} aportan valores comunes a todos los archivos.
+ *
+ * <p>
+ * Las expresiones repetidas entre archivos se validan y procesan una sola vez
+ * gracias a una {@link CacheExpresiones} compartida por todo el lote. Las
+ * opciones de optimización ({@code -O0}, {@code --sin-...}) se aplican a todos
+ * los archivos.
+ *
+ * <p>
+ * Con {@code --cache-disco} los programas se guardan además en una
+ * {@link CacheDisco} que sobrevive al proceso: en la siguiente ejecución, un
+ * archivo cuya expresión, valores y opciones no cambiaron se copia de la caché
+ * sin compilarse.
+ */
+final class ModoLote {
+    // Número de expresiones distintas que se conservan procesadas por defecto
+    private static final int CAPACIDAD_CACHE = 1024;
+    private static final String EXTENSION_EXPRESION = ".txt";
+    private static final String EXTENSION_VALORES = ".properties";
+
+    private ModoLote() {
+    }
+
+    /**
+     * Resultado de compilar un archivo del lote.
+     *
+     * @param entrada Archivo .txt compilado.
+     * @param salida  Archivo ASM generado.
+     * @param valor   Resultado numérico de la expresión (de la última, si el
+     *                archivo tiene varias sentencias).
+     * @param informe Lo que las optimizaciones eliminaron.
+     * @param error   Descripción del error, o null si la compilación fue exitosa.
+     */
+    record ResultadoArchivo(Path entrada, Path salida, double valor, InformeOptimizacion informe, String error) {
+    }
+
+    /**
+     * Ejecuta el modo por lotes.
+     *
+     * <pre>
+     * --lote &lt;directorio | patrón glob&gt;... [--salida &lt;directorio&gt;] [--cache &lt;n&gt;]
+     *        [--cache-disco &lt;directorio&gt; [--cache-disco-mb &lt;n&gt;]]
+     *        [-Dvariable=valor]... [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * @param args Argumentos de la línea de comandos después de "--lote".
+     * @return Código de salida: 0 si todos los archivos se compilaron, 1 si hubo
+     *         errores y 2 si los argumentos son incorrectos.
+     */
+    static int ejecutar(String[] args) {
+        List<String> entradas = new ArrayList<>();
+        Path directorioSalida = null;
+        Map<String, Double> valoresComunes = new HashMap<>();
+        int capacidadCache = CAPACIDAD_CACHE;
+        Path directorioDisco = null;
+        long capacidadDisco = CacheDisco.CAPACIDAD_PREDETERMINADA;
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        List<Path> archivos;
+        CacheExpresiones cache;
+        CacheDisco disco;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--salida") && i + 1 < args.length) {
+                    directorioSalida = Paths.get(args[++i]);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    capacidadCache = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--cache-disco") && i + 1 < args.length) {
+                    directorioDisco = Paths.get(args[++i]);
+                } else if (args[i].equals("--cache-disco-mb") && i + 1 < args.length) {
+                    capacidadDisco = Long.parseLong(args[++i]) << 20;
+                } else if (OpcionesCompilacion.esOpcion(args[i])) {
+                    opciones = opciones.aplicar(args[i]);
+                } else if (args[i].startsWith("-D")) {
+                    TablaValores.agregarOpcion(args[i], valoresComunes);
+                } else {
+                    entradas.add(args[i]);
+                }
+            }
+
+            cache = new CacheExpresiones(capacidadCache);
+            disco = directorioDisco != null ? new CacheDisco(directorioDisco, capacidadDisco) : null;
+            archivos = buscarArchivos(entradas);
+            if (directorioSalida != null) {
+                Files.createDirectories(directorioSalida);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error en los argumentos: " + e.getMessage());
+            return 2;
+        }
+        if (archivos.isEmpty()) {
+            System.err.println("Uso: --lote <directorio | patrón glob>... [--salida <directorio>] [--cache <n>]"
+                    + " [--cache-disco <directorio> [--cache-disco-mb <n>]] [-Dvariable=valor]... [-O0 | --sin-<optimización>...]");
+            System.err.println("No se encontraron archivos .txt para compilar.");
+            return 2;
+        }
+
+        // Compilar todos los archivos en paralelo
+        long inicio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        List<ForkJoinTask<ResultadoArchivo>> tareas = new ArrayList<>();
+        OpcionesCompilacion opcionesLote = opciones;
+        for (Path archivo : archivos) {
+            Path salida = archivoSalida(archivo, directorioSalida);
+            tareas.add(pool.submit(() -> compilarArchivo(archivo, salida, valoresComunes, opcionesLote, cache,
+                    disco)));
+        }
+
+        int exitosos = 0;
+        InformeOptimizacion informe = InformeOptimizacion.VACIO;
+        List<ResultadoArchivo> fallidos = new ArrayList<>();
+        for (ForkJoinTask<ResultadoArchivo> tarea : tareas) {
+            ResultadoArchivo resultado = tarea.join();
+            if (resultado.error() == null) {
+                exitosos++;
+                informe = informe.sumar(resultado.informe());
+                String mirilla = resultado.informe().instruccionesEliminadas() > 0
+                        ? ", " + resultado.informe().mirilla()
+                        : "";
+                System.out.println(" - " + resultado.entrada() + " -> " + resultado.salida() + " ("
+                        + PuntoFijo.texto(resultado.valor()) + mirilla + ")");
+            } else {
+                fallidos.add(resultado);
+            }
+        }
+        pool.shutdown();
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Resumen del lote
+        for (ResultadoArchivo resultado : fallidos) {
+            System.err.println(" - Error en " + resultado.entrada() + ": " + resultado.error());
+        }
+        System.out.println("\nArchivos compilados: " + exitosos + ", con errores: " + fallidos.size()
+                + " (" + milisegundos + " ms)");
+        if (!informe.vacio()) {
+            System.out.println(informe);
+        }
+        System.out.println(cache);
+        if (disco != null) {
+            try {
+                disco.close();
+            } catch (IOException e) {
+                System.err.println("Error al actualizar las estadísticas de la caché en disco: " + e.getMessage());
+            }
+            System.out.println(disco);
+        }
+        return fallidos.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Busca los archivos .txt indicados por cada entrada. Un directorio aporta
+     * todos sus archivos .txt; cualquier otra entrada se interpreta como un
+     * patrón glob sobre el nombre del archivo, p. ej. "datos/expr_*.txt".
+     *
+     * @param entradas Directorios, archivos o patrones glob.
+     * @return Los archivos encontrados, ordenados y sin repetir.
+     * @throws IOException              Si no se puede leer algún directorio.
+     * @throws IllegalArgumentException Si se indica un archivo sin extensión
+     *                                  .txt.
+     */
+    private static List<Path> buscarArchivos(List<String> entradas) throws IOException {
+        Set<Path> archivos = new TreeSet<>();
+        for (String entrada : entradas) {
+            Path ruta = Paths.get(entrada);
+            if (Files.isDirectory(ruta)) {
+                agregarCoincidencias(ruta, "*.txt", archivos);
+            } else if (Files.isRegularFile(ruta)) {
+                if (!ruta.getFileName().toString().endsWith(EXTENSION_EXPRESION)) {
+                    throw new IllegalArgumentException("No es un archivo .txt: " + ruta);
+                }
+                archivos.add(ruta);
+            } else {
+                Path directorio = ruta.getParent() != null ? ruta.getParent() : Paths.get(".");
+                agregarCoincidencias(directorio, ruta.getFileName().toString(), archivos);
+            }
+        }
+        return new ArrayList<>(archivos);
+    }
+
+    private static void agregarCoincidencias(Path directorio, String glob, Set<Path> archivos) throws IOException {
+        try (DirectoryStream<Path> flujo = Files.newDirectoryStream(directorio, glob)) {
+            for (Path archivo : flujo) {
+                if (Files.isRegularFile(archivo) && archivo.getFileName().toString().endsWith(".txt")) {
+                    archivos.add(archivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula la ruta del archivo ASM que corresponde a un archivo de entrada:
+     * "nombre.txt" genera "nombre.ASM".
+     *
+     * @param archivo          Archivo de entrada.
+     * @param directorioSalida Directorio de salida, o null para usar el mismo
+     *                         directorio de la entrada.
+     * @return La ruta del archivo ASM.
+     */
+    static Path archivoSalida(Path archivo, Path directorioSalida) {
+        String asm = nombreBase(archivo, EXTENSION_EXPRESION) + ".ASM";
+        return directorioSalida != null ? directorioSalida.resolve(asm) : archivo.resolveSibling(asm);
+    }
+
+    /**
+     * Compila un archivo del lote. Nunca lanza excepciones: cualquier error queda
+     * registrado en el resultado.
+     *
+     * @param archivo        Archivo .txt a compilar.
+     * @param salida         Archivo ASM a generar.
+     * @param valoresComunes Valores de la línea de comandos, comunes a todo el
+     *                       lote.
+     * @param opciones       Optimizaciones a aplicar.
+     * @param cache          Caché de expresiones compartida por el lote.
+     * @param disco          Caché en disco, o null.
+     * @return El resultado de la compilación.
+     */
+    private static ResultadoArchivo compilarArchivo(Path archivo, Path salida, Map<String, Double> valoresComunes,
+            OpcionesCompilacion opciones, CacheExpresiones cache, CacheDisco disco) {
+        try {
+            String contenido = ExpresionesAritmeticasASM.leerArchivo(archivo);
+            Map<String, Double> fila = new HashMap<>(valoresComunes);
+            fila.putAll(leerValores(archivo));
+            if (disco != null) {
+                CacheDisco.Resultado resultado = ExpresionesAritmeticasASM.compilar(contenido, opciones, cache, disco,
+                        fila, salida, false);
+                return new ResultadoArchivo(archivo, salida, resultado.valor(), resultado.informe(), null);
+            }
+            ContextoPrograma programa = ExpresionesAritmeticasASM.compilar(contenido, opciones, cache,
+                    TablaValores.fuente(fila), ContextoCompilacion.SalidaASM.archivo(salida), false);
+            return new ResultadoArchivo(archivo, salida, programa.resultado(), programa.informe(), null);
+        } catch (IOException | RuntimeException e) {
+            return new ResultadoArchivo(archivo, salida, Double.NaN, InformeOptimizacion.VACIO, e.getMessage());
+        }
+    }
+
+    /**
+     * Lee el archivo de valores "nombre.properties" asociado a un archivo de
+     * entrada, si existe.
+     *
+     * @param archivo Archivo .txt de entrada.
+     * @return Los valores leídos (vacíos si no hay archivo de valores).
+     * @throws IOException Si el archivo de valores existe pero no puede leerse.
+     */
+    static Map<String, Double> leerValores(Path archivo) throws IOException {
+        Path valores = archivoValores(archivo);
+        return Files.isRegularFile(valores) ? TablaValores.leerPropiedades(valores) : Map.of();
+    }
+
+    /**
+     * @param archivo Archivo .txt de entrada.
+     * @return Su archivo de valores, "nombre.properties", exista o no.
+     */
+    static Path archivoValores(Path archivo) {
+        return archivo.resolveSibling(nombreBase(archivo, EXTENSION_EXPRESION) + EXTENSION_VALORES);
+    }
+
+    /**
+     * Inverso de {@link #archivoValores}: el archivo .txt al que pertenece un
+     * archivo de valores.
+     *
+     * @param archivo Un archivo cualquiera.
+     * @return "nombre.txt" si el archivo es "nombre.properties", o null.
+     */
+    static Path archivoExpresion(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return nombre.endsWith(EXTENSION_VALORES)
+                ? archivo.resolveSibling(nombreBase(archivo, EXTENSION_VALORES) + EXTENSION_EXPRESION)
+                : null;
+    }
+
+    // Nombre sin la extensión, si la tiene
+    private static String nombreBase(Path archivo, String extension) {
+        String nombre = archivo.getFileName().toString();
+        return nombre.endsWith(extension) ? nombre.substring(0, nombre.length() - extension.length()) : nombre;
+    }
+}
@@ -0,0 +1,405 @@
+package expresiones;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modo servidor: un proceso que se queda en ejecución y compila las
+ * expresiones que recibe por un socket local, para no pagar en cada expresión
+ * el arranque de la JVM ni el calentamiento del JIT.
+ *
+ * <p>
+ * Escucha en la interfaz de loopback o, con {@code --socket}, en un socket de
+ * dominio Unix. Cada línea que llega es una petición JSON:
+ *
+ * <pre>
+ * {"id": 1, "expresion": "z = a + b * 2", "valores": {"a": 1, "b": 2.5}, "opciones": ["-O0"]}
+ * </pre>
+ *
+ * y por cada una se responde una línea JSON, en cuanto está lista:
+ *
+ * <pre>
+ * {"id": 1, "variable": "z", "resultado": 6.0, "texto": "6.000", "asm": "..."}
+ * {"id": 2, "error": "..."}
+ * </pre>
+ *
+ * <p>
+ * Las respuestas pueden llegar en otro orden que las peticiones; el
+ * {@code id} (cualquier cadena o número) las relaciona. Las expresiones
+ * procesadas se guardan en una {@link CacheExpresiones} común a todas las
+ * conexiones.
+ *
+ * <p>
+ * Cada petición se atiende en su propio hilo virtual cuando la JVM los tiene
+ * (Java 21 o posterior); en Java 17 se usan hilos del sistema. Para que una
+ * expresión enorme no acapare el servidor, a lo más {@code --cola} peticiones
+ * pueden estar en curso a la vez (las demás se rechazan de inmediato) y una
+ * petición que no termina en {@code --tiempo-limite} milisegundos se responde
+ * con un error. El cálculo de una petición vencida no puede interrumpirse: su
+ * lugar en la cola se libera cuando de verdad termina.
+ *
+ * <p>
+ * Una línea de más de {@link #LONGITUD_MAXIMA_LINEA} bytes se responde con un
+ * error y se descarta hasta el siguiente salto de línea, sin cerrar la
+ * conexión.
+ */
+final class ModoServidor {
+    // Valores por defecto
+    private static final int PUERTO_PREDETERMINADO = 8086;
+    private static final int COLA_PREDETERMINADA = 64;
+    private static final long TIEMPO_LIMITE_PREDETERMINADO = 10_000;
+    private static final int CAPACIDAD_CACHE = 1024;
+    /** Bytes que puede tener una petición, sin contar el salto de línea. */
+    private static final int LONGITUD_MAXIMA_LINEA = 1 << 20;
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final OpcionesCompilacion opciones;
+    private final CacheExpresiones cache;
+    private final ExecutorService ejecutor;
+    private final Semaphore cola;
+    private final int capacidadCola;
+    private final long tiempoLimite;
+
+    private ModoServidor(OpcionesCompilacion opciones, CacheExpresiones cache, ExecutorService ejecutor,
+            int capacidadCola, long tiempoLimite) {
+        this.opciones = opciones;
+        this.cache = cache;
+        this.ejecutor = ejecutor;
+        this.cola = new Semaphore(capacidadCola);
+        this.capacidadCola = capacidadCola;
+        this.tiempoLimite = tiempoLimite;
+    }
+
+    /**
+     * Ejecuta el modo servidor. Sólo termina si el socket deja de aceptar
+     * conexiones.
+     *
+     * <pre>
+     * --servidor [--puerto &lt;n&gt; | --socket &lt;ruta&gt;] [--cola &lt;n&gt;] [--tiempo-limite &lt;ms&gt;]
+     *            [--cache &lt;n&gt;] [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * @param args Argumentos de la línea de comandos después de "--servidor".
+     * @return Código de salida: 1 si el servidor se detuvo por un error y 2 si
+     *         los argumentos son incorrectos o no se pudo abrir el socket.
+     */
+    static int ejecutar(String[] args) {
+        int puerto = PUERTO_PREDETERMINADO;
+        Path socket = null;
+        int capacidadCola = COLA_PREDETERMINADA;
+        long tiempoLimite = TIEMPO_LIMITE_PREDETERMINADO;
+        int capacidadCache = CAPACIDAD_CACHE;
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        ServerSocketChannel servidor;
+        String direccion;
+        CacheExpresiones cache;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--puerto") && i + 1 < args.length) {
+                    puerto = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--socket") && i + 1 < args.length) {
+                    socket = Paths.get(args[++i]);
+                } else if (args[i].equals("--cola") && i + 1 < args.length) {
+                    capacidadCola = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--tiempo-limite") && i + 1 < args.length) {
+                    tiempoLimite = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    capacidadCache = Integer.parseInt(args[++i]);
+                } else if (OpcionesCompilacion.esOpcion(args[i])) {
+                    opciones = opciones.aplicar(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Argumento no reconocido: " + args[i]);
+                }
+            }
+            if (capacidadCola < 1) {
+                throw new IllegalArgumentException("La capacidad de la cola debe ser positiva: " + capacidadCola);
+            }
+            if (tiempoLimite < 1) {
+                throw new IllegalArgumentException("El tiempo límite debe ser positivo: " + tiempoLimite);
+            }
+            cache = new CacheExpresiones(capacidadCache);
+
+            if (socket != null) {
+                servidor = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                servidor.bind(UnixDomainSocketAddress.of(socket));
+                Path archivoSocket = socket;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        Files.deleteIfExists(archivoSocket);
+                    } catch (IOException e) {
+                        // El proceso ya termina; el archivo queda y se borra a mano
+                    }
+                }));
+                direccion = socket.toString();
+            } else {
+                servidor = ServerSocketChannel.open();
+                servidor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+                direccion = ((InetSocketAddress) servidor.getLocalAddress()).getHostString() + ":"
+                        + ((InetSocketAddress) servidor.getLocalAddress()).getPort();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Uso: --servidor [--puerto <n> | --socket <ruta>] [--cola <n>] [--tiempo-limite <ms>]"
+                    + " [--cache <n>] [-O0 | --sin-<optimización>...]");
+            return 2;
+        }
+
+        ExecutorService ejecutor = hilosVirtuales();
+        boolean virtuales = ejecutor != null;
+        if (ejecutor == null) {
+            ejecutor = Executors.newCachedThreadPool(tarea -> {
+                Thread hilo = new Thread(tarea);
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        System.out.println("Servidor escuchando en " + direccion + " (" + (virtuales ? "hilos virtuales"
+                : "hilos del sistema") + ", cola de " + capacidadCola + ", " + tiempoLimite + " ms por petición)");
+        Metricas.activarJfr();
+        ModoServidor modo = new ModoServidor(opciones, cache, ejecutor, capacidadCola, tiempoLimite);
+        try (servidor) {
+            while (true) {
+                SocketChannel canal = servidor.accept();
+                ejecutor.submit(() -> modo.atender(canal));
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CONEXIONES Y PETICIONES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Atiende una conexión: lee sus peticiones, una por línea, y al cerrarse
+     * espera a que se envíen las respuestas pendientes.
+     *
+     * <p>
+     * Las líneas se separan a mano sobre {@link SocketChannel#read}: los flujos
+     * de {@link Channels} leen dentro de un bloque {@code synchronized}, que
+     * fija el hilo virtual a su portador mientras espera la siguiente petición
+     * y, con pocos procesadores, deja sin portador a las compilaciones.
+     *
+     * @param canal La conexión aceptada.
+     */
+    private void atender(SocketChannel canal) {
+        Conexion conexion = new Conexion(canal, new ReentrantLock());
+        List<Future<?>> pendientes = new ArrayList<>();
+        ByteBuffer entrada = ByteBuffer.allocate(8192);
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        boolean descartando = false;
+        try (canal) {
+            while (canal.read(entrada) >= 0) {
+                entrada.flip();
+                while (entrada.hasRemaining()) {
+                    byte b = entrada.get();
+                    if (b != '\n') {
+                        if (descartando) {
+                            continue;
+                        }
+                        if (linea.size() == LONGITUD_MAXIMA_LINEA) {
+                            // Se responde una vez y el resto de la línea se ignora
+                            descartando = true;
+                            linea.reset();
+                            responder(conexion, error(null, "Petición demasiado larga: más de "
+                                    + LONGITUD_MAXIMA_LINEA + " bytes sin salto de línea"));
+                            continue;
+                        }
+                        linea.write(b);
+                        continue;
+                    }
+                    descartando = false;
+                    String texto = linea.toString(StandardCharsets.UTF_8);
+                    linea.reset();
+                    if (!texto.isBlank()) {
+                        pendientes.removeIf(Future::isDone);
+                        recibir(texto, conexion, pendientes);
+                    }
+                }
+                entrada.clear();
+            }
+            if (!linea.toString(StandardCharsets.UTF_8).isBlank()) {
+                recibir(linea.toString(StandardCharsets.UTF_8), conexion, pendientes);
+            }
+            for (Future<?> pendiente : pendientes) {
+                pendiente.get();
+            }
+        } catch (IOException | ExecutionException e) {
+            // El cliente cerró la conexión; sus peticiones en curso se descartan
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Acepta o rechaza una petición. Si hay lugar en la cola, la compila en un
+     * hilo y responde cuando termina o al vencer el tiempo límite, lo que pase
+     * primero. El plazo lo vigila el temporizador de
+     * {@link CompletableFuture}, un hilo del sistema: un hilo virtual que
+     * esperara el plazo no llegaría a ejecutarse mientras las compilaciones
+     * ocupan todos los portadores.
+     *
+     * @param linea      La petición JSON.
+     * @param conexion   La conexión, donde se escribe la respuesta.
+     * @param pendientes Respuestas en curso de la conexión; se completa.
+     */
+    private void recibir(String linea, Conexion conexion, List<Future<?>> pendientes) {
+        Map<String, Object> peticion;
+        try {
+            peticion = Json.leerObjeto(linea);
+        } catch (IllegalArgumentException e) {
+            responder(conexion, error(null, e.getMessage()));
+            return;
+        }
+        Object id = peticion.get("id");
+        if (!cola.tryAcquire()) {
+            responder(conexion, error(id, "Servidor ocupado: la cola de " + capacidadCola + " peticiones está llena"));
+            return;
+        }
+
+        CompletableFuture<String> tarea;
+        try {
+            tarea = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return compilar(peticion, id);
+                } finally {
+                    cola.release();
+                }
+            }, ejecutor);
+        } catch (RejectedExecutionException e) {
+            cola.release();
+            responder(conexion, error(id, "Servidor detenido"));
+            return;
+        }
+        pendientes.add(tarea
+                .completeOnTimeout(error(id, "Tiempo agotado: la petición tardó más de " + tiempoLimite + " ms"),
+                        tiempoLimite, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> error(id, e.getMessage()))
+                .thenAccept(respuesta -> responder(conexion, respuesta)));
+    }
+
+    /**
+     * Compila una petición: valida y procesa la expresión, la evalúa con los
+     * valores recibidos y genera el programa ASM en memoria.
+     *
+     * @param peticion La petición JSON.
+     * @param id       Identificador de la petición.
+     * @return La respuesta JSON, con el resultado o con el error.
+     */
+    private String compilar(Map<String, Object> peticion, Object id) {
+        try {
+            if (!(peticion.get("expresion") instanceof String contenido)) {
+                throw new IllegalArgumentException("Falta la propiedad \"expresion\"");
+            }
+            Map<String, Double> valores = Map.of();
+            if (peticion.get("valores") instanceof Map<?, ?> objeto) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> propiedades = (Map<String, Object>) objeto;
+                valores = TablaValores.filaDesdeJson(propiedades);
+            } else if (peticion.get("valores") != null) {
+                throw new IllegalArgumentException("\"valores\" debe ser un objeto");
+            }
+            OpcionesCompilacion opcionesPeticion = opciones;
+            if (peticion.get("opciones") instanceof List<?> lista) {
+                for (Object opcion : lista) {
+                    if (!(opcion instanceof String texto) || !OpcionesCompilacion.esOpcion(texto)) {
+                        throw new IllegalArgumentException("Opción no reconocida: " + opcion);
+                    }
+                    opcionesPeticion = opcionesPeticion.aplicar(texto);
+                }
+            } else if (peticion.get("opciones") != null) {
+                throw new IllegalArgumentException("\"opciones\" debe ser un arreglo");
+            }
+
+            ByteArrayOutputStream asm = new ByteArrayOutputStream();
+            ContextoPrograma programa = ExpresionesAritmeticasASM.compilar(contenido, opcionesPeticion, cache,
+                    TablaValores.fuente(valores), () -> Channels.newChannel(asm), false);
+            List<ContextoCompilacion> sentencias = programa.sentencias();
+            double resultado = programa.resultado();
+            return "{\"id\":" + id(id)
+                    + ",\"variable\":" + Json.cadena(sentencias.get(sentencias.size() - 1).expresion()
+                            .variableIzquierda())
+                    + ",\"resultado\":" + Json.numero(resultado)
+                    + ",\"texto\":" + Json.cadena(PuntoFijo.texto(resultado))
+                    + ",\"asm\":" + Json.cadena(asm.toString(StandardCharsets.UTF_8)) + "}";
+        } catch (IOException | RuntimeException e) {
+            return error(id, e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe una respuesta en su propia línea. Se escribe directamente en el
+     * canal, con un candado que no fija el hilo virtual: un {@code Writer} de
+     * {@link Channels} esperaría a que terminara la lectura bloqueada de la
+     * siguiente petición.
+     */
+    private static void responder(Conexion conexion, String respuesta) {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(respuesta + "\n");
+        conexion.escritura().lock();
+        try {
+            while (bytes.hasRemaining()) {
+                conexion.canal().write(bytes);
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión; la respuesta se descarta
+        } finally {
+            conexion.escritura().unlock();
+        }
+    }
+
+    private static String error(Object id, String mensaje) {
+        return "{\"id\":" + id(id) + ",\"error\":" + Json.cadena(mensaje) + "}";
+    }
+
+    private static String id(Object id) {
+        return id instanceof Double numero ? Json.numero(numero) : Json.cadena(id == null ? null : id.toString());
+    }
+
+    /**
+     * Un ejecutor con un hilo virtual por tarea, si la JVM los tiene. Se busca
+     * por reflexión porque el proyecto se compila para Java 17.
+     *
+     * @return El ejecutor, o null en una JVM sin hilos virtuales.
+     */
+    private static ExecutorService hilosVirtuales() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Una conexión aceptada y el candado que ordena las respuestas escritas en
+     * ella desde varios hilos.
+     */
+    private record Conexion(SocketChannel canal, Lock escritura) {
+    }
+}
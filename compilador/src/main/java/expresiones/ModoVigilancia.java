@@ -0,0 +1,271 @@
+package expresiones;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de vigilancia: compila los archivos .txt de un directorio y se queda
+ * esperando cambios con un {@link WatchService}; cada archivo que cambia se
+ * vuelve a compilar sin reiniciar el programa.
+ *
+ * <p>
+ * Los archivos y sus valores siguen las reglas del modo por lotes
+ * ({@link ModoLote}): "nombre.txt" genera "nombre.ASM" y sus valores se leen de
+ * "nombre.properties" y de las opciones {@code -D}. Cambiar el archivo de
+ * valores también recompila su expresión.
+ *
+ * <p>
+ * Un editor suele guardar un archivo con varios eventos seguidos, así que los
+ * eventos se juntan hasta que pasan {@code --rebote} milisegundos sin ninguno.
+ * Entonces se calcula un resumen SHA-256 de cada archivo tocado (la expresión
+ * y sus valores) y sólo se compilan, y sólo se reescriben sus .ASM, los que
+ * cambiaron de verdad. Las expresiones procesadas se quedan en una
+ * {@link CacheExpresiones}, y la JVM ya está caliente después de la primera
+ * pasada, así que una recompilación tarda milisegundos.
+ */
+final class ModoVigilancia {
+    // Milisegundos sin eventos que se esperan antes de compilar
+    private static final long REBOTE_PREDETERMINADO = 30;
+    private static final int CAPACIDAD_CACHE = 1024;
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    private final Path directorio;
+    private final Path directorioSalida;
+    private final Map<String, Double> valoresComunes;
+    private final OpcionesCompilacion opciones;
+    private final CacheExpresiones cache;
+
+    // Resumen del contenido con que se compiló cada archivo .txt
+    private final Map<Path, byte[]> resumenes = new HashMap<>();
+
+    private ModoVigilancia(Path directorio, Path directorioSalida, Map<String, Double> valoresComunes,
+            OpcionesCompilacion opciones, CacheExpresiones cache) {
+        this.directorio = directorio;
+        this.directorioSalida = directorioSalida;
+        this.valoresComunes = valoresComunes;
+        this.opciones = opciones;
+        this.cache = cache;
+    }
+
+    /**
+     * Ejecuta el modo de vigilancia hasta que se interrumpe el programa.
+     *
+     * <pre>
+     * --vigilar &lt;directorio&gt; [--salida &lt;directorio&gt;] [--rebote &lt;ms&gt;] [--cache &lt;n&gt;]
+     *           [-Dvariable=valor]... [-O0 | --sin-&lt;optimización&gt;...]
+     * </pre>
+     *
+     * @param args Argumentos de la línea de comandos después de "--vigilar".
+     * @return Código de salida: 1 si el directorio deja de poder vigilarse y 2
+     *         si los argumentos son incorrectos.
+     */
+    static int ejecutar(String[] args) {
+        Path directorio = null;
+        Path directorioSalida = null;
+        Map<String, Double> valoresComunes = new HashMap<>();
+        long rebote = REBOTE_PREDETERMINADO;
+        int capacidadCache = CAPACIDAD_CACHE;
+        OpcionesCompilacion opciones = OpcionesCompilacion.PREDETERMINADAS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--salida") && i + 1 < args.length) {
+                    directorioSalida = Paths.get(args[++i]);
+                } else if (args[i].equals("--rebote") && i + 1 < args.length) {
+                    rebote = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                    capacidadCache = Integer.parseInt(args[++i]);
+                } else if (OpcionesCompilacion.esOpcion(args[i])) {
+                    opciones = opciones.aplicar(args[i]);
+                } else if (args[i].startsWith("-D")) {
+                    TablaValores.agregarOpcion(args[i], valoresComunes);
+                } else if (directorio == null && !args[i].startsWith("-")) {
+                    directorio = Paths.get(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Argumento no reconocido: " + args[i]);
+                }
+            }
+            if (directorio == null || !Files.isDirectory(directorio)) {
+                throw new IllegalArgumentException(directorio == null ? "Falta el directorio a vigilar"
+                        : "No es un directorio: " + directorio);
+            }
+            if (rebote < 0) {
+                throw new IllegalArgumentException("El rebote no puede ser negativo: " + rebote);
+            }
+            if (directorioSalida != null) {
+                Files.createDirectories(directorioSalida);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error en los argumentos: " + e.getMessage());
+            System.err.println("Uso: --vigilar <directorio> [--salida <directorio>] [--rebote <ms>] [--cache <n>]"
+                    + " [-Dvariable=valor]... [-O0 | --sin-<optimización>...]");
+            return 2;
+        }
+
+        Metricas.activarJfr();
+        ModoVigilancia modo = new ModoVigilancia(directorio, directorioSalida, valoresComunes, opciones,
+                new CacheExpresiones(capacidadCache));
+        try (WatchService servicio = directorio.getFileSystem().newWatchService()) {
+            directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            modo.compilar(modo.archivosDelDirectorio());
+            System.out.println("Vigilando " + directorio + " (rebote de " + rebote + " ms; Ctrl+C para terminar)");
+            modo.vigilar(servicio, rebote);
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            return 0;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // VIGILANCIA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Espera eventos del directorio y compila los archivos afectados. Sólo
+     * termina si el directorio deja de poder vigilarse (p. ej. se borró).
+     *
+     * @param servicio Servicio donde está registrado el directorio.
+     * @param rebote   Milisegundos sin eventos que se esperan antes de compilar.
+     */
+    private void vigilar(WatchService servicio, long rebote) throws IOException, InterruptedException {
+        while (true) {
+            WatchKey clave = servicio.take();
+            Set<Path> tocados = new TreeSet<>();
+            boolean desbordado = false;
+            do {
+                for (WatchEvent<?> evento : clave.pollEvents()) {
+                    if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        desbordado = true;
+                    } else {
+                        Path archivo = expresionDe(directorio.resolve((Path) evento.context()));
+                        if (archivo != null) {
+                            tocados.add(archivo);
+                        }
+                    }
+                }
+                if (!clave.reset()) {
+                    System.err.println("Error: ya no se puede vigilar " + directorio);
+                    return;
+                }
+            } while ((clave = servicio.poll(rebote, TimeUnit.MILLISECONDS)) != null);
+
+            // Se perdieron eventos: se revisa todo el directorio
+            if (desbordado) {
+                tocados.addAll(archivosDelDirectorio());
+                tocados.addAll(resumenes.keySet());
+            }
+            compilar(tocados);
+        }
+    }
+
+    /**
+     * @param archivo Un archivo del directorio.
+     * @return El archivo .txt al que afecta un cambio en él, o null si no
+     *         afecta a ninguno.
+     */
+    private static Path expresionDe(Path archivo) {
+        return archivo.getFileName().toString().endsWith(".txt") ? archivo : ModoLote.archivoExpresion(archivo);
+    }
+
+    private Set<Path> archivosDelDirectorio() throws IOException {
+        Set<Path> archivos = new TreeSet<>();
+        try (DirectoryStream<Path> flujo = Files.newDirectoryStream(directorio, "*.txt")) {
+            for (Path archivo : flujo) {
+                if (Files.isRegularFile(archivo)) {
+                    archivos.add(archivo);
+                }
+            }
+        }
+        return archivos;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // COMPILACIÓN INCREMENTAL
+    // ---------------------------------------------------------------------------------
+    /**
+     * Compila los archivos cuyo contenido cambió desde su última compilación
+     * correcta y muestra una línea por cada uno.
+     *
+     * @param archivos Archivos .txt posiblemente modificados; los que ya no
+     *                 existen se olvidan.
+     */
+    private void compilar(Set<Path> archivos) {
+        for (Path archivo : archivos) {
+            long inicio = System.nanoTime();
+            Path salida = ModoLote.archivoSalida(archivo, directorioSalida);
+            ModoLote.ResultadoArchivo resultado;
+            try {
+                if (!Files.isRegularFile(archivo)) {
+                    resumenes.remove(archivo);
+                    continue;
+                }
+                Metricas.Medicion medicion = Metricas.iniciar(Metricas.Fase.LECTURA, 0);
+                byte[] contenido = Files.readAllBytes(archivo);
+                medicion.terminar(contenido.length);
+                byte[] resumen = resumen(contenido, archivo);
+                if (Arrays.equals(resumen, resumenes.get(archivo))) {
+                    continue;
+                }
+                Map<String, Double> fila = new HashMap<>(valoresComunes);
+                fila.putAll(ModoLote.leerValores(archivo));
+                ContextoPrograma programa = ExpresionesAritmeticasASM.compilar(new String(contenido), opciones, cache,
+                        TablaValores.fuente(fila), ContextoCompilacion.SalidaASM.archivo(salida), false);
+                // Solo una compilación correcta se recuerda: un fallo se reintenta en el siguiente cambio
+                resumenes.put(archivo, resumen);
+                resultado = new ModoLote.ResultadoArchivo(archivo, salida, programa.resultado(), programa.informe(),
+                        null);
+            } catch (IOException | RuntimeException e) {
+                resumenes.remove(archivo);
+                resultado = new ModoLote.ResultadoArchivo(archivo, salida, Double.NaN, InformeOptimizacion.VACIO,
+                        e.getMessage());
+            }
+
+            String milisegundos = String.format("%.1f ms", (System.nanoTime() - inicio) / 1e6);
+            if (resultado.error() == null) {
+                System.out.println(" - " + archivo + " -> " + salida + " (" + PuntoFijo.texto(resultado.valor())
+                        + ", " + milisegundos + ")");
+            } else {
+                System.err.println(" - Error en " + archivo + ": " + resultado.error() + " (" + milisegundos + ")");
+            }
+        }
+    }
+
+    /**
+     * Resumen SHA-256 de lo que determina el programa de un archivo: la
+     * expresión y su archivo de valores. Las opciones de la línea de comandos
+     * no cambian mientras el modo está en ejecución.
+     *
+     * @param contenido Contenido del archivo .txt.
+     * @param archivo   Ruta del archivo .txt.
+     * @return El resumen.
+     * @throws IOException Si el archivo de valores existe pero no puede leerse.
+     */
+    private static byte[] resumen(byte[] contenido, Path archivo) throws IOException {
+        MessageDigest sha = CacheDisco.resumen();
+        sha.update(contenido);
+        Path valores = ModoLote.archivoValores(archivo);
+        if (Files.isRegularFile(valores)) {
+            sha.update((byte) 0);
+            sha.update(Files.readAllBytes(valores));
+        }
+        return sha.digest();
+    }
+}
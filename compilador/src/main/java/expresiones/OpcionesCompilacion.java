@@ -0,0 +1,81 @@
+package expresiones;
+
+/**
+ * Optimizaciones que se aplican al compilar una expresión. Todas están
+ * activadas por defecto; {@code -O0} las desactiva y genera el programa ASM
+ * clásico, instrucción por instrucción.
+ *
+ * @param reutilizarTemporales   Reutilizar las posiciones de los temporales que
+ *                               ya no se leen (ver
+ *                               {@link AsignadorTemporales}).
+ * @param eliminarSubexpresiones Calcular una sola vez las operaciones
+ *                               repetidas (ver
+ *                               {@link EliminadorSubexpresiones}).
+ * @param plegarConstantes       Calcular al compilar las operaciones entre
+ *                               literales, simplificar identidades y cambiar
+ *                               por desplazamientos las multiplicaciones y
+ *                               divisiones por potencias de dos (ver
+ *                               {@link PlegadoConstantes}).
+ * @param optimizarMirilla       Quitar cargas, guardados y saltos
+ *                               innecesarios de las instrucciones ASM (ver
+ *                               {@link OptimizadorMirilla}).
+ * @param asignarRegistros       Guardar los resultados intermedios en
+ *                               registros y elegir las instrucciones según su
+ *                               costo en ciclos (ver
+ *                               {@link SelectorInstrucciones}).
+ */
+record OpcionesCompilacion(boolean reutilizarTemporales, boolean eliminarSubexpresiones, boolean plegarConstantes,
+        boolean optimizarMirilla, boolean asignarRegistros) {
+    /** Todas las optimizaciones activadas. */
+    static final OpcionesCompilacion PREDETERMINADAS = new OpcionesCompilacion(true, true, true, true, true);
+
+    /** Ninguna optimización: el programa ASM clásico. */
+    static final OpcionesCompilacion SIN_OPTIMIZAR = new OpcionesCompilacion(false, false, false, false, false);
+
+    /**
+     * @param argumento Un argumento de la línea de comandos.
+     * @return true si el argumento es una opción de optimización.
+     */
+    static boolean esOpcion(String argumento) {
+        return argumento.equals("-O0") || argumento.equals("-O") || argumento.startsWith("--sin-");
+    }
+
+    /**
+     * Aplica una opción de la línea de comandos:
+     * <ul>
+     * <li>{@code -O}: todas las optimizaciones.</li>
+     * <li>{@code -O0}: ninguna optimización.</li>
+     * <li>{@code --sin-reutilizar-temporales}: un temporal distinto por
+     * operación.</li>
+     * <li>{@code --sin-subexpresiones}: calcular cada operación repetida todas
+     * las veces.</li>
+     * <li>{@code --sin-plegado}: no plegar constantes, no simplificar
+     * identidades y usar siempre {@code IMUL}/{@code IDIV}.</li>
+     * <li>{@code --sin-mirilla}: escribir las instrucciones ASM tal como se
+     * generan.</li>
+     * <li>{@code --sin-registros}: pasar cada resultado intermedio por AX y
+     * por un temporal en memoria.</li>
+     * </ul>
+     *
+     * @param opcion La opción tal como se escribió.
+     * @return Las opciones resultantes.
+     * @throws IllegalArgumentException Si la opción no existe.
+     */
+    OpcionesCompilacion aplicar(String opcion) {
+        return switch (opcion) {
+            case "-O" -> PREDETERMINADAS;
+            case "-O0" -> SIN_OPTIMIZAR;
+            case "--sin-reutilizar-temporales" -> new OpcionesCompilacion(false, eliminarSubexpresiones,
+                    plegarConstantes, optimizarMirilla, asignarRegistros);
+            case "--sin-subexpresiones" -> new OpcionesCompilacion(reutilizarTemporales, false, plegarConstantes,
+                    optimizarMirilla, asignarRegistros);
+            case "--sin-plegado" -> new OpcionesCompilacion(reutilizarTemporales, eliminarSubexpresiones, false,
+                    optimizarMirilla, asignarRegistros);
+            case "--sin-mirilla" -> new OpcionesCompilacion(reutilizarTemporales, eliminarSubexpresiones,
+                    plegarConstantes, false, asignarRegistros);
+            case "--sin-registros" -> new OpcionesCompilacion(reutilizarTemporales, eliminarSubexpresiones,
+                    plegarConstantes, optimizarMirilla, false);
+            default -> throw new IllegalArgumentException("Opción de optimización no válida: " + opcion);
+        };
+    }
+}
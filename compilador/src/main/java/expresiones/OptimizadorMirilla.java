@@ -0,0 +1,565 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimizador de mirilla sobre las instrucciones ASM de una expresión.
+ *
+ * <p>
+ * Recorre las líneas generadas por las operaciones siguiendo qué contiene AX
+ * (una copia de una o varias posiciones de memoria, o un valor conocido) y
+ * qué posiciones tienen un valor conocido, y quita:
+ * <ul>
+ * <li>las cargas {@code MOV AX, x} cuando AX ya contiene x, p. ej. la del
+ * ajuste de decimales justo después de guardar el resultado;</li>
+ * <li>los guardados {@code MOV x, AX} cuando x ya contiene AX;</li>
+ * <li>los {@code XOR DX, DX} que {@code CWD} sobrescribe antes de leerlos;</li>
+ * <li>las comparaciones con AX conocido, que se vuelven un {@code JMP} o
+ * desaparecen, el código inalcanzable después de un {@code JMP}, los saltos a
+ * la línea siguiente y las etiquetas que ya nadie usa;</li>
+ * <li>las escrituras de temporales que nunca se vuelven a leer.</li>
+ * </ul>
+ *
+ * <p>
+ * Los operandos se leen como los leería el ensamblador: todo lo que sigue a
+ * un punto y coma es comentario, por lo que {@code MOV AX, 2;5} carga 2. El
+ * código sólo salta hacia adelante, así que "se lee más adelante" es una
+ * aproximación segura de "se lee".
+ */
+final class OptimizadorMirilla {
+    private OptimizadorMirilla() {
+    }
+
+    /**
+     * Instrucciones optimizadas.
+     *
+     * @param lineas                  Las líneas resultantes.
+     * @param instruccionesEliminadas Cuántas instrucciones se quitaron.
+     * @param bytesEliminados         Cuántos bytes de código 8086 se ahorraron.
+     */
+    record Resultado(List<String> lineas, int instruccionesEliminadas, int bytesEliminados) {
+    }
+
+    /**
+     * Aplica las reglas hasta que ninguna cambie nada.
+     *
+     * @param lineas Líneas ASM de las operaciones, sin saltos de línea.
+     * @return Las líneas optimizadas y lo que se ahorró.
+     */
+    static Resultado optimizar(List<String> lineas) {
+        List<String> actual = new ArrayList<>(lineas);
+        int instruccionesAntes = contarInstrucciones(actual);
+        int bytesAntes = contarBytes(actual);
+
+        boolean cambio;
+        do {
+            cambio = propagar(actual);
+            cambio |= quitarEscriturasMuertas(actual);
+        } while (cambio);
+
+        return new Resultado(actual, instruccionesAntes - contarInstrucciones(actual),
+                bytesAntes - contarBytes(actual));
+    }
+
+    // ---------------------------------------------------------------------------------
+    // REGLAS
+    // ---------------------------------------------------------------------------------
+    /**
+     * Recorre el código una vez siguiendo el contenido de AX y de la memoria.
+     *
+     * @return true si cambió alguna línea.
+     */
+    private static boolean propagar(List<String> lineas) {
+        Set<String> referenciadas = etiquetasReferenciadas(lineas);
+        List<String> resultado = new ArrayList<>(lineas.size());
+        Set<String> copias = new HashSet<>(); // Posiciones con el mismo valor que AX
+        Integer ax = null; // Valor de AX, si se conoce
+        Map<String, Integer> memoria = new HashMap<>();
+        boolean inalcanzable = false;
+        Boolean condicion = null; // Resultado del CMP anterior, si se conoce
+        boolean cambio = false;
+
+        for (int i = 0; i < lineas.size(); i++) {
+            String linea = lineas.get(i);
+            String etiqueta = etiqueta(linea);
+            if (etiqueta != null) {
+                if (!referenciadas.contains(etiqueta)) {
+                    cambio = true;
+                    continue;
+                }
+                // Se llega desde otro punto: no se sabe nada
+                inalcanzable = false;
+                copias.clear();
+                ax = null;
+                memoria.clear();
+                resultado.add(linea);
+                continue;
+            }
+            Operacion op = operacion(linea);
+            if (op == null || inalcanzable) {
+                if (inalcanzable && !linea.isBlank()) {
+                    cambio = true;
+                } else {
+                    resultado.add(linea);
+                }
+                continue;
+            }
+
+            // Comparación con AX conocido seguida de un salto condicional
+            if (op.es("CMP") && "AX".equals(op.destino()) && ax != null && esInmediato(op.fuente())) {
+                Operacion salto = siguiente(lineas, i);
+                Boolean tomado = salto == null ? null : evaluarSalto(salto.mnemonico(), ax, valor(op.fuente()));
+                if (tomado != null) {
+                    condicion = tomado;
+                    cambio = true;
+                    continue;
+                }
+            }
+            if (condicion != null) {
+                boolean tomado = condicion;
+                condicion = null;
+                cambio = true;
+                if (!tomado) {
+                    continue;
+                }
+                linea = sangria(linea) + "JMP " + op.destino();
+                op = operacion(linea);
+            }
+
+            if ((op.es("MOV") || op.es("XOR")) && op.fuente() == null) {
+                // Sin segundo operando, p. ej. "MOV -4;5, AX" al asignar un literal
+                copias.clear();
+                ax = null;
+                memoria.clear();
+                resultado.add(linea);
+                continue;
+            }
+
+            switch (op.mnemonico()) {
+                case "JMP" -> {
+                    String destino = siguienteEtiqueta(lineas, i);
+                    if (op.destino().equals(destino)) {
+                        cambio = true;
+                        continue;
+                    }
+                    inalcanzable = true;
+                }
+                case "MOV" -> {
+                    String d = op.destino();
+                    String s = op.fuente();
+                    if (d.equals("AX")) {
+                        if (esInmediato(s) ? ax != null && ax == valor(s) : copias.contains(s)) {
+                            cambio = true;
+                            continue;
+                        }
+                        copias.clear();
+                        if (esMemoria(s)) {
+                            copias.add(s);
+                            ax = memoria.get(s);
+                        } else {
+                            ax = esInmediato(s) ? valor(s) : null;
+                        }
+                    } else if (s.equals("AX") && esMemoria(d)) {
+                        if (copias.contains(d)) {
+                            cambio = true;
+                            continue;
+                        }
+                        copias.add(d);
+                        if (ax != null) {
+                            memoria.put(d, ax);
+                        } else {
+                            memoria.remove(d);
+                        }
+                    } else {
+                        actualizarDestino(op, copias, memoria);
+                        if (escribeAX(op)) {
+                            copias.clear();
+                            ax = null;
+                        }
+                    }
+                }
+                case "XOR" -> {
+                    if (op.destino().equals("DX") && op.fuente().equals("DX") && sobrescritoPorCWD(lineas, i)) {
+                        cambio = true;
+                        continue;
+                    }
+                    if (op.destino().equals("AX") && op.fuente().equals("AX")) {
+                        copias.clear();
+                        ax = 0;
+                    } else {
+                        actualizarDestino(op, copias, memoria);
+                        if (escribeAX(op)) {
+                            copias.clear();
+                            ax = null;
+                        }
+                    }
+                }
+                case "INT", "CALL" -> {
+                    copias.clear();
+                    ax = null;
+                    memoria.clear();
+                }
+                default -> {
+                    if (!conocida(op)) {
+                        copias.clear();
+                        ax = null;
+                        memoria.clear();
+                    } else if (escribeAX(op)) {
+                        copias.clear();
+                        ax = ax == null ? null : calcular(op, ax);
+                    } else {
+                        actualizarDestino(op, copias, memoria);
+                    }
+                }
+            }
+            resultado.add(linea);
+        }
+
+        lineas.clear();
+        lineas.addAll(resultado);
+        return cambio;
+    }
+
+    /**
+     * Quita los {@code MOV T, AX} de temporales que ninguna instrucción
+     * posterior lee.
+     *
+     * @return true si se quitó alguna línea.
+     */
+    private static boolean quitarEscriturasMuertas(List<String> lineas) {
+        Set<String> leidos = new HashSet<>();
+        boolean cambio = false;
+        for (int i = lineas.size() - 1; i >= 0; i--) {
+            Operacion op = operacion(lineas.get(i));
+            if (op == null) {
+                continue;
+            }
+            if (op.es("MOV")) {
+                if ("AX".equals(op.fuente()) && esTemporal(op.destino()) && !leidos.contains(op.destino())) {
+                    lineas.remove(i);
+                    cambio = true;
+                    continue;
+                }
+            } else if (op.destino() != null) {
+                leidos.add(op.destino());
+            }
+            if (op.fuente() != null) {
+                leidos.add(op.fuente());
+            }
+        }
+        return cambio;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // EFECTOS DE LAS INSTRUCCIONES
+    // ---------------------------------------------------------------------------------
+    private static boolean conocida(Operacion op) {
+        return switch (op.mnemonico()) {
+            case "ADD", "SUB", "CMP", "AND", "OR", "TEST", "INC", "DEC", "NEG", "NOT", "SHL", "SAL", "SHR", "SAR",
+                    "CWD", "CBW", "IMUL", "IDIV", "MUL", "DIV", "LEA" -> true;
+            default -> op.mnemonico().startsWith("J");
+        };
+    }
+
+    private static boolean escribeAX(Operacion op) {
+        return switch (op.mnemonico()) {
+            case "IMUL", "IDIV", "MUL", "DIV", "CBW" -> true;
+            case "CMP", "TEST", "CWD" -> false;
+            default -> op.destino() != null && (op.destino().equals("AX") || op.destino().equals("AL")
+                    || op.destino().equals("AH"));
+        };
+    }
+
+    private static void actualizarDestino(Operacion op, Set<String> copias, Map<String, Integer> memoria) {
+        if (op.destino() != null && esMemoria(op.destino()) && !op.es("CMP") && !op.es("TEST")
+                && !op.mnemonico().startsWith("J")) {
+            copias.remove(op.destino());
+            memoria.remove(op.destino());
+        }
+    }
+
+    /**
+     * Calcula el nuevo valor de AX, con la aritmética de 16 bits del 8086.
+     *
+     * @return El valor, o null si no se puede saber.
+     */
+    private static Integer calcular(Operacion op, int ax) {
+        if (op.fuente() == null) {
+            return switch (op.mnemonico()) {
+                case "INC" -> (int) (short) (ax + 1);
+                case "DEC" -> (int) (short) (ax - 1);
+                case "NEG" -> (int) (short) -ax;
+                default -> null;
+            };
+        }
+        if (!op.destino().equals("AX") || !esInmediato(op.fuente())) {
+            return null;
+        }
+        int b = valor(op.fuente());
+        return switch (op.mnemonico()) {
+            case "ADD" -> (int) (short) (ax + b);
+            case "SUB" -> (int) (short) (ax - b);
+            case "AND" -> (int) (short) (ax & b);
+            case "OR" -> (int) (short) (ax | b);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return Si el salto se toma, o null si no es un salto con signo conocido.
+     */
+    private static Boolean evaluarSalto(String salto, int a, int b) {
+        return switch (salto) {
+            case "JL" -> a < b;
+            case "JLE" -> a <= b;
+            case "JG" -> a > b;
+            case "JGE" -> a >= b;
+            case "JE", "JZ" -> a == b;
+            case "JNE", "JNZ" -> a != b;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return true si un {@code CWD} sobrescribe DX antes de que alguna
+     *         instrucción lo lea.
+     */
+    private static boolean sobrescritoPorCWD(List<String> lineas, int i) {
+        for (int j = i + 1; j < lineas.size(); j++) {
+            if (etiqueta(lineas.get(j)) != null) {
+                return false;
+            }
+            Operacion op = operacion(lineas.get(j));
+            if (op == null) {
+                continue;
+            }
+            if (op.es("CWD")) {
+                return true;
+            }
+            if (!op.es("MOV") || usaDX(op.destino()) || usaDX(op.fuente())) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean usaDX(String operando) {
+        return operando.equals("DX") || operando.equals("DL") || operando.equals("DH");
+    }
+
+    // ---------------------------------------------------------------------------------
+    // TAMAÑO DE LAS INSTRUCCIONES
+    // ---------------------------------------------------------------------------------
+    /**
+     * Bytes que ocupa una instrucción en el 8086, con la codificación más corta
+     * (saltos cortos, formas del acumulador y memoria con dirección directa).
+     *
+     * @param op La instrucción.
+     * @return El tamaño en bytes.
+     */
+    static int tamano(Operacion op) {
+        String d = op.destino();
+        String s = op.fuente();
+        if (d == null) {
+            return 1; // CWD, CBW, ...
+        }
+        String m = op.mnemonico();
+        if (s == null) {
+            if (m.startsWith("J") || m.equals("INT") || m.equals("LOOP")) {
+                return 2;
+            }
+            if (esMemoria(d)) {
+                return 4;
+            }
+            return (m.equals("INC") || m.equals("DEC")) && esRegistro16(d) ? 1 : 2;
+        }
+        return switch (m) {
+            case "SHL", "SAL", "SHR", "SAR", "ROL", "ROR" -> esMemoria(d) ? 4 : 2;
+            case "MOV" -> {
+                if (esRegistro(d) && esInmediato(s)) {
+                    yield esRegistro16(d) ? 3 : 2;
+                }
+                if ((d.equals("AX") && esMemoria(s)) || (s.equals("AX") && esMemoria(d))) {
+                    yield 3;
+                }
+                if (esRegistro(d) && esRegistro(s)) {
+                    yield 2;
+                }
+                yield esInmediato(s) ? 6 : 4;
+            }
+            case "LEA" -> 4;
+            default -> { // ADD, SUB, CMP, AND, OR, XOR, TEST
+                if (esRegistro(d) && esRegistro(s)) {
+                    yield 2;
+                }
+                if (esInmediato(s)) {
+                    boolean corto = valor(s) >= -128 && valor(s) <= 127;
+                    if (esMemoria(d)) {
+                        yield corto ? 5 : 6;
+                    }
+                    if (!esRegistro16(d)) {
+                        yield d.equals("AL") ? 2 : 3;
+                    }
+                    yield d.equals("AX") || corto ? 3 : 4;
+                }
+                yield 4;
+            }
+        };
+    }
+
+    private static int contarInstrucciones(List<String> lineas) {
+        int n = 0;
+        for (String linea : lineas) {
+            if (operacion(linea) != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static int contarBytes(List<String> lineas) {
+        int n = 0;
+        for (String linea : lineas) {
+            Operacion op = operacion(linea);
+            if (op != null) {
+                n += tamano(op);
+            }
+        }
+        return n;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // LECTURA DE LÍNEAS
+    // ---------------------------------------------------------------------------------
+    /**
+     * Una instrucción ya separada en partes.
+     *
+     * @param mnemonico El mnemónico, p. ej. "MOV".
+     * @param destino   El primer operando, o null.
+     * @param fuente    El segundo operando, o null.
+     */
+    record Operacion(String mnemonico, String destino, String fuente) {
+        boolean es(String m) {
+            return mnemonico.equals(m);
+        }
+    }
+
+    /**
+     * @param linea Una línea ASM.
+     * @return La instrucción de la línea, o null si es una línea vacía, un
+     *         comentario o una etiqueta.
+     */
+    static Operacion operacion(String linea) {
+        int comentario = linea.indexOf(';');
+        String codigo = (comentario >= 0 ? linea.substring(0, comentario) : linea).strip();
+        if (codigo.isEmpty() || codigo.endsWith(":")) {
+            return null;
+        }
+        int espacio = codigo.indexOf(' ');
+        if (espacio < 0) {
+            return new Operacion(codigo, null, null);
+        }
+        String mnemonico = codigo.substring(0, espacio);
+        String operandos = codigo.substring(espacio + 1);
+        int coma = operandos.indexOf(',');
+        if (coma < 0) {
+            return new Operacion(mnemonico, operandos.strip(), null);
+        }
+        return new Operacion(mnemonico, operandos.substring(0, coma).strip(), operandos.substring(coma + 1).strip());
+    }
+
+    private static String etiqueta(String linea) {
+        int comentario = linea.indexOf(';');
+        String codigo = (comentario >= 0 ? linea.substring(0, comentario) : linea).strip();
+        return codigo.endsWith(":") ? codigo.substring(0, codigo.length() - 1) : null;
+    }
+
+    private static Set<String> etiquetasReferenciadas(List<String> lineas) {
+        Set<String> referenciadas = new HashSet<>();
+        for (String linea : lineas) {
+            Operacion op = operacion(linea);
+            if (op != null && op.mnemonico().startsWith("J") && op.destino() != null) {
+                referenciadas.add(op.destino());
+            }
+        }
+        return referenciadas;
+    }
+
+    /**
+     * @return La siguiente instrucción después de la línea i si no hay una
+     *         etiqueta en medio, o null.
+     */
+    private static Operacion siguiente(List<String> lineas, int i) {
+        for (int j = i + 1; j < lineas.size(); j++) {
+            if (etiqueta(lineas.get(j)) != null) {
+                return null;
+            }
+            Operacion op = operacion(lineas.get(j));
+            if (op != null) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return La etiqueta a la que se llega justo después de la línea i, sin
+     *         instrucciones en medio, o null.
+     */
+    private static String siguienteEtiqueta(List<String> lineas, int i) {
+        for (int j = i + 1; j < lineas.size(); j++) {
+            String etiqueta = etiqueta(lineas.get(j));
+            if (etiqueta != null) {
+                return etiqueta;
+            }
+            if (operacion(lineas.get(j)) != null) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String sangria(String linea) {
+        return linea.substring(0, linea.length() - linea.stripLeading().length());
+    }
+
+    private static boolean esInmediato(String operando) {
+        if (operando == null || operando.isEmpty()) {
+            return false;
+        }
+        char c = operando.charAt(0);
+        return (c >= '0' && c <= '9' || c == '-') && operando.chars().skip(1).allMatch(Character::isDigit)
+                && operando.length() <= 6;
+    }
+
+    private static int valor(String inmediato) {
+        return (short) Integer.parseInt(inmediato);
+    }
+
+    private static boolean esRegistro16(String operando) {
+        return switch (operando) {
+            case "AX", "BX", "CX", "DX", "SI", "DI", "BP", "SP", "DS", "ES", "SS", "CS" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean esRegistro(String operando) {
+        return esRegistro16(operando) || switch (operando) {
+            case "AL", "AH", "BL", "BH", "CL", "CH", "DL", "DH" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean esMemoria(String operando) {
+        return operando != null && !esRegistro(operando) && !esInmediato(operando);
+    }
+
+    private static boolean esTemporal(String operando) {
+        return operando.matches("T\\d+(_D)?");
+    }
+}
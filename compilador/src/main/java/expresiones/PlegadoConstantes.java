@@ -0,0 +1,164 @@
+package expresiones;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plegado de constantes y simplificación de identidades algebraicas sobre el
+ * código de tres direcciones.
+ *
+ * <p>
+ * Una suma, resta o multiplicación entre dos literales enteros se calcula al
+ * compilar y su resultado reemplaza al temporal, siempre que sea un entero
+ * exacto que cabe en una palabra de 16 bits; así el valor calculado en Java y
+ * el del programa ASM no cambian. La identidad {@code x-0} se reemplaza por
+ * {@code x}.
+ *
+ * <p>
+ * Sólo se quita lo que deja igual la palabra de decimales ({@code _D}) del
+ * programa sin optimizar, donde un literal entero tiene 000 decimales: ahí
+ * {@code x*1} da {@code x_D*000 = 0} y {@code x/1}, como cualquier división
+ * entre literales enteros, divide los decimales entre 0 y el 8086 la
+ * interrumpe. Por eso no se pliegan divisiones ni se simplifican
+ * {@code x*1}, {@code 1*x} ni {@code x/1}. {@code x+0} tampoco: en Java
+ * {@code -0.0 + 0} da {@code +0.0} y el signo mostrado cambiaría.
+ *
+ * <p>
+ * La operación que alimenta la asignación final nunca se quita, porque el
+ * bloque de ajuste de decimales escribe sobre el temporal del resultado.
+ *
+ * <p>
+ * Este paso también decide qué multiplicaciones y divisiones por potencias de
+ * dos se escriben en el ASM con desplazamientos en lugar de
+ * {@code IMUL}/{@code IDIV} (ver {@link #exponenteDeDos}).
+ */
+final class PlegadoConstantes {
+    // Mayor potencia de dos que se cambia por un desplazamiento (2^14)
+    private static final int EXPONENTE_MAXIMO = 14;
+
+    private PlegadoConstantes() {
+    }
+
+    /**
+     * Código con las constantes plegadas.
+     *
+     * @param codigo        El código de tres direcciones resultante.
+     * @param plegadas      Operaciones entre literales calculadas al compilar.
+     * @param simplificadas Identidades algebraicas reemplazadas por su operando.
+     */
+    record Resultado(List<Instruccion> codigo, int plegadas, int simplificadas) {
+    }
+
+    /**
+     * Pliega las constantes y simplifica las identidades de un código.
+     *
+     * @param codigo Código de tres direcciones, terminado en la asignación (MOV).
+     * @return El código simplificado.
+     */
+    static Resultado plegar(List<Instruccion> codigo) {
+        String resultadoFinal = codigo.get(codigo.size() - 1).op2();
+        Map<String, String> valor = new HashMap<>();
+        List<Instruccion> resultado = new ArrayList<>(codigo.size());
+        int plegadas = 0;
+        int simplificadas = 0;
+
+        for (Instruccion instruccion : codigo) {
+            String op1 = valor.getOrDefault(instruccion.op1(), instruccion.op1());
+            String op2 = valor.getOrDefault(instruccion.op2(), instruccion.op2());
+            String operador = instruccion.operador();
+            if (!operador.equals("MOV") && !instruccion.destino().equals(resultadoFinal)) {
+                String plegado = plegar(operador, op1, op2);
+                if (plegado != null) {
+                    valor.put(instruccion.destino(), plegado);
+                    plegadas++;
+                    continue;
+                }
+                String simplificado = simplificar(operador, op1, op2);
+                if (simplificado != null) {
+                    valor.put(instruccion.destino(), simplificado);
+                    simplificadas++;
+                    continue;
+                }
+            }
+            resultado.add(new Instruccion(operador, op1, op2, instruccion.destino()));
+        }
+
+        boolean cambio = plegadas + simplificadas > 0;
+        return new Resultado(cambio ? Instruccion.renumerarTemporales(resultado) : resultado, plegadas,
+                simplificadas);
+    }
+
+    /**
+     * Calcula una suma, resta o multiplicación entre dos literales enteros.
+     *
+     * @return El literal del resultado, o null si no se puede plegar.
+     */
+    private static String plegar(String operador, String op1, String op2) {
+        // Las divisiones se quedan: en el ASM la de decimales es entre 000
+        if (operador.equals("DIV") || !esEntero(op1) || !esEntero(op2)) {
+            return null;
+        }
+        // La misma aritmética de calcularResultado
+        double a = Double.parseDouble(op1);
+        double b = Double.parseDouble(op2);
+        double r = switch (operador) {
+            case "MUL" -> a * b;
+            case "ADD" -> a + b;
+            default -> a - b;
+        };
+        boolean exacto = r == Math.rint(r) && Double.doubleToRawLongBits(r) != Double.doubleToRawLongBits(-0.0);
+        if (!exacto || r < Short.MIN_VALUE || r > Short.MAX_VALUE) {
+            return null;
+        }
+        return Long.toString((long) r);
+    }
+
+    /**
+     * Reemplaza una identidad algebraica por el operando que no cambia.
+     *
+     * @return El operando equivalente, o null si no es una identidad.
+     */
+    private static String simplificar(String operador, String op1, String op2) {
+        // x*1 y x/1 no: cambiarían la palabra de decimales del ASM
+        return operador.equals("SUB") && esLiteral(op2, 0) ? op1 : null;
+    }
+
+    /**
+     * Indica si un operando es un literal entero igual a 2^k, con
+     * {@code 1 <= k <= 14}: multiplicar o dividir por él equivale a desplazar k
+     * bits.
+     *
+     * @param operando Un operando del código de tres direcciones.
+     * @return El exponente k, o -1 si el operando no es una potencia de dos.
+     */
+    static int exponenteDeDos(String operando) {
+        if (!esEntero(operando) || operando.startsWith("-") || operando.length() > 5) {
+            return -1;
+        }
+        int valor = Integer.parseInt(operando);
+        int exponente = Integer.numberOfTrailingZeros(valor);
+        return valor > 1 && Integer.bitCount(valor) == 1 && exponente <= EXPONENTE_MAXIMO ? exponente : -1;
+    }
+
+    private static boolean esLiteral(String operando, int valor) {
+        // Sin signo: "x - -0" es "x + 0" y cambiaría el signo de -0.0
+        return esEntero(operando) && !operando.startsWith("-") && operando.length() <= 5
+                && Integer.parseInt(operando) == valor;
+    }
+
+    private static boolean esEntero(String operando) {
+        int inicio = operando.startsWith("-") ? 1 : 0;
+        if (operando.length() == inicio) {
+            return false;
+        }
+        for (int i = inicio; i < operando.length(); i++) {
+            char c = operando.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
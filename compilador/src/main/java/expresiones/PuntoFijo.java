@@ -0,0 +1,147 @@
+package expresiones;
+
+import java.util.Locale;
+
+/**
+ * Números en punto fijo con tres decimales: un valor se guarda como un
+ * {@code long} con sus milésimas (el valor × 1000), que es como lo separa el
+ * programa ASM en una palabra de enteros y otra de decimales ({@code _D}).
+ *
+ * <p>
+ * El redondeo es el mismo de {@code String.format(Locale.US, "%.3f", valor)}
+ * (la mitad se aleja del cero, sobre los dígitos decimales más cortos del
+ * {@code double}), de modo que el texto y las partes que se escriben en el
+ * ASM son idénticos a los que se obtenían formateando, pero sin crear cadenas
+ * ni volver a convertirlas con {@code Integer.parseInt}. Sólo en el caso raro
+ * de un valor a menos de unas unidades de redondeo de una mitad de milésima
+ * (p. ej. 0.0015) se recurre a {@code String.format} para decidir hacia dónde
+ * redondear.
+ */
+final class PuntoFijo {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    static final int ESCALA = 1000;
+
+    // Por debajo de este valor absoluto la parte entera redondeada cabe en un int,
+    // como exigía Integer.parseInt
+    private static final double LIMITE = Integer.MAX_VALUE;
+
+    private PuntoFijo() {
+    }
+
+    // ---------------------------------------------------------------------------------
+    // CONVERSIÓN
+    // ---------------------------------------------------------------------------------
+    /**
+     * Indica si un valor puede convertirse a milésimas: debe ser finito y su
+     * parte entera debe caber en un {@code int}.
+     *
+     * @param valor El valor a convertir.
+     * @return true si {@link #milesimas} puede convertirlo.
+     */
+    static boolean representable(double valor) {
+        return Math.abs(valor) < LIMITE;
+    }
+
+    /**
+     * Convierte un valor a milésimas con el redondeo de {@code "%.3f"}.
+     *
+     * @param valor Un valor {@link #representable}.
+     * @return El valor × 1000 redondeado. El signo de un valor que se redondea
+     *         a cero se pierde (ver {@link #negativo}).
+     */
+    static long milesimas(double valor) {
+        double absoluto = Math.abs(valor);
+        double escalado = absoluto * ESCALA;
+        double piso = Math.floor(escalado);
+        double distancia = escalado - piso - 0.5;
+        long magnitud;
+        if (Math.abs(distancia) > 4 * Math.ulp(escalado)) {
+            magnitud = (long) piso + (distancia > 0 ? 1 : 0);
+        } else {
+            // Casi una mitad exacta: decide el mismo redondeo de "%.3f"
+            String texto = String.format(Locale.US, "%.3f", absoluto);
+            int punto = texto.indexOf('.');
+            magnitud = Long.parseLong(texto, 0, punto, 10) * ESCALA
+                    + Integer.parseInt(texto, punto + 1, texto.length(), 10);
+        }
+        return valor < 0 ? -magnitud : magnitud;
+    }
+
+    /**
+     * Indica si {@code "%.3f"} escribe un valor con signo menos, lo que ocurre
+     * también con {@code -0.0} y con los negativos que se redondean a cero.
+     *
+     * @param valor El valor.
+     * @return true si el valor tiene el bit de signo y no es NaN.
+     */
+    static boolean negativo(double valor) {
+        return Double.doubleToRawLongBits(valor) < 0 && !Double.isNaN(valor);
+    }
+
+    /**
+     * @param milesimas Un valor en milésimas.
+     * @return La parte entera, con signo, como la escribe {@code "%.3f"}.
+     */
+    static long entero(long milesimas) {
+        return milesimas / ESCALA;
+    }
+
+    /**
+     * @param milesimas Un valor en milésimas.
+     * @return Las milésimas sin signo, de 0 a 999.
+     */
+    static int decimales(long milesimas) {
+        return (int) Math.abs(milesimas % ESCALA);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // TEXTO
+    // ---------------------------------------------------------------------------------
+    /**
+     * Escribe un valor con tres decimales, igual que
+     * {@code String.format(Locale.US, "%.3f", valor)}.
+     *
+     * @param valor El valor.
+     * @return El texto del valor.
+     */
+    static String texto(double valor) {
+        if (!representable(valor)) {
+            return String.format(Locale.US, "%.3f", valor);
+        }
+        StringBuilder texto = new StringBuilder(16);
+        if (negativo(valor)) {
+            texto.append('-');
+        }
+        long magnitud = Math.abs(milesimas(valor));
+        return agregarDecimales(texto.append(magnitud / ESCALA), (int) (magnitud % ESCALA)).toString();
+    }
+
+    /**
+     * Escribe un valor en milésimas con tres decimales, p. ej. -2500 como
+     * "-2.500".
+     *
+     * @param milesimas El valor en milésimas.
+     * @return El texto del valor.
+     */
+    static String texto(long milesimas) {
+        StringBuilder texto = new StringBuilder(24);
+        if (milesimas < 0) {
+            texto.append('-');
+        }
+        // Long.MIN_VALUE no tiene valor absoluto: su parte entera se escribe aparte
+        long entero = Math.abs(milesimas / ESCALA);
+        return agregarDecimales(texto.append(entero), (int) Math.abs(milesimas % ESCALA)).toString();
+    }
+
+    private static StringBuilder agregarDecimales(StringBuilder texto, int decimales) {
+        texto.append('.');
+        if (decimales < 100) {
+            texto.append('0');
+        }
+        if (decimales < 10) {
+            texto.append('0');
+        }
+        return texto.append(decimales);
+    }
+}
@@ -0,0 +1,724 @@
+package expresiones;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selección de instrucciones con asignación de registros.
+ *
+ * <p>
+ * El programa clásico escribe cada operación por separado: carga sus
+ * operandos en AX y BX y guarda el resultado en un temporal de memoria, que
+ * la operación siguiente vuelve a leer. Aquí los resultados intermedios se
+ * quedan en registros (BX, CX, SI, DI, y también DX y AX mientras ninguna
+ * {@code IMUL}, {@code IDIV} o {@code CWD} los necesite) y sólo se guardan en
+ * su temporal cuando no queda un registro libre, desalojando el valor que se
+ * vuelve a usar más tarde. Cada operación se escribe en la forma más barata
+ * según los ciclos del 8086 de {@link Interprete8086#ciclosEstimados}: p. ej.
+ * {@code ADD BX, CX} sobre el registro de un operando que ya no se usa,
+ * {@code IMUL x} directamente sobre la variable, {@code INC} en lugar de
+ * sumar 1, o una variable que se lee varias veces copiada una vez a un
+ * registro.
+ *
+ * <p>
+ * Las palabras de enteros y de decimales de cada valor nunca se combinan
+ * hasta la asignación final, así que se calculan en dos pasadas: primero
+ * todos los enteros, que se guardan en la variable de la izquierda, y luego
+ * los decimales, con el ajuste en ±1000 sobre un registro. Con la mitad de
+ * valores vivos a la vez casi nunca hace falta la memoria. En cada pasada se
+ * pliegan las operaciones con un operando conocido (los decimales de un
+ * literal entero son 000, así que {@code x_D + 000} no necesita instrucciones
+ * y {@code x_D * 000} es 0), pero toda división se conserva aunque su
+ * resultado no se use, porque la del programa clásico puede interrumpir el
+ * programa. Como ninguna operación imprime nada, el resultado y el mensaje de
+ * una división interrumpida son los mismos que los del programa clásico.
+ */
+final class SelectorInstrucciones {
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    // Registros que guardan valores, en el orden en que se eligen: DX y AX al
+    // final porque IMUL, IDIV y CWD los sobrescriben
+    private static final String[] REGISTROS = { "BX", "CX", "SI", "DI", "DX", "AX" };
+    private static final int DX = 4;
+    private static final int AX = 5;
+    private static final int ACUMULADORES = 1 << AX | 1 << DX;
+
+    /**
+     * Instrucciones seleccionadas.
+     *
+     * @param lineas                Las líneas ASM de las operaciones, sin
+     *                              saltos de línea.
+     * @param temporalesEnRegistros Temporales que nunca se escriben en
+     *                              memoria, ni sus enteros ni sus decimales
+     *                              (el programa clásico escribe uno por
+     *                              operación).
+     */
+    record Resultado(List<String> lineas, int temporalesEnRegistros) {
+    }
+
+    /**
+     * Un operando de una de las dos palabras: un valor con nombre (temporal o
+     * variable) o un inmediato, con su número si se conoce.
+     */
+    private record Operando(String valor, String inmediato, Integer constante) {
+        static Operando de(int numero) {
+            return new Operando(null, Integer.toString(numero), numero);
+        }
+
+        boolean es(int numero) {
+            return constante != null && constante == numero;
+        }
+    }
+
+    /**
+     * Una operación sobre una palabra: ADD, SUB, MUL, DIV, SHL (multiplicación
+     * por 2^bits), SAR (división por 2^bits) o COPIA.
+     */
+    private record Nodo(String operador, Operando a, Operando b, int bits) {
+    }
+
+    private final List<String> lineas;
+    private final AsignadorTemporales.Asignacion ranuras;
+    private final String sufijo; // "" para los enteros, "_D" para los decimales
+    private final Set<String> temporales;
+    private final List<Instruccion> codigo;
+    private final Map<String, Operando> sustitutos = new HashMap<>();
+    private final Nodo[] nodos;
+    private final Operando resultado;
+
+    // Estado de la asignación de registros
+    private final String[] contenido = new String[REGISTROS.length];
+    private final Map<String, Integer> registroDe = new HashMap<>();
+    private final Set<String> enMemoria = new HashSet<>();
+    private final Map<String, ArrayDeque<Integer>> usos = new HashMap<>();
+
+    private SelectorInstrucciones(List<Instruccion> codigo, AsignadorTemporales.Asignacion ranuras,
+            Set<String> temporales, boolean decimales, boolean desplazamiento, List<String> lineas) {
+        this.codigo = codigo;
+        this.ranuras = ranuras;
+        this.temporales = temporales;
+        this.sufijo = decimales ? "_D" : "";
+        this.lineas = lineas;
+        this.nodos = preparar(decimales, desplazamiento);
+        this.resultado = operando(codigo.get(codigo.size() - 1).op2(), decimales);
+        contarUsos();
+    }
+
+    /**
+     * @param codigo Código de tres direcciones de una expresión.
+     * @return true si el código termina en una asignación de un temporal, como
+     *         siempre que hay alguna operación; una asignación directa como
+     *         {@code z = x} se escribe con el programa clásico, porque su
+     *         ajuste de decimales escribe sobre la variable.
+     */
+    static boolean aplicable(List<Instruccion> codigo) {
+        Instruccion asignacion = codigo.get(codigo.size() - 1);
+        if (!asignacion.operador().equals("MOV")) {
+            return false;
+        }
+        for (int k = 0; k < codigo.size() - 1; k++) {
+            if (codigo.get(k).operador().equals("MOV")) {
+                return false;
+            }
+        }
+        return temporales(codigo).contains(asignacion.op2());
+    }
+
+    /**
+     * Escribe las instrucciones ASM de una expresión con los resultados
+     * intermedios en registros.
+     *
+     * @param codigo         Código de tres direcciones, terminado en la
+     *                       asignación (ver {@link #aplicable}).
+     * @param ranuras        Posición de cada temporal, para los que haya que
+     *                       guardar en memoria.
+     * @param desplazamiento Escribir con desplazamientos las multiplicaciones y
+     *                       divisiones por potencias de dos.
+     * @return Las líneas y cuántos temporales no pasan por memoria.
+     */
+    static Resultado seleccionar(List<Instruccion> codigo, AsignadorTemporales.Asignacion ranuras,
+            boolean desplazamiento) {
+        Set<String> temporales = temporales(codigo);
+        List<String> lineas = new ArrayList<>();
+        SelectorInstrucciones enteros = new SelectorInstrucciones(codigo, ranuras, temporales, false,
+                desplazamiento, lineas);
+        SelectorInstrucciones decimales = new SelectorInstrucciones(codigo, ranuras, temporales, true,
+                desplazamiento, lineas);
+        String izquierda = codigo.get(codigo.size() - 1).op1();
+
+        // Si los decimales se conocen al compilar, el ajuste también
+        Integer conocidos = decimales.resultado.constante();
+        int ajuste = conocidos == null ? 0 : conocidos >= 1000 ? 1 : conocidos < 0 ? -1 : 0;
+
+        enteros.escribirOperaciones();
+        enteros.asignarEnteros(izquierda, ajuste);
+        decimales.escribirOperaciones();
+        if (conocidos != null) {
+            lineas.add("");
+            lineas.add("    ;Asignación_D");
+            decimales.emitir("MOV", izquierda + "_D", Integer.toString((short) (conocidos - 1000 * ajuste)));
+        } else {
+            decimales.asignarDecimales(izquierda);
+        }
+
+        // Un temporal pasa por memoria si se guarda cualquiera de sus dos palabras
+        Set<String> enMemoria = new HashSet<>(enteros.enMemoria);
+        enMemoria.addAll(decimales.enMemoria);
+        return new Resultado(lineas, temporales.size() - enMemoria.size());
+    }
+
+    private static Set<String> temporales(List<Instruccion> codigo) {
+        Set<String> temporales = new HashSet<>();
+        for (Instruccion instruccion : codigo) {
+            if (!instruccion.operador().equals("MOV")) {
+                temporales.add(instruccion.destino());
+            }
+        }
+        return temporales;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PREPARACIÓN DE UNA PALABRA
+    // ---------------------------------------------------------------------------------
+    /**
+     * Traduce cada operación a la palabra de esta pasada y pliega las que
+     * tienen un resultado conocido.
+     *
+     * @return Una operación por instrucción del código, o null si se plegó.
+     */
+    private Nodo[] preparar(boolean decimales, boolean desplazamiento) {
+        Nodo[] nodos = new Nodo[codigo.size() - 1];
+        for (int k = 0; k < nodos.length; k++) {
+            Instruccion instruccion = codigo.get(k);
+            Operando a = operando(instruccion.op1(), decimales);
+            Operando b = operando(instruccion.op2(), decimales);
+            int exponente = desplazamiento ? ExpresionesAritmeticasASM.exponenteDesplazamiento(instruccion) : 0;
+            Nodo nodo;
+            if (exponente > 0 && instruccion.operador().equals("MUL")) {
+                // Los decimales de un literal entero son 000: el producto es 0
+                Operando otro = PlegadoConstantes.exponenteDeDos(instruccion.op2()) == exponente ? a : b;
+                nodo = decimales ? new Nodo("MUL", otro, Operando.de(0), 0) : new Nodo("SHL", otro, null, exponente);
+            } else if (exponente > 0 && !decimales) {
+                nodo = new Nodo("SAR", a, null, exponente);
+            } else {
+                nodo = new Nodo(instruccion.operador(), a, b, 0);
+            }
+
+            Operando plegado = plegar(nodo);
+            if (plegado != null && plegado.valor() != null && temporales.contains(plegado.valor())) {
+                nodos[k] = new Nodo("COPIA", plegado, null, 0);
+            } else if (plegado != null) {
+                sustitutos.put(instruccion.destino(), plegado);
+            } else {
+                nodos[k] = nodo;
+            }
+        }
+        return nodos;
+    }
+
+    /**
+     * Lee un operando del código en la palabra de esta pasada: los literales
+     * se parten como los escribe el programa clásico ("2.5" es 2 y 5, "7" es
+     * 7 y 000) y se desbordan a 16 bits igual que al ensamblarse.
+     */
+    private Operando operando(String operando, boolean decimales) {
+        Operando sustituto = sustitutos.get(operando);
+        if (sustituto != null) {
+            return sustituto;
+        }
+        char primero = operando.charAt(0);
+        if (!Character.isDigit(primero) && primero != '-') {
+            return new Operando(operando, null, null);
+        }
+        int punto = operando.indexOf('.');
+        String parte = decimales ? (punto < 0 ? "000" : operando.substring(punto + 1))
+                : punto < 0 ? operando : operando.substring(0, punto);
+        try {
+            return Operando.de((short) Long.parseLong(parte));
+        } catch (NumberFormatException e) {
+            return new Operando(null, parte, null); // Demasiado largo: se escribe tal cual
+        }
+    }
+
+    /**
+     * @return El resultado de la operación si se conoce sin ejecutarla, o
+     *         null. Nunca pliega una división que el 8086 interrumpiría.
+     */
+    private static Operando plegar(Nodo nodo) {
+        Operando a = nodo.a();
+        Operando b = nodo.b();
+        Integer x = a.constante();
+        Integer y = b == null ? null : b.constante();
+        return switch (nodo.operador()) {
+            case "ADD" -> x != null && y != null ? Operando.de((short) (x + y)) : b.es(0) ? a : a.es(0) ? b : null;
+            case "SUB" -> x != null && y != null ? Operando.de((short) (x - y)) : b.es(0) ? a : null;
+            case "MUL" -> {
+                if (x != null && y != null) {
+                    yield Operando.de((short) (x * y));
+                }
+                yield a.es(0) || b.es(0) ? Operando.de(0) : b.es(1) ? a : a.es(1) ? b : null;
+            }
+            case "DIV" -> {
+                if (b.es(1)) {
+                    yield a;
+                }
+                yield x != null && y != null && y != 0 && !(x == Short.MIN_VALUE && y == -1) ? Operando.de(x / y)
+                        : null;
+            }
+            case "SHL" -> x != null ? Operando.de((short) (x << nodo.bits())) : null;
+            case "SAR" -> x != null ? Operando.de(x / (1 << nodo.bits())) : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * Cuenta en qué operaciones se lee cada valor, de atrás hacia adelante: una
+     * operación cuyo resultado nadie lee no se escribe, salvo las divisiones.
+     */
+    private void contarUsos() {
+        int asignacion = nodos.length;
+        agregarUso(resultado, asignacion);
+        for (int k = nodos.length - 1; k >= 0; k--) {
+            Nodo nodo = nodos[k];
+            if (nodo == null) {
+                continue;
+            }
+            if (!nodo.operador().equals("DIV") && !usos.containsKey(codigo.get(k).destino())) {
+                nodos[k] = null;
+                continue;
+            }
+            agregarUso(nodo.b(), k);
+            agregarUso(nodo.a(), k);
+        }
+    }
+
+    private void agregarUso(Operando operando, int posicion) {
+        if (operando != null && operando.valor() != null) {
+            usos.computeIfAbsent(operando.valor(), v -> new ArrayDeque<>()).addFirst(posicion);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ESCRITURA DE LAS OPERACIONES
+    // ---------------------------------------------------------------------------------
+    private void escribirOperaciones() {
+        for (int k = 0; k < nodos.length; k++) {
+            Nodo nodo = nodos[k];
+            if (nodo == null) {
+                continue;
+            }
+            lineas.add("");
+            lineas.add("    ;" + switch (nodo.operador()) {
+                case "ADD" -> "Suma";
+                case "SUB" -> "Resta";
+                case "MUL", "SHL" -> "Multiplicación";
+                case "DIV", "SAR" -> "División";
+                default -> "Copia";
+            } + sufijo);
+            copiarVariable(nodo.a(), k);
+            copiarVariable(nodo.b(), k);
+
+            int registro = switch (nodo.operador()) {
+                case "ADD", "SUB" -> sumar(nodo, k);
+                case "MUL", "DIV" -> multiplicar(nodo, k);
+                case "SHL" -> desplazarIzquierda(nodo, k);
+                case "SAR" -> dividirDesplazando(nodo, k);
+                default -> copiar(nodo, k);
+            };
+
+            // Liberar los operandos que ya no se leen y guardar el resultado
+            consumir(nodo.a(), k);
+            consumir(nodo.b(), k);
+            String destino = codigo.get(k).destino();
+            if (usos.containsKey(destino)) {
+                ocupar(registro, destino);
+            }
+        }
+    }
+
+    /** {@code ADD}/{@code SUB}, sobre el registro más barato. */
+    private int sumar(Nodo nodo, int k) {
+        boolean suma = nodo.operador().equals("ADD");
+        Operando[][] ordenes = suma ? new Operando[][] { { nodo.a(), nodo.b() }, { nodo.b(), nodo.a() } }
+                : new Operando[][] { { nodo.a(), nodo.b() } };
+
+        // Elegir el orden y si se reutiliza el registro del primer operando
+        Operando primero = null;
+        Operando segundo = null;
+        boolean reutilizar = false;
+        int mejor = Integer.MAX_VALUE;
+        for (Operando[] orden : ordenes) {
+            boolean muere = registro(orden[0]) != null && muereEn(orden[0].valor(), k);
+            int costo = (muere ? 0 : costoCarga(orden[0], "BX")) + costoOperacion(nodo.operador(), "BX", orden[1]);
+            if (costo < mejor) {
+                mejor = costo;
+                primero = orden[0];
+                segundo = orden[1];
+                reutilizar = muere;
+            }
+        }
+
+        int registro = reutilizar ? registro(primero) : cargar(primero, k, excluidos(nodo));
+        String operacion = segundo.es(1) ? (suma ? "INC" : "DEC") : segundo.es(-1) ? (suma ? "DEC" : "INC") : null;
+        if (operacion != null) {
+            emitir(operacion, REGISTROS[registro], null);
+        } else {
+            emitir(nodo.operador(), REGISTROS[registro], texto(segundo));
+        }
+        return registro;
+    }
+
+    /**
+     * {@code IMUL}/{@code IDIV}: el primer operando va en AX y el segundo en un
+     * registro o en memoria; una multiplicación elige el orden más barato.
+     */
+    private int multiplicar(Nodo nodo, int k) {
+        boolean division = nodo.operador().equals("DIV");
+        Operando x = nodo.a();
+        Operando y = nodo.b();
+        if (!division && costoProducto(y, x, k) < costoProducto(x, y, k)) {
+            x = nodo.b();
+            y = nodo.a();
+        }
+
+        boolean xEnAX = liberarAcumuladores(x, y, k, division);
+        String fuente;
+        int auxiliar = -1;
+        if (y.valor() == null) {
+            // No hay IMUL/IDIV con inmediato: el divisor va en un registro
+            auxiliar = registroLibre(k, ACUMULADORES | excluidos(nodo));
+            cargarEn(auxiliar, y);
+            fuente = REGISTROS[auxiliar];
+        } else {
+            fuente = texto(y);
+        }
+        if (!xEnAX) {
+            cargarEn(AX, x);
+        }
+        if (division) {
+            emitir("CWD", null, null);
+        }
+        emitir(division ? "IDIV" : "IMUL", fuente, null);
+        liberar(DX);
+        liberar(AX);
+        return AX;
+    }
+
+    /** {@code SHL} un bit a la vez: 2 ciclos por bit frente a 12 + 4k con CL. */
+    private int desplazarIzquierda(Nodo nodo, int k) {
+        Operando a = nodo.a();
+        int registro = registro(a) != null && muereEn(a.valor(), k) ? registro(a) : cargar(a, k, excluidos(nodo));
+        for (int bit = 0; bit < nodo.bits(); bit++) {
+            emitir("SHL", REGISTROS[registro], "1");
+        }
+        return registro;
+    }
+
+    /**
+     * División entre 2^k que trunca hacia cero como {@code IDIV}: a los
+     * negativos se les suma 2^k - 1 antes de {@code SAR}.
+     */
+    private int dividirDesplazando(Nodo nodo, int k) {
+        Operando a = nodo.a();
+        if (!liberarAcumuladores(a, null, k, true)) {
+            cargarEn(AX, a);
+        }
+        emitir("CWD", null, null);
+        emitir("AND", "DX", Integer.toString((1 << nodo.bits()) - 1));
+        emitir("ADD", "AX", "DX");
+        for (int bit = 0; bit < nodo.bits(); bit++) {
+            emitir("SAR", "AX", "1");
+        }
+        liberar(DX);
+        liberar(AX);
+        return AX;
+    }
+
+    /** Un temporal igual a otro (p. ej. {@code x_D + 000}). */
+    private int copiar(Nodo nodo, int k) {
+        Operando a = nodo.a();
+        return registro(a) != null && muereEn(a.valor(), k) ? registro(a) : cargar(a, k, excluidos(nodo));
+    }
+
+    /**
+     * Deja AX y DX listos para una instrucción que los sobrescribe: los valores
+     * que se leen después pasan a otro registro, igual que el segundo operando
+     * si la carga del primero o {@code CWD} lo borrarían.
+     *
+     * @return true si AX ya contiene el primer operando.
+     */
+    private boolean liberarAcumuladores(Operando x, Operando y, int k, boolean cwd) {
+        boolean xEnAX = false;
+        for (int r : new int[] { AX, DX }) {
+            String valor = contenido[r];
+            if (valor == null) {
+                continue;
+            }
+            boolean esX = valor.equals(x.valor());
+            boolean esY = y != null && valor.equals(y.valor());
+            xEnAX |= esX && r == AX;
+            if (!muereEn(valor, k) || esY && !esX && (r == AX || cwd)) {
+                int otro = registroLibre(k, ACUMULADORES | bits(x) | bits(y));
+                emitir("MOV", REGISTROS[otro], REGISTROS[r]);
+                liberar(r);
+                ocupar(otro, valor);
+            }
+        }
+        return xEnAX;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // ASIGNACIÓN FINAL
+    // ---------------------------------------------------------------------------------
+    /**
+     * Guarda los enteros del resultado en la variable de la izquierda.
+     *
+     * @param ajuste +1 o -1 si los decimales ya se sabe que salen de 0..999.
+     */
+    private void asignarEnteros(String izquierda, int ajuste) {
+        lineas.add("");
+        lineas.add("    ;Asignación");
+        if (resultado.constante() != null) {
+            emitir("MOV", izquierda, Integer.toString((short) (resultado.constante() + ajuste)));
+            return;
+        }
+        Integer registro = registro(resultado);
+        if (registro == null) {
+            registro = AX;
+            cargarEn(AX, resultado);
+        }
+        if (ajuste != 0) {
+            emitir(ajuste > 0 ? "INC" : "DEC", REGISTROS[registro], null);
+        }
+        emitir("MOV", izquierda, REGISTROS[registro]);
+    }
+
+    /**
+     * Guarda los decimales del resultado con el ajuste en ±1000. Un solo
+     * {@code JB} sin signo descarta el caso de siempre (0..999); el
+     * {@code INC}/{@code DEC} de los enteros va sobre la variable, que ya tiene
+     * su valor.
+     */
+    private void asignarDecimales(String izquierda) {
+        Integer registro = registro(resultado);
+        lineas.add("");
+        lineas.add("    ;Ajuste de decimales");
+        if (registro == null) {
+            registro = AX;
+            emitir("MOV", "AX", texto(resultado));
+        }
+        String r = REGISTROS[registro];
+        emitir("CMP", r, "1000");
+        emitir("JB", "Fin_Ajuste", null);
+        emitir("JL", "Ajuste_Menor", null);
+        emitir("SUB", r, "1000");
+        emitir("INC", izquierda, null);
+        emitir("JMP", "Fin_Ajuste", null);
+        lineas.add("    Ajuste_Menor:");
+        emitir("ADD", r, "1000");
+        emitir("DEC", izquierda, null);
+        lineas.add("    Fin_Ajuste:");
+        lineas.add("");
+        lineas.add("    ;Asignación_D");
+        emitir("MOV", izquierda + "_D", r);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // REGISTROS
+    // ---------------------------------------------------------------------------------
+    /** Carga un operando en un registro nuevo. */
+    private int cargar(Operando operando, int k, int excluidos) {
+        int registro = registroLibre(k, excluidos);
+        cargarEn(registro, operando);
+        return registro;
+    }
+
+    private void cargarEn(int registro, Operando operando) {
+        if (operando.es(0)) {
+            emitir("XOR", REGISTROS[registro], REGISTROS[registro]);
+        } else {
+            emitir("MOV", REGISTROS[registro], texto(operando));
+        }
+    }
+
+    /**
+     * Copia a un registro libre una variable que se lee en varias operaciones,
+     * si las lecturas desde registro ahorran más ciclos de lo que cuesta la
+     * copia. Nunca desaloja otro valor para hacerlo.
+     */
+    private void copiarVariable(Operando operando, int k) {
+        if (operando == null || operando.valor() == null || temporales.contains(operando.valor())
+                || registroDe.containsKey(operando.valor())) {
+            return;
+        }
+        int lecturas = usos.get(operando.valor()).size();
+        String memoria = texto(operando);
+        int ahorro = lecturas * (costo("ADD", "BX", memoria) - costo("ADD", "BX", "CX"));
+        if (ahorro <= costo("MOV", "BX", memoria)) {
+            return;
+        }
+        for (int r = 0; r < DX; r++) {
+            if (contenido[r] == null) {
+                emitir("MOV", REGISTROS[r], memoria);
+                ocupar(r, operando.valor());
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Un registro libre fuera de {@code excluidos}; si no hay, el del
+     *         valor que se vuelve a leer más tarde, que se guarda en su
+     *         temporal.
+     */
+    private int registroLibre(int k, int excluidos) {
+        int elegido = -1;
+        int masLejano = -1;
+        for (int r = 0; r < REGISTROS.length; r++) {
+            if ((excluidos & 1 << r) != 0) {
+                continue;
+            }
+            if (contenido[r] == null) {
+                return r;
+            }
+            int uso = siguienteUso(contenido[r], k);
+            if (uso > masLejano) {
+                masLejano = uso;
+                elegido = r;
+            }
+        }
+        String valor = contenido[elegido];
+        if (temporales.contains(valor) && enMemoria.add(valor)) {
+            emitir("MOV", ranuras.nombre(valor) + sufijo, REGISTROS[elegido]);
+        }
+        liberar(elegido);
+        return elegido;
+    }
+
+    private void ocupar(int registro, String valor) {
+        contenido[registro] = valor;
+        registroDe.put(valor, registro);
+    }
+
+    private void liberar(int registro) {
+        if (contenido[registro] != null) {
+            registroDe.remove(contenido[registro]);
+            contenido[registro] = null;
+        }
+    }
+
+    /** Quita la lectura de la operación k y libera el registro del último uso. */
+    private void consumir(Operando operando, int k) {
+        if (operando == null || operando.valor() == null) {
+            return;
+        }
+        ArrayDeque<Integer> pendientes = usos.get(operando.valor());
+        if (pendientes == null) {
+            return; // El mismo valor en los dos operandos, p. ej. x*x
+        }
+        while (!pendientes.isEmpty() && pendientes.peekFirst() <= k) {
+            pendientes.removeFirst();
+        }
+        if (pendientes.isEmpty()) {
+            usos.remove(operando.valor());
+            Integer registro = registroDe.get(operando.valor());
+            if (registro != null) {
+                liberar(registro);
+            }
+        }
+    }
+
+    private boolean muereEn(String valor, int k) {
+        ArrayDeque<Integer> pendientes = usos.get(valor);
+        return pendientes == null || pendientes.peekLast() <= k;
+    }
+
+    private int siguienteUso(String valor, int k) {
+        ArrayDeque<Integer> pendientes = usos.get(valor);
+        if (pendientes != null) {
+            for (int posicion : pendientes) {
+                if (posicion > k) {
+                    return posicion;
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private Integer registro(Operando operando) {
+        return operando == null || operando.valor() == null ? null : registroDe.get(operando.valor());
+    }
+
+    private int bits(Operando operando) {
+        Integer registro = registro(operando);
+        return registro == null ? 0 : 1 << registro;
+    }
+
+    /** Registros de los operandos de una operación, que no se pueden desalojar. */
+    private int excluidos(Nodo nodo) {
+        return bits(nodo.a()) | bits(nodo.b());
+    }
+
+    // ---------------------------------------------------------------------------------
+    // COSTOS
+    // ---------------------------------------------------------------------------------
+    private static int costo(String mnemonico, String destino, String fuente) {
+        return Interprete8086.ciclosEstimados(mnemonico, destino, fuente);
+    }
+
+    /** Ciclos de llevar un operando a un registro. */
+    private int costoCarga(Operando operando, String registro) {
+        return operando.es(0) ? costo("XOR", registro, registro) : costo("MOV", registro, texto(operando));
+    }
+
+    private int costoOperacion(String operador, String registro, Operando operando) {
+        return operando.es(1) || operando.es(-1) ? costo("INC", registro, null)
+                : costo(operador, registro, texto(operando));
+    }
+
+    /** Ciclos de {@code IMUL} con x en AX e y como operando. */
+    private int costoProducto(Operando x, Operando y, int k) {
+        Integer enX = registro(x);
+        int costo = enX != null && enX == AX ? (muereEn(x.valor(), k) ? 0 : costo("MOV", "BX", "AX"))
+                : costoCarga(x, "AX");
+        if (y.valor() == null) {
+            return costo + costoCarga(y, "BX") + costo("IMUL", "BX", null);
+        }
+        Integer enY = registro(y);
+        if (enY != null && enY == AX && !y.equals(x)) {
+            costo += costo("MOV", "BX", "AX");
+        }
+        return costo + costo("IMUL", enY != null ? "BX" : texto(y), null);
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    /** El operando como se escribe ahora: su registro, su posición o el inmediato. */
+    private String texto(Operando operando) {
+        if (operando.valor() == null) {
+            return operando.inmediato();
+        }
+        Integer registro = registroDe.get(operando.valor());
+        if (registro != null) {
+            return REGISTROS[registro];
+        }
+        return (temporales.contains(operando.valor()) ? ranuras.nombre(operando.valor()) : operando.valor()) + sufijo;
+    }
+
+    private void emitir(String mnemonico, String destino, String fuente) {
+        StringBuilder linea = new StringBuilder("    ").append(mnemonico);
+        if (destino != null) {
+            linea.append(' ').append(destino);
+        }
+        if (fuente != null) {
+            linea.append(", ").append(fuente);
+        }
+        lineas.add(linea.toString());
+    }
+}
@@ -0,0 +1,247 @@
+package expresiones;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla de símbolos de una expresión procesada: cada nombre que aparece en el
+ * código de tres direcciones se registra una sola vez con un número denso
+ * (0, 1, 2, ...) y su tipo, y el código se guarda también escrito con esos
+ * números.
+ *
+ * <p>
+ * Con la tabla, evaluar una expresión es recorrer un arreglo {@code int[]} de
+ * operaciones sobre un arreglo {@code double[]} con un valor por símbolo, sin
+ * buscar nombres en mapas ni convertir literales en cada operación. El tipo de
+ * cada símbolo sustituye a las comparaciones por nombre (p. ej. distinguir un
+ * temporal porque empieza con "T").
+ *
+ * <p>
+ * Los números se asignan en este orden: variables de entrada en el orden de
+ * {@link ExpresionCompilada#variables}, la variable de la izquierda, los
+ * temporales en el orden en que se calculan y los literales. La tabla no se
+ * modifica después de crearse y puede compartirse entre hilos.
+ */
+final class TablaSimbolos {
+    /**
+     * Tipos de símbolo.
+     */
+    enum Tipo {
+        /** Variable de entrada. */
+        VARIABLE,
+        /** Variable de entrada escrita con signo negativo, p. ej. "(-a)". */
+        NEGADA,
+        /** Temporal que guarda el resultado de una operación. */
+        TEMPORAL,
+        /** Variable de la izquierda, que recibe el resultado. */
+        RESULTADO,
+        /** Literal numérico; su valor se conoce al compilar. */
+        LITERAL
+    }
+
+    // ---------------------------------------------------------------------------------
+    // PROPIEDADES
+    // Operadores del código escrito con números
+    static final int MUL = 0;
+    static final int DIV = 1;
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MOV = 4;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final String[] nombres;
+    private final Tipo[] tipos;
+    private final int entradas;
+    private final int resultado;
+
+    // Valores de los literales en sus posiciones; el resto se llena al evaluar
+    private final double[] valoresIniciales;
+
+    // Cuatro enteros por instrucción: operador, operando 1, operando 2 y destino
+    private final int[] operaciones;
+
+    /**
+     * Registra los símbolos de una expresión procesada.
+     *
+     * @param variableIzquierda La variable que recibe el resultado.
+     * @param variables         Variables utilizadas en el lado derecho.
+     * @param variables_neg     Variables escritas con signo negativo.
+     * @param codigo            Código de tres direcciones, ya optimizado; termina
+     *                          con la asignación a la variable de la izquierda.
+     * @throws IllegalArgumentException Si un operando no es variable, temporal
+     *                                  ni literal numérico.
+     */
+    TablaSimbolos(String variableIzquierda, Set<String> variables, Set<String> variables_neg,
+            List<Instruccion> codigo) {
+        int capacidad = variables.size() + 1 + 3 * codigo.size();
+        String[] nombres = new String[capacidad];
+        Tipo[] tipos = new Tipo[capacidad];
+        double[] valores = new double[capacidad];
+        int n = 0;
+        for (String variable : variables) {
+            nombres[n] = variable;
+            tipos[n] = variables_neg.contains(variable) ? Tipo.NEGADA : Tipo.VARIABLE;
+            ids.put(variable, n++);
+        }
+        entradas = n;
+        nombres[n] = variableIzquierda;
+        tipos[n] = Tipo.RESULTADO;
+        ids.put(variableIzquierda, n);
+        resultado = n++;
+
+        // Los destinos se registran al encontrarse; los literales, al final
+        for (Instruccion instruccion : codigo) {
+            if (!instruccion.operador().equals("MOV") && !ids.containsKey(instruccion.destino())) {
+                nombres[n] = instruccion.destino();
+                tipos[n] = Tipo.TEMPORAL;
+                ids.put(instruccion.destino(), n++);
+            }
+        }
+        operaciones = new int[4 * codigo.size()];
+        for (int k = 0; k < codigo.size(); k++) {
+            Instruccion instruccion = codigo.get(k);
+            int operador = switch (instruccion.operador()) {
+                case "MUL" -> MUL;
+                case "DIV" -> DIV;
+                case "ADD" -> ADD;
+                case "SUB" -> SUB;
+                case "MOV" -> MOV;
+                default -> throw new IllegalArgumentException("Operador no soportado: " + instruccion.operador());
+            };
+            int[] operandos = new int[2];
+            String[] textos = { instruccion.op1(), instruccion.op2() };
+            for (int i = 0; i < 2; i++) {
+                Integer id = ids.get(textos[i]);
+                if (id == null) {
+                    try {
+                        valores[n] = Double.parseDouble(textos[i]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Operando no reconocido: " + textos[i]);
+                    }
+                    nombres[n] = textos[i];
+                    tipos[n] = Tipo.LITERAL;
+                    id = n++;
+                    ids.put(textos[i], id);
+                }
+                operandos[i] = id;
+            }
+            operaciones[4 * k] = operador;
+            operaciones[4 * k + 1] = operandos[0];
+            operaciones[4 * k + 2] = operandos[1];
+            operaciones[4 * k + 3] = operador == MOV ? operandos[0] : ids.get(instruccion.destino());
+        }
+        this.nombres = Arrays.copyOf(nombres, n);
+        this.tipos = Arrays.copyOf(tipos, n);
+        this.valoresIniciales = Arrays.copyOf(valores, n);
+    }
+
+    /**
+     * @param nombre Nombre de una variable, temporal o literal.
+     * @return Su número, o -1 si no aparece en la expresión.
+     */
+    int id(String nombre) {
+        Integer id = ids.get(nombre);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id Número de un símbolo.
+     * @return Su tipo.
+     */
+    Tipo tipo(int id) {
+        return tipos[id];
+    }
+
+    /**
+     * @param id Número de un literal.
+     * @return Su valor.
+     */
+    double literal(int id) {
+        return valoresIniciales[id];
+    }
+
+    /**
+     * @param nombre Nombre de una variable, temporal o literal.
+     * @return Su tipo, o null si no aparece en la expresión.
+     */
+    Tipo tipo(String nombre) {
+        Integer id = ids.get(nombre);
+        return id != null ? tipos[id] : null;
+    }
+
+    /**
+     * @param tipo Un tipo de símbolo.
+     * @return Cuántos símbolos son de ese tipo.
+     */
+    int contar(Tipo tipo) {
+        int cuenta = 0;
+        for (Tipo t : tipos) {
+            if (t == tipo) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    /**
+     * @return Número de símbolos (el tamaño de los arreglos de valores).
+     */
+    int tamano() {
+        return nombres.length;
+    }
+
+    /**
+     * @return Número de la variable de la izquierda.
+     */
+    int resultado() {
+        return resultado;
+    }
+
+    /**
+     * @return El código de tres direcciones escrito con números: cuatro enteros
+     *         por instrucción (operador, operando 1, operando 2 y destino). En
+     *         la asignación final el destino es la variable de la izquierda. No
+     *         debe modificarse.
+     */
+    int[] operaciones() {
+        return operaciones;
+    }
+
+    /**
+     * Crea el arreglo de valores de una evaluación, con los literales y las
+     * variables de entrada ya cargados.
+     *
+     * @param valoresVariables Valores de las variables tal como se guardan en
+     *                         el contexto (el signo de "(-a)" ya aplicado).
+     * @return Un valor por símbolo.
+     * @throws IllegalArgumentException Si falta el valor de alguna variable.
+     */
+    double[] valores(Map<String, Double> valoresVariables) {
+        double[] valores = valoresIniciales.clone();
+        for (int id = 0; id < entradas; id++) {
+            Double valor = valoresVariables.get(nombres[id]);
+            if (valor == null) {
+                throw new IllegalArgumentException("Falta el valor de la variable '" + nombres[id] + "'");
+            }
+            valores[id] = valor;
+        }
+        return valores;
+    }
+
+    /**
+     * Copia al mapa del contexto los valores calculados: los temporales, en el
+     * orden en que se calcularon, y al final la variable de la izquierda.
+     *
+     * @param valores          Los valores de una evaluación.
+     * @param valoresVariables Mapa donde se guardan.
+     */
+    void publicar(double[] valores, Map<String, Double> valoresVariables) {
+        for (int id = resultado + 1; id < nombres.length && tipos[id] == Tipo.TEMPORAL; id++) {
+            valoresVariables.put(nombres[id], valores[id]);
+        }
+        valoresVariables.put(nombres[resultado], valores[resultado]);
+    }
+}
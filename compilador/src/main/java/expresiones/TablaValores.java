@@ -0,0 +1,222 @@
+package expresiones;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Valores de variables leídos sin interacción: de archivos .properties, .csv o
+ * JSON por líneas (.jsonl), o de opciones {@code -Dvariable=valor} de la línea
+ * de comandos.
+ *
+ * <p>
+ * Cada fila asocia nombres de variables con el valor que el usuario habría
+ * escrito en consola; el signo de las variables escritas como "(-a)" se aplica
+ * después, igual que en la captura interactiva.
+ */
+final class TablaValores {
+    private TablaValores() {
+    }
+
+    /**
+     * Lee todas las filas de un archivo de valores. El formato se decide por la
+     * extensión:
+     * <ul>
+     * <li>.properties: una sola fila con líneas {@code a=3.5}.</li>
+     * <li>.csv: la primera línea tiene los nombres de las variables y cada línea
+     * siguiente es una fila.</li>
+     * <li>.jsonl, .ndjson o .json: un objeto JSON por línea, p. ej.
+     * {@code {"a": 3.5, "b": -2}}.</li>
+     * </ul>
+     *
+     * @param archivo El archivo de valores.
+     * @return Las filas leídas, en orden.
+     * @throws IOException              Si no se puede leer el archivo.
+     * @throws IllegalArgumentException Si el formato no es válido.
+     */
+    static List<Map<String, Double>> leer(Path archivo) throws IOException {
+        String nombre = archivo.getFileName().toString().toLowerCase();
+        if (nombre.endsWith(".properties")) {
+            return List.of(leerPropiedades(archivo));
+        }
+        if (nombre.endsWith(".csv")) {
+            return leerCsv(archivo);
+        }
+        if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson") || nombre.endsWith(".json")) {
+            return leerJsonLineas(archivo);
+        }
+        throw new IllegalArgumentException("Formato de valores no soportado: " + archivo
+                + " (use .properties, .csv o .jsonl)");
+    }
+
+    /**
+     * Lee un archivo .properties con una línea {@code variable=valor} por
+     * variable.
+     *
+     * @param archivo El archivo de valores.
+     * @return La fila de valores.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    static Map<String, Double> leerPropiedades(Path archivo) throws IOException {
+        Properties propiedades = new Properties();
+        try (Reader lector = Files.newBufferedReader(archivo)) {
+            propiedades.load(lector);
+        }
+        Map<String, Double> fila = new LinkedHashMap<>();
+        for (String variable : propiedades.stringPropertyNames()) {
+            fila.put(variable.toLowerCase(), parsearValor(variable, propiedades.getProperty(variable)));
+        }
+        return fila;
+    }
+
+    private static List<Map<String, Double>> leerCsv(Path archivo) throws IOException {
+        List<Map<String, Double>> filas = new ArrayList<>();
+        try (BufferedReader lector = Files.newBufferedReader(archivo)) {
+            String linea = lector.readLine();
+            if (linea == null) {
+                return filas;
+            }
+            String[] encabezado = linea.split(",", -1);
+            for (int i = 0; i < encabezado.length; i++) {
+                encabezado[i] = encabezado[i].trim().toLowerCase();
+            }
+            int numeroLinea = 1;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                String[] celdas = linea.split(",", -1);
+                if (celdas.length != encabezado.length) {
+                    throw new IllegalArgumentException(archivo + ":" + numeroLinea + ": se esperaban "
+                            + encabezado.length + " columnas y hay " + celdas.length);
+                }
+                Map<String, Double> fila = new LinkedHashMap<>();
+                for (int i = 0; i < celdas.length; i++) {
+                    if (!celdas[i].isBlank()) {
+                        fila.put(encabezado[i], parsearValor(encabezado[i], celdas[i]));
+                    }
+                }
+                filas.add(fila);
+            }
+        }
+        return filas;
+    }
+
+    private static List<Map<String, Double>> leerJsonLineas(Path archivo) throws IOException {
+        List<Map<String, Double>> filas = new ArrayList<>();
+        try (BufferedReader lector = Files.newBufferedReader(archivo)) {
+            String linea;
+            int numeroLinea = 0;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                try {
+                    filas.add(filaDesdeJson(Json.leerObjeto(linea)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(archivo + ":" + numeroLinea + ": " + e.getMessage());
+                }
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Convierte un objeto JSON en una fila de valores. Los valores pueden ser
+     * números o cadenas numéricas.
+     *
+     * @param objeto El objeto JSON.
+     * @return La fila de valores.
+     * @throws IllegalArgumentException Si algún valor no es numérico.
+     */
+    static Map<String, Double> filaDesdeJson(Map<String, Object> objeto) {
+        Map<String, Double> fila = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : objeto.entrySet()) {
+            Object valor = entry.getValue();
+            if (valor instanceof Double numero) {
+                fila.put(entry.getKey().toLowerCase(), numero);
+            } else if (valor instanceof String texto) {
+                fila.put(entry.getKey().toLowerCase(), parsearValor(entry.getKey(), texto));
+            } else {
+                throw new IllegalArgumentException("El valor de '" + entry.getKey() + "' no es numérico: " + valor);
+            }
+        }
+        return fila;
+    }
+
+    /**
+     * Agrega a la fila el valor de una opción {@code -Dvariable=valor}.
+     *
+     * @param opcion La opción tal como se escribió en la línea de comandos.
+     * @param fila   La fila donde guardar el valor.
+     * @throws IllegalArgumentException Si la opción no tiene la forma esperada.
+     */
+    static void agregarOpcion(String opcion, Map<String, Double> fila) {
+        int igual = opcion.indexOf('=');
+        if (!opcion.startsWith("-D") || igual <= 2) {
+            throw new IllegalArgumentException("Opción no válida: " + opcion + " (use -Dvariable=valor)");
+        }
+        String variable = opcion.substring(2, igual).trim().toLowerCase();
+        fila.put(variable, parsearValor(variable, opcion.substring(igual + 1)));
+    }
+
+    /**
+     * Crea una fuente de valores a partir de una fila, con el mismo criterio que
+     * la captura por consola: el valor de una variable escrita como "(-a)" se
+     * niega.
+     *
+     * @param fila Los valores de la fila.
+     * @return La fuente de valores.
+     * @throws IllegalArgumentException (al obtener los valores) Si falta el
+     *                                  valor de alguna variable.
+     */
+    static ExpresionesAritmeticasASM.FuenteValores fuente(Map<String, Double> fila) {
+        return (variables, variables_neg) -> {
+            Map<String, Double> map = new HashMap<>();
+            Set<String> faltantes = new TreeSet<>();
+            for (String var : variables_neg) {
+                Double valor = fila.get(var);
+                if (valor == null) {
+                    faltantes.add(var);
+                } else {
+                    map.put(var, -valor);
+                }
+            }
+            for (String var : variables) {
+                if (map.containsKey(var) || variables_neg.contains(var)) {
+                    continue;
+                }
+                Double valor = fila.get(var);
+                if (valor == null) {
+                    faltantes.add(var);
+                } else {
+                    map.put(var, valor);
+                }
+            }
+            if (!faltantes.isEmpty()) {
+                throw new IllegalArgumentException("Faltan valores para las variables " + faltantes);
+            }
+            return map;
+        };
+    }
+
+    private static double parsearValor(String variable, String valor) {
+        try {
+            return Double.parseDouble(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El valor de '" + variable + "' no es numérico: " + valor);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package expresiones;
+
+/**
+ * Validador de la estructura de una expresión aritmética. Recorre el texto una
+ * sola vez, de izquierda a derecha, como un autómata: el estado es el carácter
+ * anterior, la profundidad de paréntesis, la posición del '=' y dónde empieza
+ * la palabra actual. Se detiene en la primera regla que no se cumple e indica
+ * cuál es y en qué posición.
+ *
+ * <p>
+ * Una "palabra" es una secuencia de letras, dígitos y '_' (lo que delimita
+ * {@code \b} en una expresión regular); cada palabra se compara una sola vez
+ * con la variable asignada, los nombres de los temporales y las palabras
+ * reservadas del programa ASM.
+ */
+final class ValidadorExpresion {
+    /**
+     * Reglas que debe cumplir una expresión.
+     */
+    enum Regla {
+        CARACTER_INVALIDO("carácter no válido"),
+        OPERADORES_CONSECUTIVOS("operadores consecutivos"),
+        PARENTESIS_SIN_OPERADOR("'(' sin un operador antes"),
+        NUMERO_SEGUIDO_DE_IDENTIFICADOR("número seguido de un identificador"),
+        UN_SOLO_IGUAL("debe haber exactamente un '='"),
+        LADO_IZQUIERDO_INVALIDO("el lado izquierdo no es una variable"),
+        VARIABLE_IZQUIERDA_EN_LADO_DERECHO("la variable asignada aparece en el lado derecho"),
+        PARENTESIS_DESBALANCEADOS("paréntesis desbalanceados"),
+        VARIABLE_INTERNA("nombre reservado para los temporales (T1, T1_D, ...)"),
+        PALABRA_RESERVADA("palabra reservada del programa ASM");
+
+        private final String descripcion;
+
+        Regla(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        @Override
+        public String toString() {
+            return descripcion;
+        }
+    }
+
+    /**
+     * Primera regla que no se cumple.
+     *
+     * @param regla    La regla.
+     * @param posicion Posición del carácter donde se detectó.
+     */
+    record Violacion(Regla regla, int posicion) {
+        /**
+         * @param desplazamiento Cantidad a sumar a la posición.
+         * @return La misma violación en otra posición, p. ej. la del texto antes
+         *         de quitarle caracteres.
+         */
+        Violacion desplazar(int desplazamiento) {
+            return new Violacion(regla, posicion + desplazamiento);
+        }
+
+        @Override
+        public String toString() {
+            return "posición " + posicion + ": " + regla;
+        }
+    }
+
+    // Nombres que usa el programa ASM, en minúsculas como la expresión normalizada;
+    // con varias sentencias llevan además el sufijo "_k"
+    private static final String[] PALABRAS_RESERVADAS = { "expresionaritmetica", "resultado", "signo", "enteros",
+            "punto", "decimales", "start" };
+
+    private ValidadorExpresion() {
+    }
+
+    /**
+     * Valida una expresión sin espacios.
+     *
+     * @param expresion La expresión, con las variables negativas "(-a)" ya
+     *                  reemplazadas por su nombre.
+     * @return La primera regla que no se cumple, o null si la expresión es
+     *         válida.
+     */
+    static Violacion validar(CharSequence expresion) {
+        int longitud = expresion.length();
+        char anterior = 0; // 0: ninguno
+        int profundidad = 0;
+        int igual = -1; // Posición del '='
+        int inicioPalabra = -1;
+
+        for (int i = 0; i < longitud; i++) {
+            char c = expresion.charAt(i);
+            boolean palabra = esParteIdentificador(c);
+
+            // Fin de una palabra
+            if (!palabra && inicioPalabra >= 0) {
+                Regla regla = revisarPalabra(expresion, inicioPalabra, i, igual);
+                if (regla != null) {
+                    return new Violacion(regla, inicioPalabra);
+                }
+                inicioPalabra = -1;
+            }
+
+            if (palabra) {
+                if (esDigito(anterior) && !esDigito(c)) {
+                    return new Violacion(Regla.NUMERO_SEGUIDO_DE_IDENTIFICADOR, i);
+                }
+                if (inicioPalabra < 0) {
+                    inicioPalabra = i;
+                }
+            } else {
+                switch (c) {
+                    case '+', '-', '*', '/', '=' -> {
+                        if (esOperador(anterior)) {
+                            return new Violacion(Regla.OPERADORES_CONSECUTIVOS, i);
+                        }
+                        if (c == '=') {
+                            if (igual >= 0) {
+                                return new Violacion(Regla.UN_SOLO_IGUAL, i);
+                            }
+                            // Todo lo anterior debe ser una sola palabra que no empiece con dígito
+                            if (i == 0 || inicioPalabraAnterior(expresion, i) != 0 || esDigito(expresion.charAt(0))) {
+                                return new Violacion(Regla.LADO_IZQUIERDO_INVALIDO, 0);
+                            }
+                            igual = i;
+                        }
+                    }
+                    case '(' -> {
+                        if (!esOperador(anterior) && anterior != '(') {
+                            return new Violacion(Regla.PARENTESIS_SIN_OPERADOR, i);
+                        }
+                        profundidad++;
+                    }
+                    case ')' -> {
+                        if (--profundidad < 0) {
+                            return new Violacion(Regla.PARENTESIS_DESBALANCEADOS, i);
+                        }
+                    }
+                    case '.' -> {
+                        // Sólo como separador decimal; las demás reglas lo tratan como un
+                        // carácter que no es parte de una palabra
+                    }
+                    default -> {
+                        return new Violacion(Regla.CARACTER_INVALIDO, i);
+                    }
+                }
+            }
+            anterior = c;
+        }
+
+        if (inicioPalabra >= 0) {
+            Regla regla = revisarPalabra(expresion, inicioPalabra, longitud, igual);
+            if (regla != null) {
+                return new Violacion(regla, inicioPalabra);
+            }
+        }
+        if (profundidad != 0) {
+            return new Violacion(Regla.PARENTESIS_DESBALANCEADOS, longitud);
+        }
+        if (igual < 0) {
+            return new Violacion(Regla.UN_SOLO_IGUAL, longitud);
+        }
+        return null;
+    }
+
+    /**
+     * Revisa una palabra completa.
+     *
+     * @return La regla que la palabra no cumple, o null.
+     */
+    private static Regla revisarPalabra(CharSequence expresion, int inicio, int fin, int igual) {
+        // La variable asignada no puede aparecer en el lado derecho
+        if (igual > 0 && inicio > igual && fin - inicio == igual && regionIgual(expresion, inicio, expresion, 0, igual)) {
+            return Regla.VARIABLE_IZQUIERDA_EN_LADO_DERECHO;
+        }
+        // Temporales: T<dígitos> o T<dígitos>_D
+        if (expresion.charAt(inicio) == 'T') {
+            int i = inicio + 1;
+            while (i < fin && esDigito(expresion.charAt(i))) {
+                i++;
+            }
+            if (i > inicio + 1 && (i == fin || (fin - i == 2 && expresion.charAt(i) == '_'
+                    && expresion.charAt(i + 1) == 'D'))) {
+                return Regla.VARIABLE_INTERNA;
+            }
+        }
+        for (String reservada : PALABRAS_RESERVADAS) {
+            int largo = reservada.length();
+            if (fin - inicio >= largo && regionIgual(expresion, inicio, reservada, 0, largo)
+                    && (fin - inicio == largo || esSufijoSentencia(expresion, inicio + largo, fin))) {
+                return Regla.PALABRA_RESERVADA;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica si el final de una palabra es un sufijo de sentencia: '_' seguido de
+     * dígitos.
+     */
+    private static boolean esSufijoSentencia(CharSequence expresion, int inicio, int fin) {
+        if (fin - inicio < 2 || expresion.charAt(inicio) != '_') {
+            return false;
+        }
+        for (int i = inicio + 1; i < fin; i++) {
+            if (!esDigito(expresion.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------------------------
+    // MÉTODOS AUXILIARES
+    // ---------------------------------------------------------------------------------
+    private static int inicioPalabraAnterior(CharSequence expresion, int fin) {
+        int i = fin;
+        while (i > 0 && esParteIdentificador(expresion.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean regionIgual(CharSequence a, int inicioA, CharSequence b, int inicioB, int longitud) {
+        for (int k = 0; k < longitud; k++) {
+            if (a.charAt(inicioA + k) != b.charAt(inicioB + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esOperador(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/' || c == '=';
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean esParteIdentificador(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || esDigito(c) || c == '_';
+    }
+}
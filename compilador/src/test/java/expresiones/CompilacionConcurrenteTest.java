@@ -0,0 +1,122 @@
+package expresiones;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compilar desde varios hilos a la vez debe dar exactamente lo mismo que
+ * compilar en secuencia: el mismo resultado y los mismos bytes de ASM. Todo el
+ * estado de una compilación vive en su {@link ContextoCompilacion}; si algo
+ * quedara compartido (un contador de temporales, una tabla de valores), las
+ * compilaciones simultáneas se mezclarían.
+ */
+class CompilacionConcurrenteTest {
+    // Expresiones de todas las formas: literales, signos, decimales, potencias de dos y varias sentencias
+    private static final String[] CORPUS = {
+            "z=(a+b)*c-d/2",
+            "z=a",
+            "z=5",
+            "z=(-4.5)",
+            "z=a*b/c+d*a",
+            "z=a-b+c-d",
+            "z=a/b*c",
+            "r=((a+b)*(c-d))/(a+(-b))",
+            "z=a*(-5)+b",
+            "z=(a*b+c)*(a*b-d)/(a*b)",
+            "z=2*3+a*4-b/8+10/2",
+            "z=((a+(-c))*(b-d))/((-a)+c)-(d*d*d)",
+            "x=a+b; y=x*c; z=y-x/d",
+            "t=a*2\nu=t+(-b)\nz=u*t/4",
+    };
+    private static final Map<String, Double> VALORES = Map.of("a", 3.0, "b", -2.5, "c", 7.0, "d", 1.25);
+    private static final int HILOS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    private static final int REPETICIONES = 25;
+
+    private record Compilacion(double resultado, byte[] asm) {
+    }
+
+    @Test
+    void compilarEnVariosHilosDaLoMismoQueEnSecuencia() throws Exception {
+        List<Compilacion> esperadas = new ArrayList<>();
+        for (String expresion : CORPUS) {
+            esperadas.add(compilar(expresion));
+        }
+        comprobarEnParalelo(esperadas, CompilacionConcurrenteTest::compilar);
+    }
+
+    @Test
+    void compilarConUnaCacheCompartidaDaLoMismoQueEnSecuencia() throws Exception {
+        List<Compilacion> esperadas = new ArrayList<>();
+        for (String expresion : CORPUS) {
+            esperadas.add(compilar(expresion));
+        }
+        // Más pequeña que el corpus, para que los hilos también compitan al desalojar
+        CacheExpresiones cache = new CacheExpresiones(4);
+        comprobarEnParalelo(esperadas, expresion -> {
+            ByteArrayOutputStream asm = new ByteArrayOutputStream();
+            ContextoPrograma programa = ExpresionesAritmeticasASM.compilar(expresion,
+                    OpcionesCompilacion.PREDETERMINADAS, cache, TablaValores.fuente(VALORES),
+                    () -> Channels.newChannel(asm), false);
+            return new Compilacion(programa.resultado(), asm.toByteArray());
+        });
+    }
+
+    private interface Compilador {
+        Compilacion compilar(String expresion) throws IOException;
+    }
+
+    private static Compilacion compilar(String expresion) throws IOException {
+        ByteArrayOutputStream asm = new ByteArrayOutputStream();
+        double resultado = ExpresionesAritmeticasASM.compilar(expresion, TablaValores.fuente(VALORES),
+                () -> Channels.newChannel(asm), false);
+        return new Compilacion(resultado, asm.toByteArray());
+    }
+
+    /**
+     * Compila el corpus {@link #REPETICIONES} veces en {@link #HILOS} hilos,
+     * que arrancan juntos, y compara cada compilación con la secuencial.
+     */
+    private static void comprobarEnParalelo(List<Compilacion> esperadas, Compilador compilador) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<Compilacion>> tareas = new ArrayList<>();
+            for (int r = 0; r < REPETICIONES; r++) {
+                for (String expresion : CORPUS) {
+                    Callable<Compilacion> tarea = () -> {
+                        salida.await();
+                        return compilador.compilar(expresion);
+                    };
+                    tareas.add(ejecutor.submit(tarea));
+                }
+            }
+            salida.countDown();
+
+            for (int i = 0; i < tareas.size(); i++) {
+                String expresion = CORPUS[i % CORPUS.length];
+                Compilacion esperada = esperadas.get(i % CORPUS.length);
+                Compilacion obtenida = tareas.get(i).get(60, TimeUnit.SECONDS);
+                assertEquals(Double.doubleToLongBits(esperada.resultado()),
+                        Double.doubleToLongBits(obtenida.resultado()), "Resultado de " + expresion);
+                assertArrayEquals(esperada.asm(), obtenida.asm(), "ASM de " + expresion);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package expresiones;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * {@link EvaluadorPuntoFijo} debe calcular lo mismo que el programa ASM. Cada
+ * expresión del corpus ({@code expresiones/corpus.txt}) se compila con
+ * {@code -O0} y con las optimizaciones predeterminadas, con los valores de
+ * {@code valores.properties} y con esos valores cambiados de signo, y el
+ * programa se ejecuta con {@link Interprete8086} hasta antes de imprimir el
+ * resultado: si termina en un {@code IDIV} el evaluador debe fallar, y si no,
+ * debe dar las palabras de la variable asignada leídas con signo.
+ *
+ * <p>
+ * Se corta antes de imprimir porque la rutina de impresión escribe sobre la
+ * palabra de enteros, y porque lo que imprime (signo, enteros y decimales) se
+ * calcula al compilar.
+ */
+class EvaluadorPuntoFijoTest {
+    private static final Map<String, OpcionesCompilacion> OPCIONES = Map.of(
+            "-O0", OpcionesCompilacion.SIN_OPTIMIZAR,
+            "-O", OpcionesCompilacion.PREDETERMINADAS);
+
+    private static final Map<String, Double> VALORES = leerValores();
+
+    static Stream<String> corpus() throws IOException {
+        return Files.readAllLines(recurso("corpus.txt"), StandardCharsets.UTF_8).stream()
+                .filter(linea -> !linea.isBlank() && !linea.startsWith("#"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void calculaLoMismoQueElPrograma(String expresion) {
+        Map<String, Double> opuestos = new HashMap<>();
+        VALORES.forEach((variable, valor) -> opuestos.put(variable, -valor));
+        for (Map<String, Double> valores : List.of(VALORES, opuestos)) {
+            for (Map.Entry<String, OpcionesCompilacion> opcion : OPCIONES.entrySet()) {
+                comparar(expresion, opcion.getValue(), valores, opcion.getKey() + " con " + valores);
+            }
+        }
+    }
+
+    /**
+     * Una asignación no pierde decimales: el evaluador debe dar el mismo texto
+     * que imprime el programa.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "z = d, -10.271, -10.271",
+            "z = d, 10.271, +10.271",
+            "z = (-d), 10.271, -10.271",
+            "z = (-d), -2.5, +2.500",
+            "z = d, -32768, -32768.000",
+    })
+    void unaAsignacionImprimeLoMismo(String expresion, double d, String impreso) {
+        ContextoPrograma programa = compilar(expresion, OpcionesCompilacion.PREDETERMINADAS, Map.of("d", d), null);
+        ContextoCompilacion sentencia = programa.sentencias().get(0);
+        long milesimas = new EvaluadorPuntoFijo(sentencia.expresion()).evaluar(sentencia.valoresVariables());
+        assertEquals(impreso.replace("+", ""), PuntoFijo.texto(milesimas));
+    }
+
+    private static void comparar(String expresion, OpcionesCompilacion opciones, Map<String, Double> valores,
+            String caso) {
+        ByteArrayOutputStream asm = new ByteArrayOutputStream();
+        ContextoPrograma programa;
+        try {
+            programa = compilar(expresion, opciones, valores, asm);
+        } catch (IllegalArgumentException e) {
+            return; // Expresión inválida a propósito; no hay programa
+        }
+        ContextoCompilacion sentencia = programa.sentencias().get(0);
+        EvaluadorPuntoFijo evaluador = new EvaluadorPuntoFijo(sentencia.expresion());
+
+        Interprete8086 interprete = Interprete8086.cargar(hastaImprimirResultado(asm));
+        Interprete8086.Resultado ejecucion = interprete.ejecutar();
+        if (ejecucion.error() != null) {
+            assertThrows(ArithmeticException.class, () -> evaluador.evaluar(sentencia.valoresVariables()),
+                    ejecucion.error() + " en " + expresion + ", " + caso);
+            return;
+        }
+        String variable = sentencia.expresion().variableIzquierda();
+        short entero = (short) interprete.palabra(variable);
+        short decimales = (short) interprete.palabra(variable + "_D");
+        long esperado = (entero < 0 ? -1 : 1) * (Math.abs(entero) * 1000L + decimales);
+        assertEquals(esperado, evaluador.evaluar(sentencia.valoresVariables()), expresion + ", " + caso);
+    }
+
+    private static ContextoPrograma compilar(String expresion, OpcionesCompilacion opciones,
+            Map<String, Double> valores, ByteArrayOutputStream asm) {
+        ByteArrayOutputStream destino = asm != null ? asm : new ByteArrayOutputStream();
+        try {
+            return ExpresionesAritmeticasASM.compilar(expresion, opciones, null, TablaValores.fuente(valores),
+                    () -> Channels.newChannel(destino), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * El programa sin la impresión del resultado: termina justo antes.
+     */
+    private static List<String> hastaImprimirResultado(ByteArrayOutputStream asm) {
+        List<String> lineas = new ArrayList<>();
+        // Latin-1, como Interprete8086.cargar(Path): conserva cada byte
+        for (String linea : new String(asm.toByteArray(), StandardCharsets.ISO_8859_1).lines().toList()) {
+            if (linea.equals("    ;Imprimir resultado")) {
+                lineas.addAll(List.of("    MOV AH, 4Ch", "    INT 21h", "END start"));
+                return lineas;
+            }
+            lineas.add(linea);
+        }
+        throw new IllegalStateException("El programa no imprime el resultado");
+    }
+
+    private static Map<String, Double> leerValores() {
+        try {
+            return TablaValores.leerPropiedades(recurso("valores.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path recurso(String nombre) {
+        try {
+            return Paths.get(EvaluadorPuntoFijoTest.class.getResource(nombre).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package expresiones;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Las optimizaciones no deben cambiar lo que se calcula. Cada expresión del
+ * corpus ({@code expresiones/corpus.txt}) se compila con {@code -O0}, con las
+ * optimizaciones predeterminadas y con {@code --sin-plegado}, y las tres
+ * compilaciones deben dar el mismo resultado en Java (bit a bit) y el mismo
+ * resultado al ejecutar el programa ASM con {@link Interprete8086}: cómo
+ * termina y, si termina bien, las palabras de enteros y de decimales de la
+ * variable asignada. Una expresión inválida debe rechazarse con el mismo
+ * mensaje en las tres.
+ *
+ * <p>
+ * No se compara todo lo que imprime el programa porque el orden en que
+ * muestra las variables de entrada depende de la compilación.
+ */
+class OptimizacionesTest {
+    private static final Map<String, OpcionesCompilacion> OPCIONES = Map.of(
+            "-O0", OpcionesCompilacion.SIN_OPTIMIZAR,
+            "-O", OpcionesCompilacion.PREDETERMINADAS,
+            "--sin-plegado", OpcionesCompilacion.PREDETERMINADAS.aplicar("--sin-plegado"));
+
+    private static final Map<String, Double> VALORES = leerValores();
+
+    /**
+     * Lo que se observa de una compilación.
+     *
+     * @param rechazo     El mensaje si la expresión se rechazó, o null.
+     * @param resultado   El resultado en Java, como bits de un double.
+     * @param terminacion El código de salida y el error del programa ASM.
+     * @param entero      La palabra de enteros de la variable asignada, si
+     *                    el programa terminó bien.
+     * @param decimales   Su palabra de decimales.
+     */
+    private record Observacion(String rechazo, long resultado, String terminacion, int entero, int decimales) {
+    }
+
+    static Stream<String> corpus() throws IOException {
+        return Files.readAllLines(recurso("corpus.txt"), StandardCharsets.UTF_8).stream()
+                .filter(linea -> !linea.isBlank() && !linea.startsWith("#"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void lasOptimizacionesNoCambianElResultado(String expresion) {
+        Observacion esperada = observar(expresion, OPCIONES.get("-O0"));
+        for (String opcion : List.of("-O", "--sin-plegado")) {
+            assertEquals(esperada, observar(expresion, OPCIONES.get(opcion)), opcion + " en " + expresion);
+        }
+    }
+
+    private static Observacion observar(String expresion, OpcionesCompilacion opciones) {
+        ByteArrayOutputStream asm = new ByteArrayOutputStream();
+        ContextoPrograma programa;
+        try {
+            programa = ExpresionesAritmeticasASM.compilar(expresion, opciones, null, TablaValores.fuente(VALORES),
+                    () -> Channels.newChannel(asm), false);
+        } catch (IllegalArgumentException e) {
+            return new Observacion(e.getMessage(), 0, null, 0, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Latin-1, como Interprete8086.cargar(Path): conserva cada byte
+        List<String> lineas = new String(asm.toByteArray(), StandardCharsets.ISO_8859_1).lines().toList();
+        Interprete8086 interprete = Interprete8086.cargar(lineas);
+        Interprete8086.Resultado ejecucion = interprete.ejecutar();
+        String terminacion = ejecucion.codigoSalida() + " " + ejecucion.error();
+        long resultado = Double.doubleToLongBits(programa.resultado());
+        if (ejecucion.error() != null) {
+            return new Observacion(null, resultado, terminacion, 0, 0);
+        }
+        List<ContextoCompilacion> sentencias = programa.sentencias();
+        String variable = sentencias.get(sentencias.size() - 1).expresion().variableIzquierda();
+        return new Observacion(null, resultado, terminacion, interprete.palabra(variable),
+                interprete.palabra(variable + "_D"));
+    }
+
+    private static Map<String, Double> leerValores() {
+        try {
+            return TablaValores.leerPropiedades(recurso("valores.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path recurso(String nombre) {
+        try {
+            return Paths.get(OptimizacionesTest.class.getResource(nombre).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}